@@ -0,0 +1,45 @@
+package org.bmssp.bench;
+
+import org.bmssp.algo.BaseCase;
+import org.bmssp.algo.QueryWorkspace;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.Instrument;
+import org.bmssp.algo.util.NodeSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BaseCaseBenchmark {
+
+    @State(Scope.Thread)
+    public static class BaseCaseState {
+        @Param({"3", "64"})
+        public int k;
+
+        public QueryWorkspace workspace;
+        public NodeSet S;
+
+        @Setup(Level.Trial)
+        public void allocate(GraphState g) {
+            int n = g.graph.getNodeCount();
+            workspace = new QueryWorkspace(n);
+            S = NodeSet.of(n, 0);
+        }
+    }
+
+    /**
+     * BASECASE touches about k nodes, so each call starts from a fresh sparse distance store
+     */
+    @Benchmark
+    public BaseCase.Result baseCase(GraphState g, BaseCaseState b) {
+        var dist = DistanceStore.sparse(g.graph.getNodeCount());
+        dist.set(0, 0.0);
+        return BaseCase.baseCase(g.graph, dist, Double.POSITIVE_INFINITY, b.S, b.k,
+                b.workspace.getHeap(), b.workspace.frame(0), new Instrument());
+    }
+}
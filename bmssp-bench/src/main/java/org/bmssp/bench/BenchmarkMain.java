@@ -0,0 +1,22 @@
+package org.bmssp.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks with the GC profiler attached, so every result also reports
+ * allocation rate (gc.alloc.rate.norm is bytes allocated per operation).
+ * Accepts the usual JMH command line, e.g. {@code -p n=1000000 -p family=random BmsspBenchmark}.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        var options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
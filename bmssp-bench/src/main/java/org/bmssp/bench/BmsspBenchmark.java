@@ -0,0 +1,56 @@
+package org.bmssp.bench;
+
+import org.bmssp.algo.BMSSP;
+import org.bmssp.algo.BmsspConfig;
+import org.bmssp.algo.DataStructureD;
+import org.bmssp.algo.QueryWorkspace;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.Instrument;
+import org.bmssp.algo.util.NodeSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BmsspBenchmark {
+
+    @State(Scope.Thread)
+    public static class WorkspaceState {
+        @Param({"BLOCK", "HEAP"})
+        public DataStructureD.Kind dataStructure;
+
+        public QueryWorkspace workspace;
+        public NodeSet sources;
+        public int l;
+
+        @Setup(Level.Trial)
+        public void allocate(GraphState g) {
+            int n = g.graph.getNodeCount();
+            workspace = new QueryWorkspace(n, BmsspConfig.defaults().withDataStructure(dataStructure));
+            sources = NodeSet.of(n, 0);
+            l = BMSSP.topLevelDepth(n);
+        }
+    }
+
+    @Benchmark
+    public BMSSP.Result bmssp(GraphState g, WorkspaceState w) {
+        int n = g.graph.getNodeCount();
+        var dist = DistanceStore.dense(n);
+        dist.set(0, 0.0);
+        return BMSSP.bmssp(g.graph, dist, w.l, Double.POSITIVE_INFINITY, w.sources, n,
+                w.workspace, new Instrument());
+    }
+
+    @Benchmark
+    public BMSSP.Result float32(FloatGraphState f, WorkspaceState w) {
+        int n = f.graph.getNodeCount();
+        var dist = DistanceStore.denseFloat(n);
+        dist.set(0, 0.0);
+        return BMSSP.bmssp(f.graph, dist, w.l, Double.POSITIVE_INFINITY, w.sources, n,
+                w.workspace, new Instrument());
+    }
+}
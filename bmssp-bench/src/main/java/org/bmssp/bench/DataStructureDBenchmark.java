@@ -0,0 +1,91 @@
+package org.bmssp.bench;
+
+import org.bmssp.algo.DataStructureD;
+import org.bmssp.algo.util.NodeKeyBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the DataStructureD implementations on the same key streams
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DataStructureDBenchmark {
+
+    @Param({"BLOCK", "HEAP"})
+    public DataStructureD.Kind kind;
+
+    @Param({"10000"})
+    public int size;
+
+    @Param({"64"})
+    public int M;
+
+    @Param({"0"})
+    public int seed;
+
+    private int[] nodes;
+    private double[] keys;
+    private NodeKeyBuffer[] batches;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        var random = new Random(seed);
+        nodes = new int[size];
+        keys = new double[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = random.nextInt(size);
+            keys[i] = random.nextDouble() * 1000.0;
+        }
+
+        // Batches with decreasing key ranges, as BMSSP prepends them
+        int batchCount = Math.max(1, size / (4 * M));
+        batches = new NodeKeyBuffer[batchCount];
+        for (int b = 0; b < batchCount; b++) {
+            batches[b] = new NodeKeyBuffer(4 * M);
+            double high = 1000.0 * (batchCount - b) / batchCount;
+            double low = 1000.0 * (batchCount - b - 1) / batchCount;
+            for (int i = 0; i < 4 * M; i++) {
+                batches[b].add(random.nextInt(size), low + random.nextDouble() * (high - low));
+            }
+        }
+    }
+
+    @Benchmark
+    public DataStructureD insert() {
+        var D = kind.create(M, 1000.0, M);
+        for (int i = 0; i < size; i++) {
+            D.insert(nodes[i], keys[i]);
+        }
+        return D;
+    }
+
+    @Benchmark
+    public void insertAndPull(Blackhole bh) {
+        var D = kind.create(M, 1000.0, M);
+        for (int i = 0; i < size; i++) {
+            D.insert(nodes[i], keys[i]);
+        }
+        while (!D.isEmpty()) {
+            bh.consume(D.pull().Bi());
+        }
+    }
+
+    @Benchmark
+    public void batchPrependAndPull(Blackhole bh) {
+        var D = kind.create(M, 1000.0, M);
+        for (var batch : batches) {
+            D.batchPrepend(batch);
+        }
+        while (!D.isEmpty()) {
+            bh.consume(D.pull().Bi());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.bmssp.bench;
+
+import org.bmssp.algo.DeltaStepping;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.Instrument;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeltaSteppingBenchmark {
+
+    @State(Scope.Thread)
+    public static class EngineState {
+        /**
+         * Bucket width; 0 uses DeltaStepping.defaultDelta
+         */
+        @Param({"0"})
+        public double delta;
+
+        /**
+         * Pool size; 0 uses the common pool
+         */
+        @Param({"0"})
+        public int threads;
+
+        public DeltaStepping engine;
+        public ForkJoinPool pool;
+
+        @Setup(Level.Trial)
+        public void setup(GraphState g) {
+            engine = new DeltaStepping(g.graph, delta > 0 ? delta : DeltaStepping.defaultDelta(g.graph));
+            pool = threads > 0 ? new ForkJoinPool(threads) : ForkJoinPool.commonPool();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (pool != ForkJoinPool.commonPool()) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Benchmark
+    public DistanceStore shortestPaths(EngineState e) {
+        return e.engine.shortestPaths(0, e.pool, new Instrument());
+    }
+}
@@ -0,0 +1,118 @@
+package org.bmssp.bench;
+
+import org.bmssp.algo.Ball;
+import org.bmssp.algo.Dijkstra;
+import org.bmssp.algo.IntDijkstra;
+import org.bmssp.algo.QueryWorkspace;
+import org.bmssp.algo.graph.IntCsrGraph;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.IndexedDaryHeap;
+import org.bmssp.algo.util.Instrument;
+import org.bmssp.algo.util.RadixHeap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DijkstraBenchmark {
+
+    @State(Scope.Thread)
+    public static class HeapState {
+        public IndexedDaryHeap heap;
+
+        @Setup(Level.Trial)
+        public void allocate(GraphState g) {
+            heap = new IndexedDaryHeap(g.graph.getNodeCount());
+        }
+    }
+
+    /**
+     * Workspace for local queries, whose epoch-stamped distances reset in O(1)
+     */
+    @State(Scope.Thread)
+    public static class WorkspaceState {
+        /**
+         * Ball radius; small enough that a ball is a tiny part of the graph
+         */
+        @Param({"25"})
+        public double radius;
+
+        public QueryWorkspace workspace;
+
+        @Setup(Level.Trial)
+        public void allocate(GraphState g) {
+            workspace = new QueryWorkspace(g.graph.getNodeCount());
+        }
+    }
+
+    /**
+     * The benchmark graph with weights scaled and rounded to ints
+     */
+    @State(Scope.Thread)
+    public static class IntegerState {
+        /**
+         * Weight scale before rounding; 10 keeps one decimal of the generated weights
+         */
+        @Param({"10"})
+        public double scale;
+
+        public IntCsrGraph graph;
+        public RadixHeap radixHeap;
+        public IndexedDaryHeap heap;
+        public long[] dist;
+
+        @Setup(Level.Trial)
+        public void allocate(GraphState g) {
+            graph = IntCsrGraph.scaled(g.graph, scale);
+            radixHeap = new RadixHeap(graph.getNodeCount());
+            heap = new IndexedDaryHeap(graph.getNodeCount());
+            dist = new long[graph.getNodeCount()];
+        }
+    }
+
+    @Benchmark
+    public DistanceStore shortestPaths(GraphState g, HeapState h) {
+        var dist = DistanceStore.dense(g.graph.getNodeCount());
+        return Dijkstra.shortestPaths(g.graph, 0, dist, h.heap, new Instrument());
+    }
+
+    /**
+     * Local query on a fresh dense store: the O(n) fill dominates, the baseline for {@link #ballWorkspace}
+     */
+    @Benchmark
+    public Ball ball(GraphState g, HeapState h, WorkspaceState w) {
+        var dist = DistanceStore.dense(g.graph.getNodeCount());
+        return Dijkstra.ball(g.graph, 0, w.radius, dist, h.heap, new Instrument());
+    }
+
+    @Benchmark
+    public Ball ballWorkspace(GraphState g, WorkspaceState w) {
+        return Dijkstra.ball(g.graph, 0, w.radius, w.workspace, new Instrument());
+    }
+
+    @Benchmark
+    public DistanceStore float32ShortestPaths(FloatGraphState f, HeapState h) {
+        var dist = DistanceStore.denseFloat(f.graph.getNodeCount());
+        return Dijkstra.shortestPaths(f.graph, 0, dist, h.heap, new Instrument());
+    }
+
+    /**
+     * Double keys on the integer weights, the baseline for {@link #integerShortestPaths}
+     */
+    @Benchmark
+    public DistanceStore integerWeightsDoubleKeys(IntegerState s) {
+        var dist = DistanceStore.dense(s.graph.getNodeCount());
+        return Dijkstra.shortestPaths(s.graph, 0, dist, s.heap, new Instrument());
+    }
+
+    @Benchmark
+    public long[] integerShortestPaths(IntegerState s) {
+        Arrays.fill(s.dist, IntDijkstra.UNREACHABLE);
+        return IntDijkstra.shortestPaths(s.graph, 0, s.dist, s.radixHeap, new Instrument());
+    }
+}
@@ -0,0 +1,85 @@
+package org.bmssp.bench;
+
+import org.bmssp.algo.DynamicSssp;
+import org.bmssp.algo.graph.DynamicCsrGraph;
+import org.bmssp.algo.util.Instrument;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of keeping single-source distances current under edge updates: incremental repair
+ * against a full rerun after the same update. Updates are drawn around the generated weights,
+ * so the graph does not drift over a trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DynamicBenchmark {
+
+    @State(Scope.Thread)
+    public static class DynamicState {
+        public DynamicCsrGraph graph;
+        public DynamicSssp sssp;
+        public Random random;
+        public Instrument instr;
+
+        @Setup(Level.Trial)
+        public void copy(GraphState g) {
+            graph = DynamicCsrGraph.copyOf(g.graph);
+            sssp = new DynamicSssp(graph, 0);
+            random = new Random(g.seed + 2L);
+            instr = new Instrument();
+        }
+
+        /**
+         * Node with at least one out-edge
+         */
+        int randomTail() {
+            int u;
+            do {
+                u = random.nextInt(graph.getNodeCount());
+            } while (graph.getOutDegree(u) == 0);
+            return u;
+        }
+    }
+
+    /**
+     * Set a random edge to its generated weight times a factor in [0.5, 2) and repair
+     */
+    @Benchmark
+    public long weightRepair(GraphState g, DynamicState s) {
+        int u = s.randomTail();
+        int k = s.random.nextInt(s.graph.getOutDegree(u));
+        double weight = g.graph.weight(g.graph.edgeStart(u) + k) * (0.5 + 1.5 * s.random.nextDouble());
+        return s.sssp.setWeight(u, s.graph.target(s.graph.edgeStart(u) + k), weight, s.instr);
+    }
+
+    /**
+     * The same update followed by a full Dijkstra run instead of a repair
+     */
+    @Benchmark
+    public long weightRerun(GraphState g, DynamicState s) {
+        int u = s.randomTail();
+        int k = s.random.nextInt(s.graph.getOutDegree(u));
+        double weight = g.graph.weight(g.graph.edgeStart(u) + k) * (0.5 + 1.5 * s.random.nextDouble());
+        s.graph.setWeight(u, s.graph.target(s.graph.edgeStart(u) + k), weight);
+        s.sssp.recompute(s.instr);
+        return s.instr.getRelaxations();
+    }
+
+    /**
+     * Delete a random edge and insert it again, repairing after each
+     */
+    @Benchmark
+    public long deleteInsertRepair(DynamicState s) {
+        int u = s.randomTail();
+        long e = s.graph.edgeStart(u) + s.random.nextInt(s.graph.getOutDegree(u));
+        int v = s.graph.target(e);
+        double weight = s.graph.weight(e);
+        return s.sssp.removeEdge(u, v, s.instr) + s.sssp.addEdge(u, v, weight, s.instr);
+    }
+}
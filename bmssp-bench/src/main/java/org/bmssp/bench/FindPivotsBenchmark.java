@@ -0,0 +1,71 @@
+package org.bmssp.bench;
+
+import org.bmssp.algo.Dijkstra;
+import org.bmssp.algo.FindPivots;
+import org.bmssp.algo.QueryWorkspace;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.Instrument;
+import org.bmssp.algo.util.NodeSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindPivotsBenchmark {
+
+    /**
+     * S is the |S| nodes closest to node 0 with exact distances, B the distance of the
+     * (4|S|)-th closest node, so the bounded Bellman-Ford explores a band beyond S
+     */
+    @State(Scope.Thread)
+    public static class PivotState {
+        @Param({"1024"})
+        public int sourceCount;
+
+        @Param({"3"})
+        public int kSteps;
+
+        @Param({"64"})
+        public int pLimit;
+
+        public DistanceStore dist;
+        public NodeSet S;
+        public double B;
+        public QueryWorkspace.Frame frame;
+
+        @Setup(Level.Trial)
+        public void prepare(GraphState g) {
+            int n = g.graph.getNodeCount();
+            var exact = Dijkstra.shortestPaths(g.graph, 0, new Instrument());
+            var order = IntStream.range(0, n)
+                    .filter(v -> Double.isFinite(exact.get(v)))
+                    .boxed()
+                    .sorted(Comparator.comparingDouble(exact::get))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+
+            int count = Math.min(sourceCount, order.length);
+            dist = DistanceStore.dense(n);
+            S = new NodeSet(n);
+            for (int v : Arrays.copyOf(order, count)) {
+                dist.set(v, exact.get(v));
+                S.add(v);
+            }
+            B = exact.get(order[Math.min(order.length - 1, 4 * count)]);
+            frame = new QueryWorkspace(n).frame(1);
+        }
+    }
+
+    @Benchmark
+    public FindPivots.Result findPivots(GraphState g, PivotState p) {
+        return FindPivots.findPivots(g.graph, p.dist, p.S, p.B, g.graph.getNodeCount(),
+                p.kSteps, p.pLimit, p.frame, new Instrument());
+    }
+}
@@ -0,0 +1,18 @@
+package org.bmssp.bench;
+
+import org.bmssp.algo.graph.FloatCsrGraph;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Shared benchmark input: the {@link GraphState} graph with its weights narrowed to floats
+ */
+@State(Scope.Benchmark)
+public class FloatGraphState {
+
+    public FloatCsrGraph graph;
+
+    @Setup(Level.Trial)
+    public void narrow(GraphState g) {
+        graph = FloatCsrGraph.narrowed(g.graph);
+    }
+}
@@ -0,0 +1,34 @@
+package org.bmssp.bench;
+
+import org.bmssp.algo.graph.CsrGraph;
+import org.bmssp.algo.graph.GraphGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Locale;
+
+/**
+ * Shared benchmark input: one generated graph per trial, parameterized by size, seed and family.
+ * family is a {@link GraphGenerator.Family} name in any case, e.g. {@code -p family=random,grid,rmat,geometric}.
+ */
+@State(Scope.Benchmark)
+public class GraphState {
+
+    @Param({"100000"})
+    public int n;
+
+    @Param({"400000"})
+    public int m;
+
+    @Param({"0"})
+    public int seed;
+
+    @Param({"random"})
+    public String family;
+
+    public CsrGraph graph;
+
+    @Setup(Level.Trial)
+    public void buildGraph() {
+        graph = GraphGenerator.generate(GraphGenerator.Family.valueOf(family.toUpperCase(Locale.ROOT)), n, m, seed);
+    }
+}
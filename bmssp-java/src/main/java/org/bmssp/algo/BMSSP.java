@@ -1,9 +1,20 @@
 package org.bmssp.algo;
 
-import org.bmssp.algo.graph.Graph;
+import org.bmssp.algo.graph.CsrView;
+import org.bmssp.algo.graph.IntCsrGraph;
+import org.bmssp.algo.jfr.BatchPrependEvent;
+import org.bmssp.algo.jfr.BmsspEvent;
+import org.bmssp.algo.jfr.PullEvent;
+import org.bmssp.algo.util.AtomicDistanceStore;
+import org.bmssp.algo.util.DistanceStore;
 import org.bmssp.algo.util.Instrument;
+import org.bmssp.algo.util.Metrics;
+import org.bmssp.algo.util.NodeKeyBuffer;
+import org.bmssp.algo.util.NodeSet;
+import org.bmssp.algo.util.Parallel;
+import org.bmssp.algo.util.ShortestPathTree;
 
-import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The Duan et al. SSSP engine implementing O(m * log^(2/3) n) shortest paths.
@@ -16,73 +27,200 @@ import java.util.*;
  */
 public class BMSSP {
 
-    public record Result(double BPrime, Set<Integer> U) {}
+    /**
+     * Smallest number of Ui nodes handed to one parallel relaxation chunk
+     */
+    static final int PARALLEL_CHUNK = 256;
+
+    /**
+     * @param BPrime New bound B'
+     * @param U Completed nodes; owned by the workspace frame of the call's depth
+     */
+    public record Result(double BPrime, NodeSet U) {}
+
+    /**
+     * Heuristic top-level recursion depth l ~ log n / t for a graph with n nodes
+     */
+    public static int topLevelDepth(int n) {
+        if (n <= 2) {
+            return 1;
+        }
+        double logN = Math.log(Math.max(3, n));
+        int tGuess = Math.max(1, (int) Math.round(Math.pow(logN, 2.0 / 3.0)));
+        return Math.max(1, (int) Math.round(logN / tGuess));
+    }
+
+    /**
+     * BMSSP entry point with a fresh workspace
+     */
+    public static Result bmssp(CsrView graph, DistanceStore dist,
+                               int l, double B, NodeSet S, int n, Instrument instr) {
+        return bmssp(graph, dist, l, B, S, n, new QueryWorkspace(graph.getNodeCount()), instr);
+    }
+
+    /**
+     * Top-level BMSSP from one source into a new query on workspace. Distances start from the
+     * workspace's store, reset in O(1), and are left in {@link QueryWorkspace#getDistances}.
+     */
+    public static Result fromSource(CsrView graph, int source, QueryWorkspace workspace, Instrument instr) {
+        var dist = workspace.startQuery();
+        dist.set(source, 0.0);
+        return bmssp(graph, dist, workspace.getParams().topLevel(), Double.POSITIVE_INFINITY,
+                workspace.sources(source), graph.getNodeCount(), workspace, instr);
+    }
+
+    /**
+     * Top-level BMSSP that stops once every target is complete, i.e. once a
+     * recursive call returns a bound B' above all target distances. Targets then hold their
+     * final estimates; the rest of the graph may be left unexplored.
+     *
+     * @param dist Distance estimates; the sources hold their start distances, all else +infinity
+     * @param S Source nodes
+     * @param targets Nodes whose distances are wanted
+     */
+    public static Result toTargets(CsrView graph, DistanceStore dist, NodeSet S, NodeSet targets,
+                                   QueryWorkspace workspace, Instrument instr) {
+        int n = graph.getNodeCount();
+        return bmssp(graph, dist, workspace.getParams().topLevel(), Double.POSITIVE_INFINITY, S, n, targets,
+                Double.POSITIVE_INFINITY, workspace, instr);
+    }
+
+    /**
+     * All nodes within radius of the sources: the top-level call runs with B just above the
+     * radius, so nothing beyond it is relaxed, pivoted, queued in D or expanded by a base case.
+     * The ball holds every node labeled within the radius, not just those the call returned as
+     * complete; its distances are estimates, see {@link Ball#distances}. Labels are recorded as
+     * they are written, so collecting the ball costs O(nodes touched) rather than O(n); the
+     * relaxations run sequentially while recording.
+     *
+     * @param dist Distance estimates; the sources hold their start distances, all else +infinity
+     * @param S Source nodes
+     * @param radius Largest distance included, >= 0
+     */
+    public static Ball ball(CsrView graph, DistanceStore dist, NodeSet S, double radius,
+                            QueryWorkspace workspace, Instrument instr) {
+        if (!(radius >= 0)) {
+            throw new IllegalArgumentException("radius must be non-negative");
+        }
+        int n = graph.getNodeCount();
+        double B = Math.nextUp(radius);
+        var labeled = workspace.recordLabels();
+        Result result;
+        try {
+            result = bmssp(graph, dist, workspace.getParams().topLevel(), B, S, n, workspace, instr);
+        } finally {
+            workspace.stopRecordingLabels();
+        }
+        labeled.addAll(S);
+        labeled.addAll(result.U());
+        return Ball.collect(radius, labeled, dist, result.BPrime() >= B);
+    }
 
     /**
      * BMSSP recursive function
      *
      * @param graph The input graph
      * @param dist Current distance estimates (modified in-place)
-     * @param edges List of all edges (for reference)
      * @param l Recursion depth
-     * @param B Upper bound on distances
+     * @param B Upper bound on distances; no estimate at or beyond it is written, so a finite B
+     *          leaves the graph beyond it untouched
      * @param S Set of source nodes
      * @param n Number of nodes in graph
+     * @param workspace Scratch state reused across the recursion; its {@link QueryWorkspace#getParams}
+     *                  size the recursion, and predecessors are recorded into its shortest-path
+     *                  tree when one is set
      * @param instr Instrumentation for tracking operations
      * @return Result containing B' and set of reached nodes
      */
-    public static Result bmssp(Graph graph, Map<Integer, Double> dist, List<Graph.Edge> edges,
-                               int l, double B, Set<Integer> S, int n, Instrument instr) {
+    public static Result bmssp(CsrView graph, DistanceStore dist, int l, double B,
+                               NodeSet S, int n, QueryWorkspace workspace, Instrument instr) {
+        return bmssp(graph, dist, l, B, S, n, null, B, workspace, instr);
+    }
 
-        // Calculate heuristic parameters
-        int tParam, kParam;
-        if (n <= 2) {
-            tParam = 1;
-            kParam = 2;
-        } else {
-            // t ~ (log n)^{2/3}, k ~ (log n)^{1/3}
-            double logN = Math.log(Math.max(3, n));
-            tParam = Math.max(1, (int) Math.round(Math.pow(logN, 2.0 / 3.0)));
-            kParam = Math.max(2, (int) Math.round(Math.pow(logN, 1.0 / 3.0)));
-        }
+    /**
+     * @param targets Stop the main loop of this call once all of them are below a returned B';
+     *                null to run to completion. Recursive calls always run to completion.
+     * @param ceiling Bound of the top-level call; Ui relaxations only lower estimates below it
+     */
+    private static Result bmssp(CsrView graph, DistanceStore dist, int l, double B, NodeSet S, int n,
+                                NodeSet targets, double ceiling, QueryWorkspace workspace, Instrument instr) {
+        var metrics = workspace.getConfig().metrics();
+        long callStart = metrics != null ? System.nanoTime() : 0L;
+        int sSize = S.size();
+        var event = new BmsspEvent();
+        event.begin();
+        long relaxationsAtStart = instr.getRelaxations();
+
+        // Heuristic or tuned parameters
+        var params = workspace.getParams();
+        int tParam = params.t();
+        int kParam = params.k();
 
         // Base case: l == 0
         if (l <= 0) {
-            if (S.isEmpty()) {
-                return new Result(B, Set.of());
+            var baseResult = graph instanceof IntCsrGraph intGraph
+                    ? BaseCase.baseCase(intGraph, dist, B, S, kParam,
+                            workspace.getRadixHeap(), workspace.frame(0), workspace.getTree(), workspace.getLabels(), instr)
+                    : BaseCase.baseCase(graph, dist, B, S, kParam,
+                            workspace.getHeap(), workspace.frame(0), workspace.getTree(), workspace.getLabels(), instr);
+            if (metrics != null) {
+                long elapsed = System.nanoTime() - callStart;
+                metrics.addCall(0, Metrics.Counter.BASE_CASE_CALLS, Metrics.Counter.BASE_CASE_NANOS, elapsed);
+                metrics.add(0, Metrics.Counter.BASE_CASE_NODES, baseResult.UoSet().size());
+                recordCall(metrics, 0, elapsed, sSize, baseResult.UoSet().size());
             }
-            var baseResult = BaseCase.baseCase(graph, dist, B, S, kParam, instr);
-            return new Result(baseResult.BPrime(), baseResult.UoSet());
+            var result = new Result(baseResult.BPrime(), baseResult.UoSet());
+            commit(event, 0, B, sSize, result, instr.getRelaxations() - relaxationsAtStart);
+            return result;
+        }
+
+        var frame = workspace.frame(l);
+        boolean parallelRelax = workspace.getConfig().parallelRelax();
+        if (parallelRelax && !(dist instanceof AtomicDistanceStore)) {
+            throw new IllegalArgumentException("Parallel relaxation needs an AtomicDistanceStore");
         }
 
         // FIND_PIVOTS: compute P, W
-        int pLimit = Math.max(1, 1 << Math.min(10, tParam)); // 2^tParam, capped
+        int pLimit = params.pivotLimit();
         int kSteps = Math.max(1, kParam);
-        var findPivotsResult = FindPivots.findPivots(graph, dist, S, B, n, kSteps, pLimit, instr);
+        long phaseStart = metrics != null ? System.nanoTime() : 0L;
+        var findPivotsResult = FindPivots.findPivots(graph, dist, S, B, n, kSteps, pLimit, workspace, l, instr);
         var P = findPivotsResult.P();
         var W = findPivotsResult.W();
+        if (metrics != null) {
+            metrics.addCall(l, Metrics.Counter.FIND_PIVOTS_CALLS, Metrics.Counter.FIND_PIVOTS_NANOS,
+                    System.nanoTime() - phaseStart);
+            metrics.add(l, Metrics.Counter.P_NODES, P.size());
+            metrics.add(l, Metrics.Counter.W_NODES, W.size());
+        }
 
         // Initialize DataStructure D
-        int M = 1 << Math.max(0, (l - 1) * tParam); // 2^((l-1)*t)
-        int blockSize = Math.max(1, Math.min(P.isEmpty() ? 1 : P.size(), 64));
-        var D = new DataStructureD(M, B, blockSize);
+        int M = 1 << Math.min(30, Math.max(0, (l - 1) * tParam)); // 2^((l-1)*t)
+        int blockSize = Math.max(1, Math.min(P.isEmpty() ? 1 : P.size(), params.blockSize()));
+        var D = workspace.dataStructure(l, M, B, blockSize);
 
         // Insert pivots into D
-        for (int x : P) {
-            D.insert(x, dist.getOrDefault(x, Double.POSITIVE_INFINITY));
+        double BPrimeInitial = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < P.size(); i++) {
+            int x = P.get(i);
+            D.insert(x, dist.get(x));
+            BPrimeInitial = Math.min(BPrimeInitial, dist.get(x));
+        }
+        if (P.isEmpty()) {
+            BPrimeInitial = B;
         }
 
-        double BPrimeInitial = P.stream()
-                .mapToDouble(x -> dist.getOrDefault(x, Double.POSITIVE_INFINITY))
-                .min()
-                .orElse(B);
+        var U = frame.U();
+        U.clear();
+        var KForBatch = frame.batch();
+        double BPrimeLast = BPrimeInitial;
 
-        var U = new HashSet<Integer>();
-        var BPrimeSubValues = new ArrayList<Double>();
+        // Targets are complete once below a returned B', and stay complete; count them in order
+        int settledTargets = 0;
 
         // Main loop
         int loopGuard = 0;
-        int limit = kParam * (1 << (l * Math.max(1, tParam)));
+        long limit = (long) kParam << Math.min(32, l * tParam); // k * 2^(l*t), capped past any |U|
 
         while (U.size() < limit && !D.isEmpty()) {
             loopGuard++;
@@ -92,6 +230,9 @@ public class BMSSP {
             }
 
             DataStructureD.PullResult pullResult;
+            phaseStart = metrics != null ? System.nanoTime() : 0L;
+            var pullEvent = new PullEvent();
+            pullEvent.begin();
             try {
                 pullResult = D.pull();
             } catch (IllegalStateException e) {
@@ -100,74 +241,235 @@ public class BMSSP {
 
             double Bi = pullResult.Bi();
             var Si = pullResult.Si();
+            if (metrics != null) {
+                metrics.addCall(l, Metrics.Counter.PULLS, Metrics.Counter.PULL_NANOS, System.nanoTime() - phaseStart);
+                metrics.add(l, Metrics.Counter.PULLED_NODES, Si.size());
+            }
+            if (pullEvent.shouldCommit()) {
+                pullEvent.depth = l;
+                pullEvent.dataStructure = workspace.getConfig().dataStructure().name();
+                pullEvent.pulled = Si.size();
+                pullEvent.separator = Bi;
+                pullEvent.commit();
+            }
 
             // Recursive call
-            var subResult = bmssp(graph, dist, edges, l - 1, Bi, Si, n, instr);
+            var subResult = bmssp(graph, dist, l - 1, Bi, Si, n, null, ceiling, workspace, instr);
             double BPrimeSub = subResult.BPrime();
             var Ui = subResult.U();
 
-            BPrimeSubValues.add(BPrimeSub);
+            BPrimeLast = BPrimeSub;
             U.addAll(Ui);
 
             // Relax edges from Ui
-            var KForBatch = new HashSet<DataStructureD.NodeKey>();
-
-            for (int u : Ui) {
-                double du = dist.getOrDefault(u, Double.POSITIVE_INFINITY);
-                if (!Double.isFinite(du)) {
-                    continue;
-                }
+            KForBatch.clear();
 
-                for (var edge : graph.getNeighbors(u)) {
-                    instr.incrementRelaxations();
-                    int v = edge.to();
-                    double wUV = edge.weight();
-                    double newD = du + wUV;
-
-                    // Accept equality per remark (<=) to allow reuse
-                    if (newD <= dist.getOrDefault(v, Double.POSITIVE_INFINITY)) {
-                        dist.put(v, newD);
-                        if (Bi <= newD && newD < B) {
-                            D.insert(v, newD);
-                        } else if (BPrimeSub <= newD && newD < Bi) {
-                            KForBatch.add(new DataStructureD.NodeKey(v, newD));
-                        }
-                    }
-                }
+            // Concurrent lowering cannot tell which writer left the final distance, so a
+            // shortest-path tree, and the labels of a ball query, are always filled sequentially
+            var tree = workspace.getTree();
+            var labeled = workspace.getLabels();
+            long relaxationsBefore = instr.getRelaxations();
+            phaseStart = metrics != null ? System.nanoTime() : 0L;
+            long inserts;
+            if (parallelRelax && tree == null && labeled == null && Ui.size() >= 2 * PARALLEL_CHUNK) {
+                inserts = relaxParallel(graph, (AtomicDistanceStore) dist, Ui, B, Bi, BPrimeSub, ceiling, D,
+                        KForBatch, workspace, instr);
+            } else {
+                inserts = relaxSequential(graph, dist, Ui, B, Bi, BPrimeSub, ceiling, D, KForBatch, tree, labeled, instr);
+            }
+            if (metrics != null) {
+                metrics.addCall(l, Metrics.Counter.RELAX_CALLS, Metrics.Counter.RELAX_NANOS,
+                        System.nanoTime() - phaseStart);
+                metrics.add(l, Metrics.Counter.RELAXATIONS, instr.getRelaxations() - relaxationsBefore);
+                metrics.add(l, Metrics.Counter.INSERTS, inserts);
             }
 
             // Also include Si nodes whose distance falls into [BPrimeSub, Bi)
-            for (int x : Si) {
-                double dx = dist.getOrDefault(x, Double.POSITIVE_INFINITY);
+            for (int i = 0; i < Si.size(); i++) {
+                int x = Si.get(i);
+                double dx = dist.get(x);
                 if (BPrimeSub <= dx && dx < Bi) {
-                    KForBatch.add(new DataStructureD.NodeKey(x, dx));
+                    KForBatch.add(x, dx);
                 }
             }
 
             if (!KForBatch.isEmpty()) {
+                phaseStart = metrics != null ? System.nanoTime() : 0L;
+                var prependEvent = new BatchPrependEvent();
+                prependEvent.begin();
                 D.batchPrepend(KForBatch);
+                if (metrics != null) {
+                    metrics.addCall(l, Metrics.Counter.BATCH_PREPENDS, Metrics.Counter.BATCH_PREPEND_NANOS,
+                            System.nanoTime() - phaseStart);
+                    metrics.add(l, Metrics.Counter.PREPENDED_PAIRS, KForBatch.size());
+                }
+                if (prependEvent.shouldCommit()) {
+                    prependEvent.depth = l;
+                    prependEvent.dataStructure = workspace.getConfig().dataStructure().name();
+                    prependEvent.pairs = KForBatch.size();
+                    prependEvent.commit();
+                }
             }
-        }
 
-        // Compute final B'
-        double BPrimeFinal;
-        if (!BPrimeSubValues.isEmpty()) {
-            var allValues = new ArrayList<Double>();
-            allValues.add(BPrimeInitial);
-            allValues.addAll(BPrimeSubValues);
-            BPrimeFinal = Collections.min(allValues);
-        } else {
-            BPrimeFinal = BPrimeInitial;
+            if (targets != null) {
+                while (settledTargets < targets.size() && dist.get(targets.get(settledTargets)) < BPrimeSub) {
+                    settledTargets++;
+                }
+                if (settledTargets == targets.size()) {
+                    break;
+                }
+            }
         }
 
+        // B' is the bound returned by the last recursive call (B'_0 if there was none), capped at B
+        double BPrimeFinal = Math.min(BPrimeLast, B);
+
         // Final U includes W nodes with distance < BPrimeFinal
-        var UFinal = new HashSet<>(U);
-        for (int x : W) {
-            if (dist.getOrDefault(x, Double.POSITIVE_INFINITY) < BPrimeFinal) {
-                UFinal.add(x);
+        for (int i = 0; i < W.size(); i++) {
+            int x = W.get(i);
+            if (dist.get(x) < BPrimeFinal) {
+                U.add(x);
+            }
+        }
+
+        if (metrics != null) {
+            recordCall(metrics, l, System.nanoTime() - callStart, sSize, U.size());
+        }
+        var result = new Result(BPrimeFinal, U);
+        commit(event, l, B, sSize, result, instr.getRelaxations() - relaxationsAtStart);
+        return result;
+    }
+
+    /**
+     * Fill and commit a call event; a no-op unless a recording has the event enabled
+     */
+    private static void commit(BmsspEvent event, int l, double B, int sSize, Result result, long relaxations) {
+        if (event.shouldCommit()) {
+            event.depth = l;
+            event.bound = B;
+            event.sources = sSize;
+            event.completed = result.U().size();
+            event.newBound = result.BPrime();
+            event.relaxations = relaxations;
+            event.commit();
+        }
+    }
+
+    private static void recordCall(Metrics metrics, int l, long elapsedNanos, int sSize, int uSize) {
+        metrics.addCall(l, Metrics.Counter.BMSSP_CALLS, Metrics.Counter.BMSSP_NANOS, elapsedNanos);
+        metrics.add(l, Metrics.Counter.S_NODES, sSize);
+        metrics.add(l, Metrics.Counter.U_NODES, uSize);
+    }
+
+    /**
+     * Relax all out-edges of Ui: keys in [Bi, B) go to D.insert, keys in [B'_i, Bi) to the batch.
+     * Accepted relaxations, ties included, become the node's parent in tree unless it is null.
+     * Estimates at or beyond the ceiling are not written.
+     *
+     * @return Number of D.insert calls
+     */
+    private static long relaxSequential(CsrView graph, DistanceStore dist, NodeSet Ui, double B,
+                                        double Bi, double BPrimeSub, double ceiling, DataStructureD D,
+                                        NodeKeyBuffer KForBatch, ShortestPathTree tree, NodeSet labeled,
+                                        Instrument instr) {
+        long inserts = 0;
+        for (int i = 0; i < Ui.size(); i++) {
+            int u = Ui.get(i);
+            double du = dist.get(u);
+            if (!Double.isFinite(du)) {
+                continue;
+            }
+
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                instr.incrementRelaxations();
+                int v = graph.target(e);
+                double wUV = graph.weight(e);
+                double newD = dist.narrow(du + wUV);
+
+                // Accept equality per remark (<=) to allow reuse
+                if (newD < ceiling && newD <= dist.get(v)) {
+                    dist.set(v, newD);
+                    if (tree != null) {
+                        tree.setParent(v, u);
+                    }
+                    if (labeled != null) {
+                        labeled.add(v);
+                    }
+                    if (Bi <= newD && newD < B) {
+                        D.insert(v, newD);
+                        inserts++;
+                    } else if (BPrimeSub <= newD && newD < Bi) {
+                        KForBatch.add(v, newD);
+                    }
+                }
             }
         }
+        return inserts;
+    }
+
+    /**
+     * Parallel version of {@link #relaxSequential}. Ui is cut into chunks; each chunk lowers
+     * distances with an atomic min and classifies accepted pairs into its own buffers. The
+     * buffers are merged into D afterwards in chunk order, keeping only pairs whose key is still
+     * the node's final distance, so D ends up with the same best keys as a sequential pass.
+     *
+     * @return Number of D.insert calls
+     */
+    private static long relaxParallel(CsrView graph, AtomicDistanceStore dist, NodeSet Ui, double B,
+                                      double Bi, double BPrimeSub, double ceiling, DataStructureD D,
+                                      NodeKeyBuffer KForBatch, QueryWorkspace workspace,
+                                      Instrument instr) {
+        var pool = workspace.getConfig().pool();
+        int size = Ui.size();
+        int chunks = Parallel.chunkCount(pool, size, PARALLEL_CHUNK);
+        var buffers = workspace.relaxBuffers(chunks);
+        var relaxations = new AtomicLong();
+        long inserted = 0;
+
+        Parallel.forEachChunk(pool, chunks, c -> {
+            var inserts = buffers[c].inserts();
+            var batch = buffers[c].batch();
+            long relaxed = 0;
+            for (int i = Parallel.chunkStart(size, chunks, c), end = Parallel.chunkStart(size, chunks, c + 1);
+                 i < end; i++) {
+                int u = Ui.get(i);
+                double du = dist.get(u);
+                if (!Double.isFinite(du)) {
+                    continue;
+                }
 
-        return new Result(BPrimeFinal, UFinal);
+                for (long e = graph.edgeStart(u), edgeEnd = graph.edgeEnd(u); e < edgeEnd; e++) {
+                    relaxed++;
+                    int v = graph.target(e);
+                    double newD = du + graph.weight(e);
+                    if (newD < ceiling && dist.lowerTo(v, newD)) {
+                        if (Bi <= newD && newD < B) {
+                            inserts.add(v, newD);
+                        } else if (BPrimeSub <= newD && newD < Bi) {
+                            batch.add(v, newD);
+                        }
+                    }
+                }
+            }
+            relaxations.addAndGet(relaxed);
+        });
+
+        for (int c = 0; c < chunks; c++) {
+            var inserts = buffers[c].inserts();
+            for (int i = 0; i < inserts.size(); i++) {
+                if (inserts.key(i) == dist.get(inserts.node(i))) {
+                    D.insert(inserts.node(i), inserts.key(i));
+                    inserted++;
+                }
+            }
+            var batch = buffers[c].batch();
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.key(i) == dist.get(batch.node(i))) {
+                    KForBatch.add(batch.node(i), batch.key(i));
+                }
+            }
+        }
+        instr.addRelaxations(relaxations.get());
+        return inserted;
     }
-}
\ No newline at end of file
+}
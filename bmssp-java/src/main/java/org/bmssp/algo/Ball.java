@@ -0,0 +1,48 @@
+package org.bmssp.algo;
+
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.NodeSet;
+
+/**
+ * Nodes within a distance radius of the sources, as returned by the bounded queries
+ *
+ * @param radius Largest distance included
+ * @param nodes Nodes with distance <= radius; in settle order for Dijkstra, unordered for BMSSP
+ * @param distances Distance of each node, parallel to nodes. Exact for Dijkstra; for BMSSP these
+ *                  are its estimates, each the length of a real path and so never below the true
+ *                  distance, but a node whose estimate stayed above the radius is left out even
+ *                  if its true distance is within it
+ * @param complete False if BMSSP stopped before its bound reached the radius. True only says the
+ *                 bound got there; a BMSSP ball is then still limited to the estimates above
+ */
+public record Ball(double radius, int[] nodes, double[] distances, boolean complete) {
+
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Copy out the members of labeled whose estimate in dist is within radius
+     */
+    static Ball collect(double radius, NodeSet labeled, DistanceStore dist, boolean complete) {
+        int count = 0;
+        for (int i = 0; i < labeled.size(); i++) {
+            if (dist.get(labeled.get(i)) <= radius) {
+                count++;
+            }
+        }
+        var nodes = new int[count];
+        var distances = new double[count];
+        int next = 0;
+        for (int i = 0; i < labeled.size(); i++) {
+            int v = labeled.get(i);
+            double d = dist.get(v);
+            if (d <= radius) {
+                nodes[next] = v;
+                distances[next] = d;
+                next++;
+            }
+        }
+        return new Ball(radius, nodes, distances, complete);
+    }
+}
@@ -1,25 +1,25 @@
 package org.bmssp.algo;
 
-import org.bmssp.algo.graph.Graph;
+import org.bmssp.algo.graph.CsrView;
+import org.bmssp.algo.graph.IntCsrGraph;
+import org.bmssp.algo.jfr.BaseCaseEvent;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.IndexedDaryHeap;
 import org.bmssp.algo.util.Instrument;
-
-import java.util.*;
-import java.util.stream.Collectors;
+import org.bmssp.algo.util.NodeSet;
+import org.bmssp.algo.util.RadixHeap;
+import org.bmssp.algo.util.ShortestPathTree;
 
 /**
  * BASECASE implementation - Dijkstra-like expansion with limits
  */
 public class BaseCase {
 
-    public record Result(double BPrime, Set<Integer> UoSet) {}
-
-    public record DistanceNode(double distance, int node) implements Comparable<DistanceNode> {
-        @Override
-        public int compareTo(DistanceNode other) {
-            int cmp = Double.compare(this.distance, other.distance);
-            return cmp != 0 ? cmp : Integer.compare(this.node, other.node);
-        }
-    }
+    /**
+     * @param BPrime New bound B'
+     * @param UoSet Completed nodes; this is the frame's U set and is reused by the next call
+     */
+    public record Result(double BPrime, NodeSet UoSet) {}
 
     /**
      * BASECASE: Run Dijkstra-like expansion from best node in S
@@ -29,77 +29,259 @@ public class BaseCase {
      * @param B Upper bound on distances
      * @param S Set of source nodes (should be singleton, but handles multiple)
      * @param k Limit on number of nodes to process
+     * @param heap Reusable heap sized for the graph; cleared before use
+     * @param frame Node sets of recursion depth 0; its U set receives the result
      * @param instr Instrumentation for tracking operations
      * @return Result containing B' and set of completed nodes
      */
-    public static Result baseCase(Graph graph, Map<Integer, Double> dist, double B,
-                                  Set<Integer> S, int k, Instrument instr) {
-        if (S.isEmpty()) {
-            return new Result(B, Set.of());
+    public static Result baseCase(CsrView graph, DistanceStore dist, double B, NodeSet S, int k,
+                                  IndexedDaryHeap heap, QueryWorkspace.Frame frame, Instrument instr) {
+        return baseCase(graph, dist, B, S, k, heap, frame, null, null, instr);
+    }
+
+    /**
+     * BASECASE that also records the predecessor of every node whose distance it lowers
+     *
+     * @param tree Predecessors to update; null to skip recording
+     * @param labeled Set to add every node whose distance is lowered to; null to skip recording
+     */
+    public static Result baseCase(CsrView graph, DistanceStore dist, double B, NodeSet S, int k,
+                                  IndexedDaryHeap heap, QueryWorkspace.Frame frame, ShortestPathTree tree,
+                                  NodeSet labeled, Instrument instr) {
+        var event = new BaseCaseEvent();
+        event.begin();
+        long relaxationsAtStart = instr.getRelaxations();
+        int sources = S.size();
+
+        var result = expand(graph, dist, B, S, k, new DaryFrontier(heap), frame, tree, labeled, instr);
+        commit(event, B, sources, k, result, instr.getRelaxations() - relaxationsAtStart);
+        return result;
+    }
+
+    /**
+     * BASECASE on integer weights, ordered by a radix heap over the integer distances. dist
+     * must hold integer values, as it does when the sources start at integer distances; ties
+     * may expand in another order than on {@link IndexedDaryHeap}. Shares the expansion loop
+     * with the double version, so candidates still go through {@link DistanceStore#narrow}.
+     *
+     * @param heap Reusable radix heap sized for the graph; cleared before use
+     * @param tree Predecessors to update; null to skip recording
+     * @param labeled Set to add every node whose distance is lowered to; null to skip recording
+     */
+    public static Result baseCase(IntCsrGraph graph, DistanceStore dist, double B, NodeSet S, int k,
+                                  RadixHeap heap, QueryWorkspace.Frame frame, ShortestPathTree tree,
+                                  NodeSet labeled, Instrument instr) {
+        var event = new BaseCaseEvent();
+        event.begin();
+        long relaxationsAtStart = instr.getRelaxations();
+        int sources = S.size();
+
+        var result = expand(graph, dist, B, S, k, new RadixFrontier(heap), frame, tree, labeled, instr);
+        commit(event, B, sources, k, result, instr.getRelaxations() - relaxationsAtStart);
+        return result;
+    }
+
+    private static void commit(BaseCaseEvent event, double B, int sources, int k, Result result, long relaxations) {
+        if (event.shouldCommit()) {
+            event.bound = B;
+            event.sources = sources;
+            event.limit = k;
+            event.completed = result.UoSet().size();
+            event.newBound = result.BPrime();
+            event.relaxations = relaxations;
+            event.commit();
         }
+    }
 
-        // Choose source x in S with smallest distance
-        int x = S.stream()
-                .min(Comparator.comparing(v -> dist.getOrDefault(v, Double.POSITIVE_INFINITY)))
-                .orElseThrow();
+    /**
+     * The priority queue behind an expansion, keyed by double distances
+     */
+    private interface Frontier {
+        void clear();
 
-        // Local heap for this base case
-        var heap = new PriorityQueue<DistanceNode>();
-        double startD = dist.getOrDefault(x, Double.POSITIVE_INFINITY);
-        heap.offer(new DistanceNode(startD, x));
-        instr.incrementHeapOps();
+        boolean isEmpty();
 
-        var Uo = new HashSet<Integer>();
+        boolean contains(int node);
 
-        while (!heap.isEmpty() && Uo.size() < (k + 1)) {
-            var current = heap.poll();
-            instr.incrementHeapOps();
+        void push(int node, double key);
+
+        void decreaseKey(int node, double key);
+
+        double peekKey();
+
+        int pop();
+    }
+
+    private record DaryFrontier(IndexedDaryHeap heap) implements Frontier {
+        @Override
+        public void clear() {
+            heap.clear();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return heap.isEmpty();
+        }
+
+        @Override
+        public boolean contains(int node) {
+            return heap.contains(node);
+        }
+
+        @Override
+        public void push(int node, double key) {
+            heap.push(node, key);
+        }
+
+        @Override
+        public void decreaseKey(int node, double key) {
+            heap.decreaseKey(node, key);
+        }
+
+        @Override
+        public double peekKey() {
+            return heap.peekKey();
+        }
+
+        @Override
+        public int pop() {
+            return heap.pop();
+        }
+    }
+
+    /**
+     * Radix heap under double keys. Every key is an integer distance (integer sources plus
+     * integer weights, and narrowing to float keeps integers integral), so the casts to long
+     * are exact up to 2^53; +infinity maps to {@link IntDijkstra#UNREACHABLE} and back.
+     */
+    private record RadixFrontier(RadixHeap heap) implements Frontier {
+        @Override
+        public void clear() {
+            heap.clear();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return heap.isEmpty();
+        }
+
+        @Override
+        public boolean contains(int node) {
+            return heap.contains(node);
+        }
+
+        @Override
+        public void push(int node, double key) {
+            heap.push(node, toLong(key));
+        }
 
-            double dU = current.distance();
-            int u = current.node();
+        @Override
+        public void decreaseKey(int node, double key) {
+            heap.decreaseKey(node, toLong(key));
+        }
 
-            if (dU > dist.getOrDefault(u, Double.POSITIVE_INFINITY)) {
-                continue;
+        @Override
+        public double peekKey() {
+            long key = heap.peekKey();
+            return key == IntDijkstra.UNREACHABLE ? Double.POSITIVE_INFINITY : (double) key;
+        }
+
+        @Override
+        public int pop() {
+            return heap.pop();
+        }
+
+        private static long toLong(double key) {
+            return Double.isFinite(key) ? (long) key : IntDijkstra.UNREACHABLE;
+        }
+    }
+
+    private static Result expand(CsrView graph, DistanceStore dist, double B, NodeSet S, int k,
+                                 Frontier heap, QueryWorkspace.Frame frame, ShortestPathTree tree,
+                                 NodeSet labeled, Instrument instr) {
+        var Uo = frame.U();
+        Uo.clear();
+        if (S.isEmpty()) {
+            return new Result(B, Uo);
+        }
+
+        // Choose source x in S with smallest distance
+        int x = S.get(0);
+        for (int i = 1; i < S.size(); i++) {
+            int v = S.get(i);
+            if (dist.get(v) < dist.get(x)) {
+                x = v;
             }
+        }
+
+        // Heap is local to this base case
+        heap.clear();
+        double startD = dist.get(x);
+        heap.push(x, startD);
+        instr.incrementHeapPushes();
+
+        while (!heap.isEmpty() && Uo.size() < (k + 1)) {
+            double dU = heap.peekKey();
+            int u = heap.pop();
+            instr.incrementHeapPops();
 
             // Mark 'u' as complete for this base case
             Uo.add(u);
 
             // Relax neighbors
-            for (var edge : graph.getNeighbors(u)) {
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
                 instr.incrementRelaxations();
-                int v = edge.to();
-                double weight = edge.weight();
-                double newD = dist.getOrDefault(u, Double.POSITIVE_INFINITY) + weight;
-
-                if (newD < dist.getOrDefault(v, Double.POSITIVE_INFINITY) && newD < B) {
-                    dist.put(v, newD);
-                    heap.offer(new DistanceNode(newD, v));
-                    instr.incrementHeapOps();
+                int v = graph.target(e);
+                double weight = graph.weight(e);
+                double newD = dist.narrow(dU + weight);
+
+                if (newD < dist.get(v) && newD < B) {
+                    dist.set(v, newD);
+                    if (tree != null) {
+                        tree.setParent(v, u);
+                    }
+                    if (labeled != null) {
+                        labeled.add(v);
+                    }
+                    if (heap.contains(v)) {
+                        heap.decreaseKey(v, newD);
+                        instr.incrementHeapDecreaseKeys();
+                    } else {
+                        heap.push(v, newD);
+                        instr.incrementHeapPushes();
+                    }
                 }
             }
         }
 
+        return finish(dist, B, Uo, k);
+    }
+
+    /**
+     * Result of an expansion that completed Uo: all of it if at most k nodes, else the nodes
+     * strictly below the largest distance reached, with that distance as the new bound
+     */
+    private static Result finish(DistanceStore dist, double B, NodeSet Uo, int k) {
         if (Uo.size() <= k) {
             return new Result(B, Uo);
         } else {
             // Filter to nodes with distances less than the maximum finite distance
-            var finiteDists = Uo.stream()
-                    .mapToDouble(v -> dist.getOrDefault(v, Double.POSITIVE_INFINITY))
-                    .filter(Double::isFinite)
-                    .boxed()
-                    .toList();
-
-            if (finiteDists.isEmpty()) {
-                return new Result(B, Set.of());
+            double maxD = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < Uo.size(); i++) {
+                double d = dist.get(Uo.get(i));
+                if (Double.isFinite(d) && d > maxD) {
+                    maxD = d;
+                }
             }
 
-            double maxD = Collections.max(finiteDists);
-            var UFiltered = Uo.stream()
-                    .filter(v -> dist.getOrDefault(v, Double.POSITIVE_INFINITY) < maxD)
-                    .collect(Collectors.toSet());
+            if (maxD == Double.NEGATIVE_INFINITY) {
+                Uo.clear();
+                return new Result(B, Uo);
+            }
 
-            return new Result(maxD, UFiltered);
+            double bound = maxD;
+            Uo.retainIf(v -> dist.get(v) < bound);
+            return new Result(maxD, Uo);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,135 @@
+package org.bmssp.algo;
+
+import org.bmssp.algo.graph.CsrGraph;
+import org.bmssp.algo.graph.CsrView;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.IndexedDaryHeap;
+import org.bmssp.algo.util.Instrument;
+import org.bmssp.algo.util.IntBuffer;
+
+/**
+ * Single-pair shortest path distance by bidirectional Dijkstra.
+ *
+ * One search grows forward from the source on the graph, the other backward from the target on
+ * the reverse graph, always advancing the side with the smaller heap key. Every edge scanned
+ * into a node the other side has labeled offers a candidate length mu; the searches stop once
+ * the two smallest keys sum to at least mu, which is then the distance.
+ *
+ * Distance arrays and heaps are sized once; a query only resets the nodes it labeled, so its
+ * cost tracks the searched region rather than the graph. Not thread-safe: run one query at a
+ * time per instance, sharing the reverse graph between instances.
+ */
+public class BidirectionalDijkstra {
+
+    private final CsrView graph;
+    private final CsrView reverse;
+    private final DistanceStore forwardDist;
+    private final DistanceStore backwardDist;
+    private final IndexedDaryHeap forwardHeap;
+    private final IndexedDaryHeap backwardHeap;
+    private final IntBuffer forwardLabeled = new IntBuffer();
+    private final IntBuffer backwardLabeled = new IntBuffer();
+
+    public BidirectionalDijkstra(CsrView graph) {
+        this(graph, CsrGraph.reverseOf(graph));
+    }
+
+    /**
+     * @param reverse Transpose of graph, see {@link CsrGraph#reverseOf}
+     */
+    public BidirectionalDijkstra(CsrView graph, CsrView reverse) {
+        if (graph.getNodeCount() != reverse.getNodeCount() || graph.getEdgeCount() != reverse.getEdgeCount()) {
+            throw new IllegalArgumentException("reverse must be the transpose of graph");
+        }
+        int n = graph.getNodeCount();
+        this.graph = graph;
+        this.reverse = reverse;
+        this.forwardDist = DistanceStore.dense(n);
+        this.backwardDist = DistanceStore.dense(n);
+        this.forwardHeap = new IndexedDaryHeap(n);
+        this.backwardHeap = new IndexedDaryHeap(n);
+    }
+
+    public CsrView getReverse() {
+        return reverse;
+    }
+
+    /**
+     * Shortest distance from source to target, +infinity if target is unreachable
+     */
+    public double distance(int source, int target, Instrument instr) {
+        reset();
+        if (source == target) {
+            return 0.0;
+        }
+        label(forwardDist, forwardHeap, forwardLabeled, source, 0.0, instr);
+        label(backwardDist, backwardHeap, backwardLabeled, target, 0.0, instr);
+
+        double mu = Double.POSITIVE_INFINITY;
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+            double forwardKey = forwardHeap.peekKey();
+            double backwardKey = backwardHeap.peekKey();
+            if (forwardKey + backwardKey >= mu) {
+                break;
+            }
+            if (forwardKey <= backwardKey) {
+                mu = scan(graph, forwardDist, forwardHeap, forwardLabeled, backwardDist, mu, instr);
+            } else {
+                mu = scan(reverse, backwardDist, backwardHeap, backwardLabeled, forwardDist, mu, instr);
+            }
+        }
+        return mu;
+    }
+
+    /**
+     * Settle the top node of one side and relax its edges; returns the updated mu
+     */
+    private static double scan(CsrView edges, DistanceStore dist, IndexedDaryHeap heap, IntBuffer labeled,
+                               DistanceStore otherDist, double mu, Instrument instr) {
+        double dU = heap.peekKey();
+        int u = heap.pop();
+        instr.incrementHeapPops();
+
+        for (long e = edges.edgeStart(u), end = edges.edgeEnd(u); e < end; e++) {
+            instr.incrementRelaxations();
+            int v = edges.target(e);
+            double alt = dU + edges.weight(e);
+            if (alt < dist.get(v)) {
+                label(dist, heap, labeled, v, alt, instr);
+            }
+            mu = Math.min(mu, alt + otherDist.get(v));
+        }
+        return mu;
+    }
+
+    private static void label(DistanceStore dist, IndexedDaryHeap heap, IntBuffer labeled, int v, double d,
+                              Instrument instr) {
+        if (dist.get(v) == Double.POSITIVE_INFINITY) {
+            labeled.add(v);
+        }
+        dist.set(v, d);
+        if (heap.contains(v)) {
+            heap.decreaseKey(v, d);
+            instr.incrementHeapDecreaseKeys();
+        } else {
+            heap.push(v, d);
+            instr.incrementHeapPushes();
+        }
+    }
+
+    /**
+     * Forget the labels of the previous query
+     */
+    private void reset() {
+        for (int i = 0; i < forwardLabeled.size(); i++) {
+            forwardDist.set(forwardLabeled.get(i), Double.POSITIVE_INFINITY);
+        }
+        for (int i = 0; i < backwardLabeled.size(); i++) {
+            backwardDist.set(backwardLabeled.get(i), Double.POSITIVE_INFINITY);
+        }
+        forwardLabeled.clear();
+        backwardLabeled.clear();
+        forwardHeap.clear();
+        backwardHeap.clear();
+    }
+}
@@ -0,0 +1,386 @@
+package org.bmssp.algo;
+
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.NodeKeyBuffer;
+import org.bmssp.algo.util.NodeSet;
+import org.bmssp.algo.util.Selection;
+import org.bmssp.algo.util.SparseDistanceStore;
+
+import java.util.*;
+
+/**
+ * Block-based DataStructure D following Lemma 3.3 of the paper.
+ *
+ * Entries live in blocks kept in two sequences. D0 holds the blocks created by batchPrepend,
+ * smallest keys first. D1 holds the blocks created by insert, ordered by their upper bound
+ * and indexed by a search tree over those bounds. Insert appends to the block with the
+ * smallest upper bound >= key and splits it at the median once it holds more than M entries;
+ * batchPrepend cuts its input into blocks of at most ceil(M/2) entries by repeated median
+ * splits and links them in front of D0; pull only looks at prefix blocks of both sequences
+ * and returns at most M nodes.
+ *
+ * An entry is live while its key equals the node's best key; superseded and pulled entries
+ * are dropped lazily when their block is next compacted.
+ */
+public class BlockDataStructureD implements DataStructureD {
+
+    private static final class Block {
+        final long id;
+        double upper;
+        int[] nodes;
+        double[] keys;
+        int size;
+        Block prev;
+        Block next;
+
+        Block(long id, double upper, int capacity) {
+            this.id = id;
+            this.upper = upper;
+            this.nodes = new int[Math.max(1, capacity)];
+            this.keys = new double[Math.max(1, capacity)];
+        }
+
+        void add(int node, double key) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            nodes[size] = node;
+            keys[size] = key;
+            size++;
+        }
+    }
+
+    private static final Comparator<Block> BY_UPPER = (a, b) -> {
+        int cmp = Double.compare(a.upper, b.upper);
+        return cmp != 0 ? cmp : Long.compare(a.id, b.id);
+    };
+
+    private int M;
+    private double BUpper;
+    private final DistanceStore best;
+    private final TreeSet<Block> d1Bounds = new TreeSet<>(BY_UPPER);
+    private final Block probe = new Block(Long.MIN_VALUE, 0.0, 1);
+    private final NodeSet pulled = new NodeSet(0);
+    private Block d0Head;
+    private Block d1Head;
+    private Block d1Tail;
+    private long nextBlockId = 0;
+    private int live = 0;
+
+    // Scratch buffers for batchPrepend and pull
+    private int[] scratchNodes = new int[16];
+    private double[] scratchKeys = new double[16];
+    private int scratchSize = 0;
+
+    public BlockDataStructureD(int M, double BUpper) {
+        this.M = Math.max(1, M);
+        this.BUpper = BUpper;
+        this.best = new SparseDistanceStore(Integer.MAX_VALUE, this.M);
+    }
+
+    /**
+     * Drop all blocks; the best-key table and scratch buffers keep their capacity.
+     * Clearing the table costs O(entries written since the last reset), not O(capacity).
+     * blockSize is ignored: Lemma 3.3 fixes the block size at M.
+     */
+    @Override
+    public void reset(int M, double BUpper, Integer blockSize) {
+        this.M = Math.max(1, M);
+        this.BUpper = BUpper;
+        best.clear();
+        d1Bounds.clear();
+        pulled.clear();
+        d0Head = null;
+        d1Head = null;
+        d1Tail = null;
+        live = 0;
+        scratchSize = 0;
+    }
+
+    private boolean isLive(int node, double key) {
+        return best.get(node) == key;
+    }
+
+    /**
+     * Record a new best key; returns false if the node already has a key that is no larger
+     */
+    private boolean improve(int node, double key) {
+        double prev = best.get(node);
+        if (key >= prev) {
+            return false;
+        }
+        if (prev == Double.POSITIVE_INFINITY) {
+            live++;
+        }
+        best.set(node, key);
+        return true;
+    }
+
+    /**
+     * Insert a node with given key into the D1 block whose upper bound is the smallest one >= key
+     */
+    @Override
+    public void insert(int node, double key) {
+        if (!improve(node, key)) {
+            return;
+        }
+
+        probe.upper = key;
+        var block = d1Bounds.ceiling(probe);
+        if (block == null) {
+            block = new Block(nextBlockId++, Double.POSITIVE_INFINITY, Math.min(M + 1, 16));
+            linkD1After(block, d1Tail);
+            d1Bounds.add(block);
+        }
+        block.add(node, key);
+
+        if (block.size > M) {
+            compact(block);
+            if (block.size > M) {
+                split(block);
+            }
+        }
+    }
+
+    /**
+     * Split an overfull D1 block at its median; the lower half becomes a new block in front of it
+     */
+    private void split(Block block) {
+        int half = block.size / 2;
+        Selection.selectSmallest(block.keys, block.nodes, 0, block.size, half);
+
+        double lowerMax = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < half; i++) {
+            lowerMax = Math.max(lowerMax, block.keys[i]);
+        }
+
+        var lower = new Block(nextBlockId++, lowerMax, half);
+        System.arraycopy(block.nodes, 0, lower.nodes, 0, half);
+        System.arraycopy(block.keys, 0, lower.keys, 0, half);
+        lower.size = half;
+
+        int upperSize = block.size - half;
+        System.arraycopy(block.nodes, half, block.nodes, 0, upperSize);
+        System.arraycopy(block.keys, half, block.keys, 0, upperSize);
+        block.size = upperSize;
+
+        linkD1After(lower, block.prev);
+        d1Bounds.add(lower);
+    }
+
+    /**
+     * Prepend nodes whose keys are smaller than every key currently stored
+     */
+    @Override
+    public void batchPrepend(NodeKeyBuffer pairs) {
+        scratchSize = 0;
+        for (int i = 0; i < pairs.size(); i++) {
+            if (improve(pairs.node(i), pairs.key(i))) {
+                addScratch(pairs.node(i), pairs.key(i));
+            }
+        }
+        if (scratchSize == 0) {
+            return;
+        }
+
+        int capacity = (M + 1) / 2;
+        if (scratchSize <= M) {
+            capacity = M;
+        }
+
+        // Blocks come out in ascending key order; link the chain in front of D0
+        Block oldHead = d0Head;
+        Block chainTail = prependBlocks(0, scratchSize, capacity, null);
+        if (chainTail != null) {
+            chainTail.next = oldHead;
+            if (oldHead != null) {
+                oldHead.prev = chainTail;
+            }
+        }
+    }
+
+    /**
+     * Recursively cut scratch[from, to) at medians into blocks of at most capacity entries,
+     * appending them after tail; returns the new tail
+     */
+    private Block prependBlocks(int from, int to, int capacity, Block tail) {
+        if (to - from <= capacity) {
+            var block = new Block(nextBlockId++, Double.NaN, to - from);
+            System.arraycopy(scratchNodes, from, block.nodes, 0, to - from);
+            System.arraycopy(scratchKeys, from, block.keys, 0, to - from);
+            block.size = to - from;
+            if (tail == null) {
+                d0Head = block;
+            } else {
+                tail.next = block;
+                block.prev = tail;
+            }
+            return block;
+        }
+        int mid = from + (to - from) / 2;
+        Selection.selectSmallest(scratchKeys, scratchNodes, from, to, mid - from);
+        tail = prependBlocks(from, mid, capacity, tail);
+        return prependBlocks(mid, to, capacity, tail);
+    }
+
+    /**
+     * Check if the data structure is empty
+     */
+    @Override
+    public boolean isEmpty() {
+        return live == 0;
+    }
+
+    /**
+     * Pull at most M nodes with the smallest keys (Si), and Bi separating them from the rest
+     * (BUpper if nothing remains)
+     */
+    @Override
+    public PullResult pull() {
+        if (live == 0) {
+            throw new IllegalStateException("Cannot pull from empty DataStructureD");
+        }
+
+        // Collect live entries from prefix blocks of D0 and D1 until each side yields M
+        scratchSize = 0;
+        Block d0Rest = collectPrefix(d0Head);
+        Block d1Rest = collectPrefix(d1Head);
+
+        int take = Math.min(M, scratchSize);
+        Selection.selectSmallest(scratchKeys, scratchNodes, 0, scratchSize, take);
+
+        var Si = pulled;
+        Si.clear();
+        for (int i = 0; i < take; i++) {
+            int node = scratchNodes[i];
+            // A node can appear twice if a stale entry was revived with the same key
+            if (isLive(node, scratchKeys[i])) {
+                Si.add(node);
+                best.set(node, Double.POSITIVE_INFINITY);
+                live--;
+            }
+        }
+
+        double Bi = Double.POSITIVE_INFINITY;
+        for (int i = take; i < scratchSize; i++) {
+            if (isLive(scratchNodes[i], scratchKeys[i])) {
+                Bi = Math.min(Bi, scratchKeys[i]);
+            }
+        }
+
+        // Drop pulled and stale entries from the scanned prefix blocks
+        compactPrefix(d0Head, d0Rest, false);
+        compactPrefix(d1Head, d1Rest, true);
+
+        // Remaining keys beyond the prefix are bounded by the first live block of each sequence
+        Bi = Math.min(Bi, minLiveFrom(d0Rest, false));
+        Bi = Math.min(Bi, minLiveFrom(d1Rest, true));
+        if (Bi == Double.POSITIVE_INFINITY) {
+            Bi = BUpper;
+        }
+        return new PullResult(Bi, Si);
+    }
+
+    private Block collectPrefix(Block block) {
+        int collected = 0;
+        while (block != null && collected < M) {
+            for (int i = 0; i < block.size; i++) {
+                if (isLive(block.nodes[i], block.keys[i])) {
+                    addScratch(block.nodes[i], block.keys[i]);
+                    collected++;
+                }
+            }
+            block = block.next;
+        }
+        return block;
+    }
+
+    /**
+     * Smallest live key from block onwards; blocks are sorted, so the first block with a live
+     * entry holds it. Blocks found to be fully stale on the way are unlinked.
+     */
+    private double minLiveFrom(Block block, boolean inD1) {
+        while (block != null) {
+            double min = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < block.size; i++) {
+                if (isLive(block.nodes[i], block.keys[i])) {
+                    min = Math.min(min, block.keys[i]);
+                }
+            }
+            if (min != Double.POSITIVE_INFINITY) {
+                return min;
+            }
+            var next = block.next;
+            unlink(block, inD1);
+            block = next;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private void compactPrefix(Block block, Block end, boolean inD1) {
+        while (block != null && block != end) {
+            var next = block.next;
+            compact(block);
+            if (block.size == 0) {
+                unlink(block, inD1);
+            }
+            block = next;
+        }
+    }
+
+    private void compact(Block block) {
+        int kept = 0;
+        for (int i = 0; i < block.size; i++) {
+            if (isLive(block.nodes[i], block.keys[i])) {
+                block.nodes[kept] = block.nodes[i];
+                block.keys[kept] = block.keys[i];
+                kept++;
+            }
+        }
+        block.size = kept;
+    }
+
+    private void linkD1After(Block block, Block after) {
+        block.prev = after;
+        block.next = after == null ? d1Head : after.next;
+        if (block.next != null) {
+            block.next.prev = block;
+        } else {
+            d1Tail = block;
+        }
+        if (after == null) {
+            d1Head = block;
+        } else {
+            after.next = block;
+        }
+    }
+
+    private void unlink(Block block, boolean inD1) {
+        if (block.prev != null) {
+            block.prev.next = block.next;
+        } else if (inD1) {
+            d1Head = block.next;
+        } else {
+            d0Head = block.next;
+        }
+        if (block.next != null) {
+            block.next.prev = block.prev;
+        } else if (inD1) {
+            d1Tail = block.prev;
+        }
+        if (inD1) {
+            d1Bounds.remove(block);
+        }
+    }
+
+    private void addScratch(int node, double key) {
+        if (scratchSize == scratchNodes.length) {
+            scratchNodes = Arrays.copyOf(scratchNodes, scratchSize * 2);
+            scratchKeys = Arrays.copyOf(scratchKeys, scratchSize * 2);
+        }
+        scratchNodes[scratchSize] = node;
+        scratchKeys[scratchSize] = key;
+        scratchSize++;
+    }
+}
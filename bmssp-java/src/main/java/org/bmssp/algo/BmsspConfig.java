@@ -0,0 +1,65 @@
+package org.bmssp.algo;
+
+import org.bmssp.algo.util.IndexedDaryHeap;
+import org.bmssp.algo.util.Metrics;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Implementation choices for a BMSSP run
+ *
+ * @param heapArity Arity of the indexed heap used by the base cases
+ * @param dataStructure Implementation of DataStructure D used at each recursion level
+ * @param parallelPivots Expand large FIND_PIVOTS frontiers in parallel
+ * @param parallelRelax Relax the out-edges of large Ui sets in parallel; needs an
+ *                      {@link org.bmssp.algo.util.AtomicDistanceStore}
+ * @param pool Pool used by the parallel stages
+ * @param metrics Per-level counters and timers to record into, shared by every run with this
+ *                config; null to record nothing
+ * @param params Recursion parameters, e.g. a tuned profile; null to use
+ *               {@link BmsspParams#heuristic} for the graph's size
+ */
+public record BmsspConfig(int heapArity, DataStructureD.Kind dataStructure,
+                          boolean parallelPivots, boolean parallelRelax, ForkJoinPool pool,
+                          Metrics metrics, BmsspParams params) {
+
+    public static BmsspConfig defaults() {
+        return new BmsspConfig(IndexedDaryHeap.DEFAULT_ARITY, DataStructureD.Kind.BLOCK,
+                false, false, ForkJoinPool.commonPool(), null, null);
+    }
+
+    /**
+     * Parameters for a graph with n nodes: the configured ones, else the heuristic
+     */
+    public BmsspParams params(int n) {
+        return params != null ? params : BmsspParams.heuristic(n);
+    }
+
+    public BmsspConfig withHeapArity(int heapArity) {
+        return new BmsspConfig(heapArity, dataStructure, parallelPivots, parallelRelax, pool, metrics, params);
+    }
+
+    public BmsspConfig withDataStructure(DataStructureD.Kind dataStructure) {
+        return new BmsspConfig(heapArity, dataStructure, parallelPivots, parallelRelax, pool, metrics, params);
+    }
+
+    public BmsspConfig withParallelPivots(boolean parallelPivots) {
+        return new BmsspConfig(heapArity, dataStructure, parallelPivots, parallelRelax, pool, metrics, params);
+    }
+
+    public BmsspConfig withParallelRelax(boolean parallelRelax) {
+        return new BmsspConfig(heapArity, dataStructure, parallelPivots, parallelRelax, pool, metrics, params);
+    }
+
+    public BmsspConfig withPool(ForkJoinPool pool) {
+        return new BmsspConfig(heapArity, dataStructure, parallelPivots, parallelRelax, pool, metrics, params);
+    }
+
+    public BmsspConfig withMetrics(Metrics metrics) {
+        return new BmsspConfig(heapArity, dataStructure, parallelPivots, parallelRelax, pool, metrics, params);
+    }
+
+    public BmsspConfig withParams(BmsspParams params) {
+        return new BmsspConfig(heapArity, dataStructure, parallelPivots, parallelRelax, pool, metrics, params);
+    }
+}
@@ -0,0 +1,131 @@
+package org.bmssp.algo;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Size parameters of the BMSSP recursion.
+ *
+ * {@link #heuristic(int)} gives the formulas the engine has always used; {@link BmsspTuner}
+ * searches around them for a given graph, and the result is kept as a properties file.
+ *
+ * @param t Level growth: D at depth l is sized for 2^((l-1)t) nodes and a call completes up to
+ *          k * 2^(lt) of them
+ * @param k FIND_PIVOTS relaxation steps; a base case completes up to k + 1 nodes
+ * @param pivotLimit Most pivots FIND_PIVOTS keeps
+ * @param blockSize Largest block of D; the block size of a call is min(|P|, blockSize)
+ * @param topLevel Recursion depth l of the top-level call
+ */
+public record BmsspParams(int t, int k, int pivotLimit, int blockSize, int topLevel) {
+
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+
+    /** Level sizes 2^(l * t) are computed in an int */
+    private static final int MAX_LEVEL_BITS = 30;
+
+    public BmsspParams {
+        if (t < 1 || k < 1 || pivotLimit < 1 || blockSize < 1 || topLevel < 1) {
+            throw new IllegalArgumentException("BMSSP parameters must be positive: " + describe(t, k, pivotLimit,
+                    blockSize, topLevel));
+        }
+        if ((long) t * topLevel > MAX_LEVEL_BITS) {
+            throw new IllegalArgumentException("t * topLevel must be at most " + MAX_LEVEL_BITS + ": "
+                    + describe(t, k, pivotLimit, blockSize, topLevel));
+        }
+    }
+
+    /**
+     * t ~ (log n)^(2/3), k ~ (log n)^(1/3), 2^t pivots capped at 2^10, blocks of 64 and
+     * l ~ log n / t, see {@link BMSSP#topLevelDepth}
+     */
+    public static BmsspParams heuristic(int n) {
+        if (n <= 2) {
+            return new BmsspParams(1, 2, 2, DEFAULT_BLOCK_SIZE, 1);
+        }
+        double logN = Math.log(n);
+        int t = Math.max(1, (int) Math.round(Math.pow(logN, 2.0 / 3.0)));
+        int k = Math.max(2, (int) Math.round(Math.pow(logN, 1.0 / 3.0)));
+        return new BmsspParams(t, k, 1 << Math.min(10, t), DEFAULT_BLOCK_SIZE, BMSSP.topLevelDepth(n));
+    }
+
+    /**
+     * Read a profile written by {@link #save}
+     */
+    public static BmsspParams load(Path path) throws IOException {
+        var properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        try {
+            return new BmsspParams(intProperty(path, properties, "t"), intProperty(path, properties, "k"),
+                    intProperty(path, properties, "pivotLimit"), intProperty(path, properties, "blockSize"),
+                    intProperty(path, properties, "topLevel"));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write the parameters as a properties file
+     *
+     * @param comment Header line, e.g. the graph and measurements the profile was tuned on
+     */
+    public void save(Path path, String comment) throws IOException {
+        var properties = new Properties();
+        properties.setProperty("t", Integer.toString(t));
+        properties.setProperty("k", Integer.toString(k));
+        properties.setProperty("pivotLimit", Integer.toString(pivotLimit));
+        properties.setProperty("blockSize", Integer.toString(blockSize));
+        properties.setProperty("topLevel", Integer.toString(topLevel));
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            properties.store(writer, comment);
+        }
+    }
+
+    public BmsspParams withT(int t) {
+        return new BmsspParams(t, k, pivotLimit, blockSize, topLevel);
+    }
+
+    public BmsspParams withK(int k) {
+        return new BmsspParams(t, k, pivotLimit, blockSize, topLevel);
+    }
+
+    public BmsspParams withPivotLimit(int pivotLimit) {
+        return new BmsspParams(t, k, pivotLimit, blockSize, topLevel);
+    }
+
+    public BmsspParams withBlockSize(int blockSize) {
+        return new BmsspParams(t, k, pivotLimit, blockSize, topLevel);
+    }
+
+    public BmsspParams withTopLevel(int topLevel) {
+        return new BmsspParams(t, k, pivotLimit, blockSize, topLevel);
+    }
+
+    @Override
+    public String toString() {
+        return describe(t, k, pivotLimit, blockSize, topLevel);
+    }
+
+    private static String describe(int t, int k, int pivotLimit, int blockSize, int topLevel) {
+        return "t=" + t + ", k=" + k + ", pivot limit=" + pivotLimit + ", block size=" + blockSize
+                + ", top-level l=" + topLevel;
+    }
+
+    private static int intProperty(Path path, Properties properties, String key) throws IOException {
+        var value = properties.getProperty(key);
+        if (value == null) {
+            throw new IOException(path + ": missing " + key);
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException(path + ": " + key + " is not an integer: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.bmssp.algo;
+
+import org.bmssp.algo.graph.CsrView;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.Instrument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Searches the BMSSP parameters for one graph by coordinate descent.
+ *
+ * Starting from {@link BmsspParams#heuristic}, each pass sweeps one parameter at a time over a
+ * few values around the current best while holding the others, and keeps a change if a
+ * sample of queries runs faster. The engine is a practical variant that can leave nodes with
+ * non-final estimates, and some parameters trade that accuracy for speed, so a candidate only
+ * qualifies if it gets at least as many nodes exactly right as the heuristic does, checked
+ * against Dijkstra. Each candidate is timed as the best of ROUNDS runs over the sample.
+ * The Dijkstra reference is recomputed, untimed, for one source at a time in a single reused
+ * workspace, so memory stays O(n) however many sample sources there are.
+ */
+public final class BmsspTuner {
+
+    /**
+     * One measured candidate
+     *
+     * @param nanos Best total time over the sample sources
+     * @param relaxations Edge relaxations over the sample sources
+     * @param exactNodes Nodes, summed over the sample sources, whose distance matches Dijkstra's
+     */
+    public record Trial(BmsspParams params, long nanos, long relaxations, long exactNodes) {}
+
+    /** t, k, pivotLimit, blockSize, topLevel */
+    private static final int DIMENSIONS = 5;
+    private static final int ROUNDS = 3;
+    private static final int MAX_PASSES = 3;
+    /** A candidate must beat the current best by this fraction to replace it */
+    private static final double MIN_GAIN = 0.02;
+
+    private final CsrView graph;
+    private final BmsspConfig config;
+    private final int[] sources;
+    private final QueryWorkspace reference;
+
+    /**
+     * @param config Implementation choices kept fixed while tuning; its params are ignored
+     * @param sources Sample query sources
+     */
+    public BmsspTuner(CsrView graph, BmsspConfig config, int[] sources) {
+        if (sources.length == 0) {
+            throw new IllegalArgumentException("At least one sample source is needed");
+        }
+        this.graph = graph;
+        this.config = config;
+        this.sources = sources.clone();
+        this.reference = new QueryWorkspace(graph.getNodeCount());
+    }
+
+    /**
+     * Run the search and return the fastest qualifying trial, the heuristic's if nothing beats it
+     *
+     * @param onTrial Called with every measured candidate, in order
+     */
+    public Trial tune(Consumer<Trial> onTrial) {
+        var heuristic = BmsspParams.heuristic(graph.getNodeCount());
+        measure(heuristic); // warm-up
+        var baseline = measure(heuristic);
+        onTrial.accept(baseline);
+
+        var best = baseline;
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            var passStart = best;
+            for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+                for (var candidate : candidates(best.params(), dimension)) {
+                    if (candidate.equals(best.params())) {
+                        continue;
+                    }
+                    var trial = measure(candidate);
+                    onTrial.accept(trial);
+                    if (trial.exactNodes() >= baseline.exactNodes() && trial.nanos() < best.nanos() * (1.0 - MIN_GAIN)) {
+                        best = trial;
+                    }
+                }
+            }
+            if (best == passStart) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Time one parameter set over the sample sources, counting exact nodes in the last round
+     */
+    public Trial measure(BmsspParams params) {
+        int n = graph.getNodeCount();
+        var workspace = new QueryWorkspace(n, config.withParams(params));
+        long bestNanos = Long.MAX_VALUE;
+        long relaxations = 0;
+        long exactNodes = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            var instr = new Instrument();
+            long nanos = 0;
+            for (int source : sources) {
+                long start = System.nanoTime();
+                BMSSP.fromSource(graph, source, workspace, instr);
+                nanos += System.nanoTime() - start;
+                if (round == ROUNDS - 1) {
+                    exactNodes += countExact(workspace.getDistances(), source);
+                }
+            }
+            bestNanos = Math.min(bestNanos, nanos);
+            relaxations = instr.getRelaxations();
+        }
+        return new Trial(params, bestNanos, relaxations, exactNodes);
+    }
+
+    /**
+     * Nodes reachable from source whose distance in dist matches Dijkstra's
+     */
+    private long countExact(DistanceStore dist, int source) {
+        var expected = Dijkstra.shortestPaths(graph, source, reference, new Instrument());
+        long exact = 0;
+        for (int v = 0, n = graph.getNodeCount(); v < n; v++) {
+            double d = expected.get(v);
+            if (d < Double.POSITIVE_INFINITY && dist.get(v) == d) {
+                exact++;
+            }
+        }
+        return exact;
+    }
+
+    /**
+     * Values of one parameter around current, the others held; values that make invalid
+     * parameters are left out
+     */
+    private static List<BmsspParams> candidates(BmsspParams current, int dimension) {
+        return switch (dimension) {
+            case 0 -> around(current.t(), new int[]{-1, 1, 2}, current::withT);
+            case 1 -> around(current.k(), new int[]{-1, 1, 2}, current::withK);
+            case 2 -> scaled(current.pivotLimit(), current::withPivotLimit);
+            case 3 -> scaled(current.blockSize(), current::withBlockSize);
+            case 4 -> around(current.topLevel(), new int[]{-1, 1}, current::withTopLevel);
+            default -> throw new IllegalArgumentException("No parameter " + dimension);
+        };
+    }
+
+    private static List<BmsspParams> around(int value, int[] offsets, IntFunction<BmsspParams> with) {
+        var candidates = new ArrayList<BmsspParams>();
+        for (int offset : offsets) {
+            addValid(candidates, value + offset, with);
+        }
+        return candidates;
+    }
+
+    private static List<BmsspParams> scaled(int value, IntFunction<BmsspParams> with) {
+        var candidates = new ArrayList<BmsspParams>();
+        addValid(candidates, value / 4, with);
+        addValid(candidates, value / 2, with);
+        addValid(candidates, value * 2, with);
+        addValid(candidates, value * 4, with);
+        return candidates;
+    }
+
+    private static void addValid(List<BmsspParams> candidates, int value, IntFunction<BmsspParams> with) {
+        try {
+            candidates.add(with.apply(value));
+        } catch (IllegalArgumentException e) {
+            // Out of range for this parameter
+        }
+    }
+}
@@ -1,16 +1,17 @@
 package org.bmssp.algo;
 
+import org.bmssp.algo.util.NodeKeyBuffer;
+import org.bmssp.algo.util.NodeSet;
+
 import java.util.*;
 
 /**
- * Practical approximation of the paper's DataStructure D (Partial Queue)
+ * The paper's DataStructure D (Partial Queue, Lemma 3.3).
  * Supports insert, batch_prepend, and pull operations.
- * This reference implementation uses a priority queue to maintain the smallest keys
- * and a map to track the best keys for each node.
  */
-public class DataStructureD {
+public interface DataStructureD {
 
-    public record NodeKey(int node, double key) implements Comparable<NodeKey> {
+    record NodeKey(int node, double key) implements Comparable<NodeKey> {
         @Override
         public int compareTo(NodeKey other) {
             int cmp = Double.compare(this.key, other.key);
@@ -18,92 +19,63 @@ public class DataStructureD {
         }
     }
 
-    public record PullResult(double Bi, Set<Integer> Si) {}
+    /**
+     * @param Bi Bound for the next recursion
+     * @param Si Pulled nodes; owned by the data structure and overwritten by the next pull
+     */
+    record PullResult(double Bi, NodeSet Si) {}
 
-    private final PriorityQueue<NodeKey> heap;
-    private final Map<Integer, Double> best;
-    private final int M;
-    private final double BUpper;
-    private final int blockSize;
+    /**
+     * Available implementations, so they can be swapped and benchmarked against each other
+     */
+    enum Kind {
+        /** Single binary heap plus a map of best keys */
+        HEAP,
+        /** Block-linked D0/D1 sequences from Lemma 3.3; blocks hold M entries and blockSize is ignored */
+        BLOCK;
 
-    public DataStructureD(int M, double BUpper, Integer blockSize) {
-        this.heap = new PriorityQueue<>();
-        this.best = new HashMap<>();
-        this.M = Math.max(1, M);
-        this.BUpper = BUpper;
-        this.blockSize = blockSize != null ? blockSize : Math.max(1, this.M / 8);
+        public DataStructureD create(int M, double BUpper, Integer blockSize) {
+            return switch (this) {
+                case HEAP -> new HeapDataStructureD(M, BUpper, blockSize);
+                case BLOCK -> new BlockDataStructureD(M, BUpper);
+            };
+        }
     }
 
     /**
-     * Insert a node with given key
+     * Empty the structure and reuse it with new parameters, keeping allocated capacity
+     * @param blockSize Pull batch size for HEAP, or null for M / 8; BLOCK ignores it and sizes blocks by M
      */
-    public void insert(int node, double key) {
-        Double prev = best.get(node);
-        if (prev == null || key < prev) {
-            best.put(node, key);
-            heap.offer(new NodeKey(node, key));
-        }
-    }
+    void reset(int M, double BUpper, Integer blockSize);
 
     /**
-     * Batch insert nodes with small keys
+     * Insert a node with given key, keeping only the smallest key per node
      */
-    public void batchPrepend(Collection<NodeKey> pairs) {
-        for (var pair : pairs) {
-            insert(pair.node(), pair.key());
-        }
-    }
+    void insert(int node, double key);
 
     /**
-     * Remove stale heap entries
+     * Batch insert nodes whose keys are smaller than every key currently stored
      */
-    private void cleanup() {
-        while (!heap.isEmpty()) {
-            var top = heap.peek();
-            Double currentBest = best.get(top.node());
-            if (currentBest == null || !currentBest.equals(top.key())) {
-                heap.poll();
-            } else {
-                break;
-            }
+    void batchPrepend(NodeKeyBuffer pairs);
+
+    /**
+     * Batch insert nodes whose keys are smaller than every key currently stored
+     */
+    default void batchPrepend(Collection<NodeKey> pairs) {
+        var buffer = new NodeKeyBuffer(pairs.size());
+        for (var pair : pairs) {
+            buffer.add(pair.node(), pair.key());
         }
+        batchPrepend(buffer);
     }
 
     /**
      * Check if the data structure is empty
      */
-    public boolean isEmpty() {
-        cleanup();
-        return heap.isEmpty();
-    }
+    boolean isEmpty();
 
     /**
-     * Pull the smallest key (Bi) and a set of nodes with smallest keys (Si)
+     * Pull a set of nodes with smallest keys (Si) and a bound Bi for the next recursion
      */
-    public PullResult pull() {
-        cleanup();
-        if (heap.isEmpty()) {
-            throw new IllegalStateException("Cannot pull from empty DataStructureD");
-        }
-
-        // Get the smallest key
-        double Bi = heap.peek().key();
-        var Si = new HashSet<Integer>();
-
-        // Pop up to blockSize best current entries
-        while (!heap.isEmpty() && Si.size() < blockSize) {
-            var current = heap.poll();
-            int node = current.node();
-            double key = current.key();
-
-            Double currentBest = best.get(node);
-            if (currentBest != null && currentBest.equals(key)) {
-                Si.add(node);
-                // Remove from best to mark as "pulled"
-                best.remove(node);
-            }
-        }
-
-        return new PullResult(Bi, Si);
-    }
-}
\ No newline at end of file
+    PullResult pull();
+}
@@ -0,0 +1,231 @@
+package org.bmssp.algo;
+
+import org.bmssp.algo.graph.CsrView;
+import org.bmssp.algo.util.AtomicDistanceStore;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.Instrument;
+import org.bmssp.algo.util.IntBuffer;
+import org.bmssp.algo.util.NodeSet;
+import org.bmssp.algo.util.Parallel;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parallel delta-stepping shortest paths (Meyer and Sanders, 2003).
+ *
+ * Tentative distances are grouped into buckets of width delta. The smallest non-empty bucket
+ * is drained by repeatedly relaxing the light edges (weight <= delta) of its nodes in parallel,
+ * which may refill the same bucket; once it stays empty the heavy edges of every node removed
+ * from it are relaxed once. Buckets live in a cyclic array of maxWeight / delta + 2 slots,
+ * since no tentative distance is more than maxWeight past the bucket being drained.
+ *
+ * The light/heavy split and the buckets are built once per graph and delta, so one instance
+ * can serve many queries. Not thread-safe: run one query at a time per instance.
+ */
+public class DeltaStepping {
+
+    /**
+     * Smallest number of nodes handed to one parallel relaxation chunk
+     */
+    static final int PARALLEL_CHUNK = 256;
+
+    private final CsrView graph;
+    private final double delta;
+    // Packed copy of the edges, node u at [offsets[u], offsets[u + 1]), reordered so light ones
+    // come first: [offsets[u], lightEnd[u]) are light
+    private final int[] offsets;
+    private final int[] lightEnd;
+    private final int[] targets;
+    private final double[] weights;
+    private final IntBuffer[] buckets;
+    private final NodeSet frontier;
+    private final NodeSet removed;
+    private IntBuffer[] chunkBuffers = new IntBuffer[0];
+
+    /**
+     * @param graph The input graph; edge weights must be non-negative
+     * @param delta Bucket width, > 0
+     */
+    public DeltaStepping(CsrView graph, double delta) {
+        if (!(delta > 0)) {
+            throw new IllegalArgumentException("delta must be positive");
+        }
+        this.graph = graph;
+        this.delta = delta;
+
+        int n = graph.getNodeCount();
+        if (graph.getEdgeCount() > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Delta-stepping copies the edges into arrays, which hold at most 2^31 edges");
+        }
+        this.offsets = new int[n + 1];
+        this.lightEnd = new int[n];
+        this.targets = new int[(int) graph.getEdgeCount()];
+        this.weights = new double[(int) graph.getEdgeCount()];
+        double maxWeight = 0.0;
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] = offsets[u] + graph.getOutDegree(u);
+            int light = offsets[u];
+            int heavy = offsets[u + 1];
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                double w = graph.weight(e);
+                maxWeight = Math.max(maxWeight, w);
+                int slot = w <= delta ? light++ : --heavy;
+                targets[slot] = graph.target(e);
+                weights[slot] = w;
+            }
+            lightEnd[u] = light;
+        }
+
+        long slots = (long) Math.floor(maxWeight / delta) + 2;
+        if (slots > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("delta too small for the largest edge weight " + maxWeight);
+        }
+        this.buckets = new IntBuffer[(int) slots];
+        for (int b = 0; b < buckets.length; b++) {
+            buckets[b] = new IntBuffer();
+        }
+        this.frontier = new NodeSet(n);
+        this.removed = new NodeSet(n);
+    }
+
+    /**
+     * Default bucket width: largest edge weight divided by the average out-degree, so a node
+     * has about one light edge per unit of delta
+     */
+    public static double defaultDelta(CsrView graph) {
+        double maxWeight = 0.0;
+        for (int u = 0; u < graph.getNodeCount(); u++) {
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                maxWeight = Math.max(maxWeight, graph.weight(e));
+            }
+        }
+        double delta = maxWeight / Math.max(1.0, graph.getAverageOutDegree());
+        return delta > 0 ? delta : 1.0;
+    }
+
+    public double getDelta() {
+        return delta;
+    }
+
+    /**
+     * Run delta-stepping from source into a fresh atomic distance store
+     */
+    public DistanceStore shortestPaths(int source, ForkJoinPool pool, Instrument instr) {
+        var dist = DistanceStore.atomic(graph.getNodeCount());
+        shortestPaths(source, dist, pool, instr);
+        return dist;
+    }
+
+    /**
+     * Run delta-stepping from source
+     *
+     * @param dist Distance store to fill; every node must read as +infinity
+     * @param pool Pool the bucket relaxations run on
+     * @return The given distance store
+     */
+    public AtomicDistanceStore shortestPaths(int source, AtomicDistanceStore dist, ForkJoinPool pool,
+                                             Instrument instr) {
+        for (var bucket : buckets) {
+            bucket.clear();
+        }
+        var relaxations = new AtomicLong();
+
+        dist.set(source, 0.0);
+        buckets[0].add(source);
+        long pending = 1;
+
+        for (long index = 0; pending > 0; index++) {
+            var bucket = buckets[(int) (index % buckets.length)];
+            if (bucket.isEmpty()) {
+                continue;
+            }
+
+            // Drain the bucket: relax light edges until no node falls back into it
+            removed.clear();
+            while (!bucket.isEmpty()) {
+                frontier.clear();
+                for (int i = 0; i < bucket.size(); i++) {
+                    int u = bucket.get(i);
+                    // Skip entries left behind by a node that moved to a smaller bucket
+                    if (bucketOf(dist.get(u)) == index) {
+                        frontier.add(u);
+                    }
+                }
+                pending -= bucket.size();
+                bucket.clear();
+                removed.addAll(frontier);
+
+                int chunks = relax(frontier, true, dist, pool, relaxations);
+                pending += requeue(chunks, dist);
+            }
+
+            // Heavy edges end beyond this bucket, so one pass over the removed nodes suffices
+            int chunks = relax(removed, false, dist, pool, relaxations);
+            pending += requeue(chunks, dist);
+        }
+
+        instr.addRelaxations(relaxations.get());
+        return dist;
+    }
+
+    private long bucketOf(double distance) {
+        return (long) Math.floor(distance / delta);
+    }
+
+    /**
+     * Relax the light or heavy edges of nodes on the pool; improved targets are collected in
+     * one buffer per chunk. Returns the number of chunks used.
+     */
+    private int relax(NodeSet nodes, boolean light, AtomicDistanceStore dist, ForkJoinPool pool,
+                      AtomicLong relaxations) {
+        int size = nodes.size();
+        int chunks = Parallel.chunkCount(pool, size, PARALLEL_CHUNK);
+        if (chunkBuffers.length < chunks) {
+            var grown = new IntBuffer[chunks];
+            for (int c = 0; c < chunks; c++) {
+                grown[c] = c < chunkBuffers.length ? chunkBuffers[c] : new IntBuffer();
+            }
+            chunkBuffers = grown;
+        }
+        var buffers = chunkBuffers;
+
+        Parallel.forEachChunk(pool, chunks, c -> {
+            var out = buffers[c];
+            out.clear();
+            long relaxed = 0;
+            for (int i = Parallel.chunkStart(size, chunks, c), end = Parallel.chunkStart(size, chunks, c + 1);
+                 i < end; i++) {
+                int u = nodes.get(i);
+                double du = dist.get(u);
+                int from = light ? offsets[u] : lightEnd[u];
+                int to = light ? lightEnd[u] : offsets[u + 1];
+                for (int e = from; e < to; e++) {
+                    relaxed++;
+                    int v = targets[e];
+                    if (dist.lowerBelow(v, du + weights[e])) {
+                        out.add(v);
+                    }
+                }
+            }
+            relaxations.addAndGet(relaxed);
+        });
+        return chunks;
+    }
+
+    /**
+     * Move improved nodes into the bucket of their current distance; returns entries added
+     */
+    private long requeue(int chunks, AtomicDistanceStore dist) {
+        long added = 0;
+        for (int c = 0; c < chunks; c++) {
+            var out = chunkBuffers[c];
+            for (int i = 0; i < out.size(); i++) {
+                int v = out.get(i);
+                buckets[(int) (bucketOf(dist.get(v)) % buckets.length)].add(v);
+            }
+            added += out.size();
+        }
+        return added;
+    }
+}
@@ -1,66 +1,234 @@
 package org.bmssp.algo;
 
-import org.bmssp.algo.graph.Graph;
+import org.bmssp.algo.graph.CsrView;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.IndexedDaryHeap;
 import org.bmssp.algo.util.Instrument;
-
-import java.util.*;
+import org.bmssp.algo.util.IntBuffer;
+import org.bmssp.algo.util.NodeSet;
+import org.bmssp.algo.util.ShortestPathTree;
 
 /**
  * Standard Dijkstra's shortest path algorithm implementation
  */
 public class Dijkstra {
 
-    public record DistanceNode(double distance, int node) implements Comparable<DistanceNode> {
-        @Override
-        public int compareTo(DistanceNode other) {
-            int cmp = Double.compare(this.distance, other.distance);
-            return cmp != 0 ? cmp : Integer.compare(this.node, other.node);
-        }
+    /**
+     * Run Dijkstra's algorithm from source node into a dense distance array
+     */
+    public static DistanceStore shortestPaths(CsrView graph, int source, Instrument instr) {
+        return shortestPaths(graph, source, DistanceStore.dense(graph.getNodeCount()), instr);
     }
 
     /**
      * Run Dijkstra's algorithm from source node
+     *
+     * @param dist Distance store to fill; unset nodes must read as +infinity
+     * @return The given distance store
      */
-    public static Map<Integer, Double> shortestPaths(Graph graph, int source, Instrument instr) {
-        var dist = new HashMap<Integer, Double>();
+    public static DistanceStore shortestPaths(CsrView graph, int source, DistanceStore dist, Instrument instr) {
+        return shortestPaths(graph, source, dist, new IndexedDaryHeap(graph.getNodeCount()), instr);
+    }
 
-        // Initialize distances
-        for (int node : graph.getNodes()) {
-            dist.put(node, Double.POSITIVE_INFINITY);
-        }
-        dist.put(source, 0.0);
+    /**
+     * Run Dijkstra's algorithm from source node using a caller-provided heap
+     *
+     * @param dist Distance store to fill; unset nodes must read as +infinity
+     * @param heap Heap sized for the graph; cleared before use
+     * @return The given distance store
+     */
+    public static DistanceStore shortestPaths(CsrView graph, int source, DistanceStore dist,
+                                              IndexedDaryHeap heap, Instrument instr) {
+        return shortestPaths(graph, source, dist, heap, null, instr);
+    }
 
-        var heap = new PriorityQueue<DistanceNode>();
-        heap.offer(new DistanceNode(0.0, source));
-        instr.incrementHeapOps();
+    /**
+     * Run Dijkstra's algorithm from source node into a new query on workspace: its distances,
+     * reset in O(1), and its heap. Predecessors go to the workspace's tree if one is set.
+     *
+     * @return The workspace's distances
+     */
+    public static DistanceStore shortestPaths(CsrView graph, int source, QueryWorkspace workspace,
+                                              Instrument instr) {
+        return shortestPaths(graph, source, workspace.startQuery(), workspace.getHeap(), workspace.getTree(), instr);
+    }
+
+    /**
+     * Nodes within radius of source, settled in order of distance
+     */
+    public static Ball ball(CsrView graph, int source, double radius, Instrument instr) {
+        return ball(graph, source, radius, DistanceStore.dense(graph.getNodeCount()),
+                new IndexedDaryHeap(graph.getNodeCount()), instr);
+    }
+
+    /**
+     * Bounded Dijkstra into a new query on workspace; setup is O(1), so the cost follows the
+     * size of the ball rather than of the graph
+     */
+    public static Ball ball(CsrView graph, int source, double radius, QueryWorkspace workspace, Instrument instr) {
+        return ball(graph, source, radius, workspace.startQuery(), workspace.getHeap(), instr);
+    }
+
+    /**
+     * Bounded Dijkstra: labels beyond radius are never pushed, so the search ends when the
+     * ball is exhausted
+     *
+     * @param radius Largest distance included, >= 0
+     * @param dist Distance store to fill; unset nodes must read as +infinity
+     * @param heap Heap sized for the graph; cleared before use
+     */
+    public static Ball ball(CsrView graph, int source, double radius, DistanceStore dist,
+                            IndexedDaryHeap heap, Instrument instr) {
+        if (!(radius >= 0)) {
+            throw new IllegalArgumentException("radius must be non-negative");
+        }
+        var settled = new IntBuffer();
+        heap.clear();
+        dist.set(source, 0.0);
+        heap.push(source, 0.0);
+        instr.incrementHeapPushes();
 
         while (!heap.isEmpty()) {
-            var current = heap.poll();
-            instr.incrementHeapOps();
+            double dU = heap.peekKey();
+            int u = heap.pop();
+            instr.incrementHeapPops();
+            settled.add(u);
+
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                instr.incrementRelaxations();
+                int v = graph.target(e);
+                double alt = dist.narrow(dU + graph.weight(e));
+
+                if (alt <= radius && alt < dist.get(v)) {
+                    dist.set(v, alt);
+                    if (heap.contains(v)) {
+                        heap.decreaseKey(v, alt);
+                        instr.incrementHeapDecreaseKeys();
+                    } else {
+                        heap.push(v, alt);
+                        instr.incrementHeapPushes();
+                    }
+                }
+            }
+        }
+
+        var nodes = new int[settled.size()];
+        var distances = new double[settled.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = settled.get(i);
+            distances[i] = dist.get(nodes[i]);
+        }
+        return new Ball(radius, nodes, distances, true);
+    }
 
-            double dU = current.distance();
-            int u = current.node();
+    /**
+     * Run Dijkstra's algorithm from source node until every target is settled
+     */
+    public static DistanceStore toTargets(CsrView graph, int source, NodeSet targets, Instrument instr) {
+        return toTargets(graph, source, targets, DistanceStore.dense(graph.getNodeCount()),
+                new IndexedDaryHeap(graph.getNodeCount()), instr);
+    }
 
-            // Skip if we've already found a better path
-            if (dU > dist.get(u)) {
-                continue;
+    /**
+     * Run Dijkstra's algorithm from source node until every target is settled, into a new query
+     * on workspace
+     *
+     * @return The workspace's distances
+     */
+    public static DistanceStore toTargets(CsrView graph, int source, NodeSet targets, QueryWorkspace workspace,
+                                          Instrument instr) {
+        return toTargets(graph, source, targets, workspace.startQuery(), workspace.getHeap(), instr);
+    }
+
+    /**
+     * Run Dijkstra's algorithm from source node, stopping as soon as the last target is popped.
+     * Targets hold their exact distances; other nodes hold upper bounds, or +infinity if unseen.
+     *
+     * @param targets Nodes whose distances are wanted; unreachable targets make the search exhaustive
+     * @param dist Distance store to fill; unset nodes must read as +infinity
+     * @param heap Heap sized for the graph; cleared before use
+     * @return The given distance store
+     */
+    public static DistanceStore toTargets(CsrView graph, int source, NodeSet targets, DistanceStore dist,
+                                          IndexedDaryHeap heap, Instrument instr) {
+        heap.clear();
+        dist.set(source, 0.0);
+        heap.push(source, 0.0);
+        instr.incrementHeapPushes();
+        int remaining = targets.size();
+
+        while (!heap.isEmpty() && remaining > 0) {
+            double dU = heap.peekKey();
+            int u = heap.pop();
+            instr.incrementHeapPops();
+            if (targets.contains(u) && --remaining == 0) {
+                break;
             }
 
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                instr.incrementRelaxations();
+                int v = graph.target(e);
+                double alt = dist.narrow(dU + graph.weight(e));
+
+                if (alt < dist.get(v)) {
+                    dist.set(v, alt);
+                    if (heap.contains(v)) {
+                        heap.decreaseKey(v, alt);
+                        instr.incrementHeapDecreaseKeys();
+                    } else {
+                        heap.push(v, alt);
+                        instr.incrementHeapPushes();
+                    }
+                }
+            }
+        }
+
+        return dist;
+    }
+
+    /**
+     * Run Dijkstra's algorithm from source node, recording the predecessor of every reached node
+     *
+     * @param dist Distance store to fill; unset nodes must read as +infinity
+     * @param heap Heap sized for the graph; cleared before use
+     * @param tree Predecessors to fill, all unset; null to skip recording
+     * @return The given distance store
+     */
+    public static DistanceStore shortestPaths(CsrView graph, int source, DistanceStore dist,
+                                              IndexedDaryHeap heap, ShortestPathTree tree, Instrument instr) {
+        heap.clear();
+        dist.set(source, 0.0);
+        heap.push(source, 0.0);
+        instr.incrementHeapPushes();
+
+        while (!heap.isEmpty()) {
+            double dU = heap.peekKey();
+            int u = heap.pop();
+            instr.incrementHeapPops();
+
             // Relax all neighbors
-            for (var edge : graph.getNeighbors(u)) {
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
                 instr.incrementRelaxations();
-                int v = edge.to();
-                double weight = edge.weight();
-                double alt = dU + weight;
+                int v = graph.target(e);
+                double weight = graph.weight(e);
+                double alt = dist.narrow(dU + weight);
 
                 if (alt < dist.get(v)) {
-                    dist.put(v, alt);
-                    heap.offer(new DistanceNode(alt, v));
-                    instr.incrementHeapOps();
+                    dist.set(v, alt);
+                    if (tree != null) {
+                        tree.setParent(v, u);
+                    }
+                    if (heap.contains(v)) {
+                        heap.decreaseKey(v, alt);
+                        instr.incrementHeapDecreaseKeys();
+                    } else {
+                        heap.push(v, alt);
+                        instr.incrementHeapPushes();
+                    }
                 }
             }
         }
 
         return dist;
     }
-}
\ No newline at end of file
+}
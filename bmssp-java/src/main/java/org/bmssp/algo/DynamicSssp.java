@@ -0,0 +1,223 @@
+package org.bmssp.algo;
+
+import org.bmssp.algo.graph.DynamicCsrGraph;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.IndexedDaryHeap;
+import org.bmssp.algo.util.Instrument;
+import org.bmssp.algo.util.NodeSet;
+import org.bmssp.algo.util.ShortestPathTree;
+
+/**
+ * Shortest-path distances and tree from a fixed set of sources, kept exact while the graph
+ * changes. Every update goes through this class, which edits the graph and then repairs only
+ * the labels the change can reach:
+ *
+ * - An edge that got cheaper (lower weight, or inserted) can only shorten paths through it. If it
+ *   improves its head, the head is relabeled and Dijkstra runs from there, stopping wherever the
+ *   new labels no longer win.
+ * - An edge that got dearer (higher weight, or deleted) only matters if it is the tree edge into
+ *   its head. Then the head's subtree loses its labels, each of its nodes is reseeded from its
+ *   in-neighbors outside the subtree, and Dijkstra settles the subtree again.
+ *
+ * Both cost roughly the size of the region whose distances change rather than of the graph.
+ * Not thread-safe. Edit the graph only through this instance, or call {@link #recompute} after
+ * editing it directly.
+ */
+public final class DynamicSssp {
+
+    private final DynamicCsrGraph graph;
+    private final int[] sources;
+    private final DistanceStore dist;
+    private final ShortestPathTree tree;
+    private final IndexedDaryHeap heap;
+    private final NodeSet invalidated;
+    private long relabeled;
+
+    /**
+     * Compute distances from sources over graph with a full Dijkstra run
+     */
+    public DynamicSssp(DynamicCsrGraph graph, int... sources) {
+        if (sources.length == 0) {
+            throw new IllegalArgumentException("At least one source is required");
+        }
+        int n = graph.getNodeCount();
+        for (int source : sources) {
+            if (source < 0 || source >= n) {
+                throw new IllegalArgumentException("Source " + source + " is not a node of the graph");
+            }
+        }
+        this.graph = graph;
+        this.sources = sources.clone();
+        this.dist = DistanceStore.dense(n);
+        this.tree = new ShortestPathTree(n);
+        this.heap = new IndexedDaryHeap(n);
+        this.invalidated = new NodeSet(n);
+        recompute(new Instrument());
+    }
+
+    public DynamicCsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Current distances; read-only for callers, updated in place by every repair
+     */
+    public DistanceStore distances() {
+        return dist;
+    }
+
+    public ShortestPathTree tree() {
+        return tree;
+    }
+
+    /**
+     * Forget every label and run Dijkstra from the sources again
+     */
+    public void recompute(Instrument instr) {
+        dist.clear();
+        tree.clear();
+        heap.clear();
+        relabeled = 0;
+        for (int source : sources) {
+            dist.set(source, 0.0);
+            if (!heap.contains(source)) {
+                heap.push(source, 0.0);
+                instr.incrementHeapPushes();
+            }
+        }
+        propagate(instr);
+    }
+
+    /**
+     * Set the weight of an edge from -> to and repair the distances
+     *
+     * @return Number of labels rewritten by the repair
+     * @throws IllegalArgumentException If there is no such edge
+     */
+    public long setWeight(int from, int to, double weight, Instrument instr) {
+        double before = graph.getWeight(from, to);
+        graph.setWeight(from, to, weight);
+        return repair(from, to, before, instr);
+    }
+
+    /**
+     * Insert an edge and repair the distances
+     *
+     * @return Number of labels rewritten by the repair
+     */
+    public long addEdge(int from, int to, double weight, Instrument instr) {
+        double before = graph.getWeight(from, to);
+        graph.addEdge(from, to, weight);
+        return repair(from, to, before, instr);
+    }
+
+    /**
+     * Delete one edge from -> to, if there is one, and repair the distances
+     *
+     * @return Number of labels rewritten by the repair
+     */
+    public long removeEdge(int from, int to, Instrument instr) {
+        double before = graph.getWeight(from, to);
+        graph.removeEdge(from, to);
+        return repair(from, to, before, instr);
+    }
+
+    /**
+     * Repair after the cheapest edge from -> to changed from weight before to its current weight
+     */
+    private long repair(int from, int to, double before, Instrument instr) {
+        double after = graph.getWeight(from, to);
+        relabeled = 0;
+        if (after < before) {
+            decreased(from, to, after, instr);
+        } else if (after > before) {
+            increased(from, to, after, instr);
+        }
+        return relabeled;
+    }
+
+    private void decreased(int from, int to, double weight, Instrument instr) {
+        instr.incrementRelaxations();
+        double alt = dist.get(from) + weight;
+        if (alt < dist.get(to)) {
+            heap.clear();
+            label(to, from, alt, instr);
+            propagate(instr);
+        }
+    }
+
+    private void increased(int from, int to, double weight, Instrument instr) {
+        // Only a tree edge carries a label, and one still tight through a parallel edge keeps it
+        if (tree.parent(to) != from || dist.get(from) + weight == dist.get(to)) {
+            return;
+        }
+
+        invalidated.clear();
+        invalidated.add(to);
+        for (int i = 0; i < invalidated.size(); i++) {
+            int y = invalidated.get(i);
+            for (long e = graph.edgeStart(y), end = graph.edgeEnd(y); e < end; e++) {
+                int x = graph.target(e);
+                if (tree.parent(x) == y) {
+                    invalidated.add(x);
+                }
+            }
+        }
+        for (int i = 0; i < invalidated.size(); i++) {
+            int x = invalidated.get(i);
+            dist.set(x, Double.POSITIVE_INFINITY);
+            tree.setParent(x, ShortestPathTree.NO_PARENT);
+        }
+
+        // Best label each node can get from outside the subtree, whose labels are still exact
+        heap.clear();
+        for (int i = 0; i < invalidated.size(); i++) {
+            int x = invalidated.get(i);
+            for (long e = graph.inEdgeStart(x), end = graph.inEdgeEnd(x); e < end; e++) {
+                int y = graph.source(e);
+                if (invalidated.contains(y)) {
+                    continue;
+                }
+                instr.incrementRelaxations();
+                double alt = dist.get(y) + graph.inWeight(e);
+                if (alt < dist.get(x)) {
+                    label(x, y, alt, instr);
+                }
+            }
+        }
+        propagate(instr);
+    }
+
+    /**
+     * Dijkstra from whatever is in the heap; labels only ever go down
+     */
+    private void propagate(Instrument instr) {
+        while (!heap.isEmpty()) {
+            double dU = heap.peekKey();
+            int u = heap.pop();
+            instr.incrementHeapPops();
+
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                instr.incrementRelaxations();
+                int v = graph.target(e);
+                double alt = dU + graph.weight(e);
+                if (alt < dist.get(v)) {
+                    label(v, u, alt, instr);
+                }
+            }
+        }
+    }
+
+    private void label(int node, int parent, double distance, Instrument instr) {
+        dist.set(node, distance);
+        tree.setParent(node, parent);
+        relabeled++;
+        if (heap.contains(node)) {
+            heap.decreaseKey(node, distance);
+            instr.incrementHeapDecreaseKeys();
+        } else {
+            heap.push(node, distance);
+            instr.incrementHeapPushes();
+        }
+    }
+}
@@ -1,17 +1,64 @@
 package org.bmssp.algo;
 
-import org.bmssp.algo.graph.Graph;
+import org.bmssp.algo.graph.CsrView;
+import org.bmssp.algo.jfr.FindPivotsEvent;
+import org.bmssp.algo.util.DistanceStore;
 import org.bmssp.algo.util.Instrument;
+import org.bmssp.algo.util.NodeSet;
+import org.bmssp.algo.util.Parallel;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * FIND_PIVOTS implementation - bounded Bellman-Ford-like algorithm
  */
 public class FindPivots {
 
-    public record Result(Set<Integer> P, Set<Integer> W) {}
+    /**
+     * Smallest number of frontier nodes handed to one parallel chunk; smaller rounds run inline
+     */
+    static final int PARALLEL_CHUNK = 512;
+
+    /**
+     * @param P Pivot set; the frame's P set
+     * @param W Discovered set; the frame's W set
+     */
+    public record Result(NodeSet P, NodeSet W) {}
+
+    /**
+     * FINDPIVOTS on the workspace frame of the given depth; expands frontiers in parallel
+     * when the workspace config enables parallel pivots
+     */
+    public static Result findPivots(CsrView graph, DistanceStore dist, NodeSet S, double B, int n,
+                                    int kSteps, int pLimit, QueryWorkspace workspace, int depth,
+                                    Instrument instr) {
+        var event = new FindPivotsEvent();
+        event.begin();
+        long relaxationsAtStart = instr.getRelaxations();
+
+        var frame = workspace.frame(depth);
+        boolean parallel = workspace.getConfig().parallelPivots();
+        Result result;
+        if (!parallel) {
+            result = findPivots(graph, dist, S, B, n, kSteps, pLimit, frame, instr);
+        } else {
+            selectPivots(dist, S, B, pLimit, frame);
+            expandParallel(graph, dist, S, B, kSteps, frame, workspace, instr);
+            result = finish(S, frame);
+        }
+
+        if (event.shouldCommit()) {
+            event.depth = depth;
+            event.bound = B;
+            event.sources = S.size();
+            event.pivots = result.P().size();
+            event.discovered = result.W().size();
+            event.relaxations = instr.getRelaxations() - relaxationsAtStart;
+            event.parallel = parallel;
+            event.commit();
+        }
+        return result;
+    }
 
     /**
      * Heuristic approximation of FINDPIVOTS algorithm
@@ -23,71 +70,177 @@ public class FindPivots {
      * @param n Number of nodes in graph
      * @param kSteps Number of relaxation steps to perform
      * @param pLimit Maximum number of pivots to select
+     * @param frame Node sets of the calling recursion depth; P and W receive the result
      * @param instr Instrumentation for tracking operations
      * @return Result containing pivot set P and discovered set W
      */
-    public static Result findPivots(Graph graph, Map<Integer, Double> dist, Set<Integer> S,
-                                    double B, int n, int kSteps, int pLimit, Instrument instr) {
-        // Filter S to those with dist < B
-        var SFiltered = S.stream()
-                .filter(v -> dist.getOrDefault(v, Double.POSITIVE_INFINITY) < B)
-                .collect(Collectors.toList());
-
-        Set<Integer> P;
-        if (SFiltered.isEmpty()) {
-            // Fallback: choose up to pLimit arbitrary samples from S
-            P = S.stream()
-                    .limit(Math.max(1, Math.min(S.size(), pLimit)))
-                    .collect(Collectors.toSet());
-        } else {
-            // Choose pivots with smallest distances
-            SFiltered.sort(Comparator.comparing(v -> dist.getOrDefault(v, Double.POSITIVE_INFINITY)));
-            P = SFiltered.stream()
-                    .limit(Math.max(1, Math.min(SFiltered.size(), pLimit)))
-                    .collect(Collectors.toSet());
-        }
+    public static Result findPivots(CsrView graph, DistanceStore dist, NodeSet S, double B, int n,
+                                    int kSteps, int pLimit, QueryWorkspace.Frame frame, Instrument instr) {
+        selectPivots(dist, S, B, pLimit, frame);
 
         // Bounded Bellman-Ford: start frontier from P (if P empty use S)
-        var sourceFrontier = P.isEmpty() ? new HashSet<>(S) : new HashSet<>(P);
-        var discovered = new HashSet<>(sourceFrontier);
-        var frontier = new HashSet<>(sourceFrontier);
+        var W = frame.W();
+        var frontier = frame.frontier();
+        var nextFront = frame.nextFrontier();
+        startFrontier(S, frame);
 
-        // Perform bounded relaxations
+        // Perform bounded relaxations; W doubles as the discovered set
         for (int step = 0; step < Math.max(1, kSteps); step++) {
             if (frontier.isEmpty()) {
                 break;
             }
 
-            var nextFront = new HashSet<Integer>();
-            for (int u : frontier) {
-                double du = dist.getOrDefault(u, Double.POSITIVE_INFINITY);
+            nextFront.clear();
+            for (int i = 0; i < frontier.size(); i++) {
+                int u = frontier.get(i);
+                double du = dist.get(u);
                 if (du >= B) {
                     continue;
                 }
 
-                for (var edge : graph.getNeighbors(u)) {
+                for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
                     instr.incrementRelaxations();
-                    int v = edge.to();
-                    double weight = edge.weight();
-                    double nd = du + weight;
+                    int v = graph.target(e);
+                    double weight = graph.weight(e);
+                    double nd = dist.narrow(du + weight);
 
                     // Consider only nodes with nd < B
-                    if (nd < B && !discovered.contains(v)) {
-                        discovered.add(v);
+                    if (nd < B && W.add(v)) {
                         nextFront.add(v);
                     }
                 }
             }
+            var swap = frontier;
+            frontier = nextFront;
+            nextFront = swap;
+        }
+
+        return finish(S, frame);
+    }
+
+    /**
+     * Fill the frame's P with up to pLimit sources of smallest distance below B
+     */
+    private static void selectPivots(DistanceStore dist, NodeSet S, double B, int pLimit,
+                                     QueryWorkspace.Frame frame) {
+        var P = frame.P();
+        P.clear();
+
+        // Filter S to those with dist < B
+        var candidates = frame.pivotCandidates();
+        candidates.clear();
+        for (int i = 0; i < S.size(); i++) {
+            int v = S.get(i);
+            double dv = dist.get(v);
+            if (dv < B) {
+                candidates.add(v, dv);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            // Fallback: choose up to pLimit arbitrary samples from S
+            int limit = Math.max(1, Math.min(S.size(), pLimit));
+            for (int i = 0; i < S.size() && P.size() < limit; i++) {
+                P.add(S.get(i));
+            }
+        } else {
+            // Choose pivots with smallest distances
+            int limit = Math.max(1, Math.min(candidates.size(), pLimit));
+            candidates.selectSmallest(limit);
+            for (int i = 0; i < limit; i++) {
+                P.add(candidates.node(i));
+            }
+        }
+    }
+
+    /**
+     * Reset W and the frontier to the Bellman-Ford sources: P, or S if P is empty
+     */
+    private static void startFrontier(NodeSet S, QueryWorkspace.Frame frame) {
+        var P = frame.P();
+        var sourceFrontier = P.isEmpty() ? S : P;
+        frame.W().clear();
+        frame.W().addAll(sourceFrontier);
+        frame.frontier().clear();
+        frame.frontier().addAll(sourceFrontier);
+    }
+
+    /**
+     * Same rounds as the sequential loop, but each frontier is cut into chunks expanded on the
+     * pool. Discovery is claimed through a CAS bitset so every node enters exactly one chunk's
+     * buffer; buffers are merged in chunk order, so W and the frontiers hold the same nodes as
+     * in the sequential run.
+     */
+    private static void expandParallel(CsrView graph, DistanceStore dist, NodeSet S, double B,
+                                       int kSteps, QueryWorkspace.Frame frame,
+                                       QueryWorkspace workspace, Instrument instr) {
+        var W = frame.W();
+        var frontier = frame.frontier();
+        var nextFront = frame.nextFrontier();
+        startFrontier(S, frame);
+
+        var pool = workspace.getConfig().pool();
+        var discovered = workspace.concurrentMarks();
+        for (int i = 0; i < W.size(); i++) {
+            discovered.set(W.get(i));
+        }
+
+        var relaxations = new AtomicLong();
+        for (int step = 0; step < Math.max(1, kSteps); step++) {
+            if (frontier.isEmpty()) {
+                break;
+            }
+
+            int size = frontier.size();
+            int chunks = Parallel.chunkCount(pool, size, PARALLEL_CHUNK);
+            var buffers = workspace.chunkBuffers(chunks);
+            var current = frontier;
+            Parallel.forEachChunk(pool, chunks, c -> {
+                var out = buffers[c];
+                long relaxed = 0;
+                for (int i = Parallel.chunkStart(size, chunks, c), end = Parallel.chunkStart(size, chunks, c + 1);
+                     i < end; i++) {
+                    int u = current.get(i);
+                    double du = dist.get(u);
+                    if (du >= B) {
+                        continue;
+                    }
+
+                    for (long e = graph.edgeStart(u), edgeEnd = graph.edgeEnd(u); e < edgeEnd; e++) {
+                        relaxed++;
+                        int v = graph.target(e);
+                        if (dist.narrow(du + graph.weight(e)) < B && discovered.set(v)) {
+                            out.add(v);
+                        }
+                    }
+                }
+                relaxations.addAndGet(relaxed);
+            });
+
+            nextFront.clear();
+            for (int c = 0; c < chunks; c++) {
+                var out = buffers[c];
+                for (int i = 0; i < out.size(); i++) {
+                    W.add(out.get(i));
+                    nextFront.add(out.get(i));
+                }
+            }
+            var swap = frontier;
             frontier = nextFront;
+            nextFront = swap;
         }
 
-        var W = new HashSet<>(discovered);
+        discovered.clear(W);
+        instr.addRelaxations(relaxations.get());
+    }
 
+    private static Result finish(NodeSet S, QueryWorkspace.Frame frame) {
+        var P = frame.P();
         // P must be non-empty if S is non-empty
         if (P.isEmpty() && !S.isEmpty()) {
-            P = Set.of(S.iterator().next());
+            P.add(S.get(0));
         }
 
-        return new Result(P, W);
+        return new Result(P, frame.W());
     }
-}
\ No newline at end of file
+}
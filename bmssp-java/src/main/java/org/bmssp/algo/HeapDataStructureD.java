@@ -0,0 +1,120 @@
+package org.bmssp.algo;
+
+import org.bmssp.algo.util.NodeKeyBuffer;
+import org.bmssp.algo.util.NodeSet;
+
+import java.util.*;
+
+/**
+ * Practical approximation of the paper's DataStructure D (Partial Queue)
+ * Supports insert, batch_prepend, and pull operations.
+ * This reference implementation uses a priority queue to maintain the smallest keys
+ * and a map to track the best keys for each node.
+ */
+public class HeapDataStructureD implements DataStructureD {
+
+    private final PriorityQueue<NodeKey> heap;
+    private final Map<Integer, Double> best;
+    private int M;
+    private double BUpper;
+    private int blockSize;
+    private final NodeSet pulled = new NodeSet(0);
+
+    public HeapDataStructureD(int M, double BUpper, Integer blockSize) {
+        this.heap = new PriorityQueue<>();
+        this.best = new HashMap<>();
+        init(M, BUpper, blockSize);
+    }
+
+    @Override
+    public void reset(int M, double BUpper, Integer blockSize) {
+        init(M, BUpper, blockSize);
+    }
+
+    private void init(int M, double BUpper, Integer blockSize) {
+        heap.clear();
+        best.clear();
+        pulled.clear();
+        this.M = Math.max(1, M);
+        this.BUpper = BUpper;
+        this.blockSize = blockSize != null ? blockSize : Math.max(1, this.M / 8);
+    }
+
+    /**
+     * Insert a node with given key
+     */
+    @Override
+    public void insert(int node, double key) {
+        Double prev = best.get(node);
+        if (prev == null || key < prev) {
+            best.put(node, key);
+            heap.offer(new NodeKey(node, key));
+        }
+    }
+
+    /**
+     * Batch insert nodes with small keys
+     */
+    @Override
+    public void batchPrepend(NodeKeyBuffer pairs) {
+        for (int i = 0; i < pairs.size(); i++) {
+            insert(pairs.node(i), pairs.key(i));
+        }
+    }
+
+    /**
+     * Remove stale heap entries
+     */
+    private void cleanup() {
+        while (!heap.isEmpty()) {
+            var top = heap.peek();
+            Double currentBest = best.get(top.node());
+            if (currentBest == null || !currentBest.equals(top.key())) {
+                heap.poll();
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Check if the data structure is empty
+     */
+    @Override
+    public boolean isEmpty() {
+        cleanup();
+        return heap.isEmpty();
+    }
+
+    /**
+     * Pull the smallest key (Bi) and a set of nodes with smallest keys (Si)
+     */
+    @Override
+    public PullResult pull() {
+        cleanup();
+        if (heap.isEmpty()) {
+            throw new IllegalStateException("Cannot pull from empty DataStructureD");
+        }
+
+        // Get the smallest key
+        double Bi = heap.peek().key();
+        var Si = pulled;
+        Si.clear();
+
+        // Pop up to blockSize best current entries
+        while (!heap.isEmpty() && Si.size() < blockSize) {
+            var current = heap.poll();
+            int node = current.node();
+            double key = current.key();
+
+            Double currentBest = best.get(node);
+            if (currentBest != null && currentBest.equals(key)) {
+                Si.add(node);
+                // Remove from best to mark as "pulled"
+                best.remove(node);
+            }
+        }
+
+        return new PullResult(Bi, Si);
+    }
+}
\ No newline at end of file
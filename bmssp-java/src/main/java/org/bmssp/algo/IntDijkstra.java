@@ -0,0 +1,69 @@
+package org.bmssp.algo;
+
+import org.bmssp.algo.graph.IntCsrGraph;
+import org.bmssp.algo.util.Instrument;
+import org.bmssp.algo.util.RadixHeap;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra's algorithm on integer weights: long distances and a monotone radix heap, so the
+ * search compares no floating-point keys and its heap work is O(log C) per node for a largest
+ * distance C instead of O(log n).
+ */
+public class IntDijkstra {
+
+    /**
+     * Distance of nodes the source does not reach
+     */
+    public static final long UNREACHABLE = Long.MAX_VALUE;
+
+    /**
+     * Run Dijkstra's algorithm from source node into a fresh distance array
+     */
+    public static long[] shortestPaths(IntCsrGraph graph, int source, Instrument instr) {
+        var dist = new long[graph.getNodeCount()];
+        Arrays.fill(dist, UNREACHABLE);
+        return shortestPaths(graph, source, dist, new RadixHeap(graph.getNodeCount()), instr);
+    }
+
+    /**
+     * Run Dijkstra's algorithm from source node using a caller-provided heap
+     *
+     * @param dist Distances to fill, indexed by node; every entry must be {@link #UNREACHABLE}
+     * @param heap Heap sized for the graph; cleared before use
+     * @return The given distance array
+     */
+    public static long[] shortestPaths(IntCsrGraph graph, int source, long[] dist, RadixHeap heap,
+                                       Instrument instr) {
+        heap.clear();
+        dist[source] = 0L;
+        heap.push(source, 0L);
+        instr.incrementHeapPushes();
+
+        while (!heap.isEmpty()) {
+            long dU = heap.peekKey();
+            int u = heap.pop();
+            instr.incrementHeapPops();
+
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                instr.incrementRelaxations();
+                int v = graph.target(e);
+                long alt = dU + graph.intWeight(e);
+
+                if (alt < dist[v]) {
+                    dist[v] = alt;
+                    if (heap.contains(v)) {
+                        heap.decreaseKey(v, alt);
+                        instr.incrementHeapDecreaseKeys();
+                    } else {
+                        heap.push(v, alt);
+                        instr.incrementHeapPushes();
+                    }
+                }
+            }
+        }
+
+        return dist;
+    }
+}
@@ -1,16 +1,37 @@
 package org.bmssp.algo;
 
+import org.bmssp.algo.graph.CsrSnapshot;
+import org.bmssp.algo.graph.CsrView;
+import org.bmssp.algo.graph.EdgeListReader;
+import org.bmssp.algo.graph.GraphGenerator;
+import org.bmssp.algo.graph.IntCsrGraph;
+import org.bmssp.algo.graph.OffHeapCsrGraph;
+import org.bmssp.algo.jfr.BaseCaseEvent;
+import org.bmssp.algo.jfr.BatchPrependEvent;
+import org.bmssp.algo.jfr.BmsspEvent;
+import org.bmssp.algo.jfr.FindPivotsEvent;
+import org.bmssp.algo.jfr.PullEvent;
 import org.bmssp.algo.testing.TestRunner;
+import org.bmssp.algo.util.IndexedDaryHeap;
+import org.bmssp.algo.util.Metrics;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
+import java.io.IOException;
+import java.text.ParseException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Main CLI application for running BMSSP vs Dijkstra comparison
  */
-@Command(name = "bmssp", description = "BMSSP (practical) vs Dijkstra - full implementation",
+@Command(name = "bmssp", description = "BMSSP (practical) vs Dijkstra vs delta-stepping - full implementation",
         mixinStandardHelpOptions = true, version = "1.0")
 public class Main implements Callable<Integer> {
 
@@ -23,41 +44,344 @@ public class Main implements Callable<Integer> {
     @Option(names = {"-s", "--seed"}, description = "Random seed (default: ${DEFAULT-VALUE})")
     private int seed = 0;
 
+    @Option(names = {"--family"}, description = "Generated graph family: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private GraphGenerator.Family family = GraphGenerator.Family.RANDOM;
+
+    @Option(names = {"--parallel-generate"}, description = "Generate RANDOM and RMAT graphs on the fork/join pool; the graph depends on the seed but not on --threads")
+    private boolean parallelGenerate = false;
+
     @Option(names = {"--source"}, description = "Source node (default: ${DEFAULT-VALUE})")
     private int source = 0;
 
-    @Override
-    public Integer call() {
-        try {
-            System.out.println("BMSSP vs Dijkstra Comparison");
-            System.out.println("============================");
+    @Option(names = {"--targets"}, split = ",", description = "Only query distances from --source to these nodes, comparing early-terminating runs with full ones")
+    private int[] targets;
+
+    @Option(names = {"--radius"}, description = "Only query the nodes within this distance of --source (ball / isochrone)")
+    private Double radius;
+
+    @Option(names = {"--graph"}, description = "Load a binary CSR snapshot instead of generating a graph")
+    private Path graphFile;
+
+    @Option(names = {"--verify-graph"}, description = "Check every offset and target of the --graph snapshot before using it; otherwise the file is trusted")
+    private boolean verifyGraph;
+
+    @Option(names = {"--input"}, description = "Parse a DIMACS .gr or SNAP edge-list file instead of generating a graph")
+    private Path inputFile;
+
+    @Option(names = {"--input-format"}, description = "Format of --input: ${COMPLETION-CANDIDATES} (default: guessed from the file name)")
+    private EdgeListReader.Format inputFormat;
+
+    @Option(names = {"--save-graph"}, description = "Write the graph used by this run as a binary CSR snapshot")
+    private Path saveGraph;
+
+    @Option(names = {"--integer-weights"}, description = "Multiply weights by this scale and round them to ints; adds the radix-heap Dijkstra and runs BMSSP base cases on a radix heap")
+    private Double integerScale;
+
+    @Option(names = {"--float32"}, description = "Compare Dijkstra and BMSSP on single-precision weights and distances with the double-precision runs")
+    private boolean float32 = false;
+
+    @Option(names = {"--updates"}, description = "Apply this many random edge updates to a mutable copy of the graph, repairing the distances from --source after each, and compare with a full rerun")
+    private int updates = 0;
+
+    @Option(names = {"--off-heap"}, description = "Hold the graph in off-heap memory segments; --input is parsed straight into them, other graphs are copied")
+    private boolean offHeap = false;
+
+    @Option(names = {"--metrics-json"}, description = "Write per-level BMSSP counters and timers to this JSON file")
+    private Path metricsJson;
+
+    @Option(names = {"--metrics-csv"}, description = "Write per-level BMSSP counters and timers to this CSV file")
+    private Path metricsCsv;
 
-            var result = TestRunner.runSingleTest(nodes, edges, seed, source);
+    @Option(names = {"--jfr"}, description = "Record a flight recording with the BMSSP phase events to this file")
+    private Path jfrFile;
 
-            System.out.println();
-            System.out.println("Test Summary:");
-            System.out.println("=============");
-            System.out.printf("Graph: n=%d, m=%d, seed=%d%n", result.n(), result.m(), result.seed());
-            System.out.printf("Dijkstra  - Time: %.6fs, Relaxations: %d, Reachable: %d%n",
-                    result.dijkstraTime(), result.dijkstraRelaxations(), result.dijkstraReachable());
-            System.out.printf("BMSSP     - Time: %.6fs, Relaxations: %d, Reachable: %d%n",
-                    result.bmsspTime(), result.bmsspRelaxations(), result.bmsspReachable());
-            System.out.printf("Max Distance Difference: %.6e%n", result.maxDiff());
+    @Option(names = {"--tune"}, description = "Sweep the BMSSP parameters t, k, pivot limit, block size and top-level l on sample sources and report the fastest")
+    private boolean tune = false;
 
-            double speedup = result.dijkstraTime() / result.bmsspTime();
-            System.out.printf("Speedup: %.2fx %s%n", Math.abs(speedup),
-                    speedup > 1 ? "(BMSSP faster)" : "(Dijkstra faster)");
+    @Option(names = {"--tune-samples"}, description = "Sample sources for --tune (default: ${DEFAULT-VALUE})")
+    private int tuneSamples = 8;
 
+    @Option(names = {"--profile"}, description = "BMSSP parameter profile: written by --tune, otherwise loaded instead of the built-in formulas")
+    private Path profile;
+
+    @Option(names = {"--heap-arity"}, description = "Arity of the indexed d-ary heap (default: ${DEFAULT-VALUE})")
+    private int heapArity = IndexedDaryHeap.DEFAULT_ARITY;
+
+    @Option(names = {"--ds"}, description = "DataStructure D implementation: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private DataStructureD.Kind dataStructure = DataStructureD.Kind.BLOCK;
+
+    @Option(names = {"--parallel-pivots"}, description = "Expand FIND_PIVOTS frontiers in parallel")
+    private boolean parallelPivots = false;
+
+    @Option(names = {"--parallel-relax"}, description = "Relax the out-edges of large Ui sets in parallel")
+    private boolean parallelRelax = false;
+
+    @Option(names = {"--delta"}, description = "Delta-stepping bucket width, 0 = max weight / avg out-degree (default: ${DEFAULT-VALUE})")
+    private double delta = 0.0;
+
+    @Option(names = {"--queries"}, description = "Run a batch of this many random-source queries instead of the comparison (default: ${DEFAULT-VALUE})")
+    private int queries = 0;
+
+    @Option(names = {"--engine"}, description = "Engine for --queries: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private QueryEngine.Algorithm engine = QueryEngine.Algorithm.BMSSP;
+
+    @Option(names = {"--executor"}, description = "Threads for --queries: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private QueryEngine.ExecutorKind executor = QueryEngine.ExecutorKind.VIRTUAL;
+
+    @Option(names = {"--threads"}, description = "Worker threads for parallel stages, 0 = common pool (default: ${DEFAULT-VALUE})")
+    private int threads = 0;
+
+    private OffHeapCsrGraph offHeapGraph;
+
+    @Override
+    public Integer call() {
+        var pool = threads > 0 ? new ForkJoinPool(threads) : ForkJoinPool.commonPool();
+        try {
+            checkModes();
+            if (integerScale != null) {
+                if (offHeap) {
+                    throw new IllegalArgumentException("--integer-weights and --off-heap are mutually exclusive");
+                }
+                if (float32) {
+                    throw new IllegalArgumentException("--integer-weights and --float32 are mutually exclusive");
+                }
+            }
+            var metrics = metricsJson != null || metricsCsv != null ? new Metrics() : null;
+            var params = profile != null && !tune ? BmsspParams.load(profile) : null;
+            if (params != null) {
+                System.out.printf("Loaded BMSSP parameters from %s: %s%n", profile, params);
+            }
+            var config = new BmsspConfig(heapArity, dataStructure, parallelPivots, parallelRelax, pool, metrics, params);
+            var graph = loadGraph(pool);
+            if (integerScale != null) {
+                long start = System.nanoTime();
+                var intGraph = IntCsrGraph.scaled(graph, integerScale);
+                graph = intGraph;
+                System.out.printf("Rounded weights x%s to ints (max %d) in %.3fs%n", integerScale,
+                        intGraph.getMaxWeight(), (System.nanoTime() - start) / 1_000_000_000.0);
+            }
+            if (offHeap && offHeapGraph == null) {
+                // Generated graphs are built on-heap; a mapped snapshot streams from the file
+                long start = System.nanoTime();
+                graph = offHeapGraph = OffHeapCsrGraph.copyOf(graph);
+                System.out.printf("Copied graph off-heap: %d bytes in %.3fs%n", offHeapGraph.byteSize(),
+                        (System.nanoTime() - start) / 1_000_000_000.0);
+            }
+            if (jfrFile != null) {
+                try (var recording = startRecording()) {
+                    run(graph, config);
+                    recording.stop();
+                    recording.dump(jfrFile);
+                    System.out.printf("Wrote flight recording %s%n", jfrFile);
+                }
+            } else {
+                run(graph, config);
+            }
+            if (metrics != null) {
+                writeMetrics(metrics);
+            }
             return 0;
         } catch (Exception e) {
             System.err.println("Error during execution:" + e.getMessage());
             e.printStackTrace();
             return 1;
+        } finally {
+            if (pool != ForkJoinPool.commonPool()) {
+                pool.shutdown();
+            }
+            if (offHeapGraph != null) {
+                offHeapGraph.close();
+            }
+        }
+    }
+
+    /**
+     * At most one run mode may be selected; run() would silently drop all but the first
+     */
+    private void checkModes() {
+        var modes = new ArrayList<String>();
+        if (tune) {
+            modes.add("--tune");
+        }
+        if (float32) {
+            modes.add("--float32");
+        }
+        if (updates > 0) {
+            modes.add("--updates");
+        }
+        if (queries > 0) {
+            modes.add("--queries");
+        }
+        if (radius != null) {
+            modes.add("--radius");
+        }
+        if (targets != null) {
+            modes.add("--targets");
+        }
+        if (modes.size() > 1) {
+            throw new IllegalArgumentException(String.join(" and ", modes) + " are mutually exclusive");
+        }
+    }
+
+    /**
+     * Run the mode selected by the options: tuning, float32 comparison, dynamic updates, query batch, ball, targets or the full comparison
+     */
+    private void run(CsrView graph, BmsspConfig config) throws IOException {
+        if (tune) {
+            System.out.println("BMSSP Parameter Tuning");
+            System.out.println("======================");
+            var best = TestRunner.runTuning(graph, seed, tuneSamples, config);
+            if (profile != null) {
+                best.params().save(profile, String.format("Tuned on n=%d, m=%d, seed=%d: %.3fms over %d sources",
+                        graph.getNodeCount(), graph.getEdgeCount(), seed, best.nanos() / 1_000_000.0, tuneSamples));
+                System.out.printf("Wrote profile %s%n", profile);
+            }
+            return;
+        }
+        if (float32) {
+            System.out.println("Float32 Precision Run");
+            System.out.println("=====================");
+            var result = TestRunner.runPrecisionTest(graph, source, config);
+            System.out.printf("Float32 speedup: Dijkstra %.2fx, BMSSP %.2fx%n",
+                    result.dijkstraTime() / result.floatDijkstraTime(), result.bmsspTime() / result.floatBmsspTime());
+            System.out.printf("Max distance difference from double precision: Dijkstra %.6e, BMSSP %.6e%n",
+                    result.dijkstraMaxDiff(), result.bmsspMaxDiff());
+            return;
+        }
+        if (updates > 0) {
+            System.out.println("Dynamic Update Run");
+            System.out.println("==================");
+            var result = TestRunner.runDynamicTest(graph, source, updates, seed);
+            System.out.printf("Repair vs rerun: %.3fms per update against %.3fms per rerun (%.1fx), %.1f labels per update%n",
+                    result.repairTime() * 1000.0 / result.updates(), result.rerunTime() * 1000.0,
+                    result.rerunTime() * result.updates() / result.repairTime(),
+                    (double) result.relabeled() / result.updates());
+            System.out.printf("Max distance difference from a full rerun: %.6e%n", result.maxDiff());
+            return;
+        }
+        if (queries > 0) {
+            System.out.println("Batch Query Run");
+            System.out.println("===============");
+            int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            TestRunner.runBatchTest(graph, seed, queries, engine, executor, workers, config);
+            return;
+        }
+
+        if (radius != null) {
+            System.out.println("Ball Query Run");
+            System.out.println("==============");
+            var result = TestRunner.runBallTest(graph, source, radius, config);
+            System.out.printf("Radius %.6f: %d nodes, BMSSP missed %d, max distance difference %.6e%n",
+                    result.radius(), result.dijkstraSize(), result.missing(), result.maxDiff());
+            System.out.printf("Speedup: %.2fx %s%n", result.dijkstraTime() / result.bmsspTime(),
+                    result.dijkstraTime() > result.bmsspTime() ? "(BMSSP faster)" : "(Dijkstra faster)");
+            return;
+        }
+        if (targets != null) {
+            System.out.println("Target Query Run");
+            System.out.println("================");
+            var result = TestRunner.runTargetTest(graph, source, targets, config);
+            System.out.printf("Early-termination speedup: Dijkstra %.2fx, BMSSP %.2fx, bidirectional over full Dijkstra %.2fx%n",
+                    result.dijkstraTime() / result.earlyDijkstraTime(), result.bmsspTime() / result.earlyBmsspTime(),
+                    result.dijkstraTime() / result.bidirectionalTime());
+            System.out.printf("Max target distance difference: exact engines %.6e, BMSSP %.6e%n",
+                    result.exactMaxDiff(), result.bmsspMaxDiff());
+            return;
+        }
+
+        System.out.println("BMSSP vs Dijkstra Comparison");
+        System.out.println("============================");
+
+        var result = TestRunner.runSingleTest(graph, seed, source, config, delta);
+
+        System.out.println();
+        System.out.println("Test Summary:");
+        System.out.println("=============");
+        System.out.printf("Graph: n=%d, m=%d, seed=%d%n", result.n(), result.m(), result.seed());
+        System.out.printf("Dijkstra  - Time: %.6fs, Relaxations: %d, Reachable: %d%n",
+                result.dijkstraTime(), result.dijkstraRelaxations(), result.dijkstraReachable());
+        System.out.printf("BMSSP     - Time: %.6fs, Relaxations: %d, Reachable: %d%n",
+                result.bmsspTime(), result.bmsspRelaxations(), result.bmsspReachable());
+        System.out.printf("Delta     - Time: %.6fs, Relaxations: %d, Reachable: %d%n",
+                result.deltaTime(), result.deltaRelaxations(), result.deltaReachable());
+        System.out.printf("Max Distance Difference: %.6e (delta-stepping: %.6e)%n",
+                result.maxDiff(), result.deltaMaxDiff());
+
+        double speedup = result.dijkstraTime() / result.bmsspTime();
+        System.out.printf("Speedup: %.2fx %s%n", Math.abs(speedup),
+                speedup > 1 ? "(BMSSP faster)" : "(Dijkstra faster)");
+        System.out.printf("Delta-stepping speedup over Dijkstra: %.2fx%n",
+                result.dijkstraTime() / result.deltaTime());
+    }
+
+    /**
+     * Recording with the JDK's default settings plus every BMSSP phase event
+     */
+    private static Recording startRecording() throws IOException, ParseException {
+        var recording = new Recording(Configuration.getConfiguration("default"));
+        recording.enable(BmsspEvent.class);
+        recording.enable(FindPivotsEvent.class);
+        recording.enable(BaseCaseEvent.class);
+        recording.enable(PullEvent.class);
+        recording.enable(BatchPrependEvent.class);
+        recording.start();
+        return recording;
+    }
+
+    /**
+     * Write the per-level BMSSP metrics, summed over every BMSSP run of this invocation
+     */
+    private void writeMetrics(Metrics metrics) throws IOException {
+        if (metricsJson != null) {
+            Files.writeString(metricsJson, metrics.toJson());
+            System.out.printf("Wrote metrics %s%n", metricsJson);
+        }
+        if (metricsCsv != null) {
+            Files.writeString(metricsCsv, metrics.toCsv());
+            System.out.printf("Wrote metrics %s%n", metricsCsv);
+        }
+    }
+
+    /**
+     * Map the --graph snapshot, parse --input or generate a graph, then write it to --save-graph if given
+     */
+    private CsrView loadGraph(ForkJoinPool pool) throws IOException {
+        if (graphFile != null && inputFile != null) {
+            throw new IllegalArgumentException("--graph and --input are mutually exclusive");
+        }
+        if (verifyGraph && graphFile == null) {
+            throw new IllegalArgumentException("--verify-graph requires --graph");
+        }
+        CsrView graph;
+        if (inputFile != null) {
+            var format = inputFormat != null ? inputFormat : EdgeListReader.Format.guess(inputFile);
+            long start = System.nanoTime();
+            graph = offHeap
+                    ? (offHeapGraph = EdgeListReader.readOffHeap(inputFile, format, pool))
+                    : EdgeListReader.read(inputFile, format, pool);
+            System.out.printf("Parsed %s (%s): n=%d, m=%d in %.3fs%n", inputFile, format, graph.getNodeCount(),
+                    graph.getEdgeCount(), (System.nanoTime() - start) / 1_000_000_000.0);
+        } else if (graphFile != null) {
+            long start = System.nanoTime();
+            graph = CsrSnapshot.map(graphFile, verifyGraph);
+            System.out.printf("Mapped %s: n=%d, m=%d in %.3fms%n", graphFile, graph.getNodeCount(),
+                    graph.getEdgeCount(), (System.nanoTime() - start) / 1_000_000.0);
+        } else {
+            graph = parallelGenerate
+                    ? TestRunner.generateGraph(family, nodes, edges, seed, pool)
+                    : TestRunner.generateGraph(family, nodes, edges, seed);
+        }
+        if (saveGraph != null) {
+            CsrSnapshot.write(graph, saveGraph);
+            System.out.printf("Wrote snapshot %s%n", saveGraph);
         }
+        return graph;
     }
 
     public static void main(String[] args) {
-        int exitCode = new CommandLine(new Main()).execute(args);
+        int exitCode = new CommandLine(new Main())
+                .setCaseInsensitiveEnumValuesAllowed(true)
+                .execute(args);
         System.exit(exitCode);
     }
 }
\ No newline at end of file
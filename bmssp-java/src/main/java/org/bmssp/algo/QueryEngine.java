@@ -0,0 +1,202 @@
+package org.bmssp.algo;
+
+import org.bmssp.algo.graph.CsrView;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.Instrument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Runs batches of single-source queries concurrently against one shared, read-only graph.
+ *
+ * Every worker slot owns a {@link QueryWorkspace} (epoch-stamped distances, heap, per-depth
+ * node sets and DataStructure D instances), so a query reuses the buffers of the previous one
+ * on that slot without an O(n) reset. Queries borrow a slot for their duration; with virtual threads
+ * the number of slots bounds how many queries run at once.
+ */
+public class QueryEngine implements AutoCloseable {
+
+    public enum Algorithm {
+        DIJKSTRA,
+        BMSSP
+    }
+
+    public enum ExecutorKind {
+        /** One virtual thread per query, concurrency bounded by the worker slots */
+        VIRTUAL,
+        /** Fixed pool of platform threads, one per worker slot */
+        FIXED
+    }
+
+    /**
+     * @param queries Number of queries run
+     * @param seconds Wall-clock time of the whole batch
+     * @param queriesPerSecond Throughput
+     * @param p50Millis Median query latency, from submission to result, queueing included
+     * @param p90Millis 90th percentile query latency
+     * @param p99Millis 99th percentile query latency
+     * @param maxMillis Slowest query
+     * @param p50QueueMillis Median time from submission until the query got a thread and a worker slot
+     * @param p99QueueMillis 99th percentile queueing time
+     * @param relaxations Edge relaxations summed over all queries
+     */
+    public record BatchReport(int queries, double seconds, double queriesPerSecond,
+                              double p50Millis, double p90Millis, double p99Millis, double maxMillis,
+                              double p50QueueMillis, double p99QueueMillis, long relaxations) {}
+
+    /**
+     * Per-slot state reused across queries; starting a query on its workspace is O(1)
+     */
+    private static final class Worker {
+        final QueryWorkspace workspace;
+        final Instrument instr = new Instrument();
+
+        Worker(int n, BmsspConfig config) {
+            this.workspace = new QueryWorkspace(n, config);
+        }
+    }
+
+    private final CsrView graph;
+    private final Algorithm algorithm;
+    private final ExecutorKind executorKind;
+    private final ExecutorService executor;
+    private final ArrayBlockingQueue<Worker> idle;
+    private final Worker[] workers;
+
+    /**
+     * @param graph Graph shared by every query
+     * @param config Implementation choices for BMSSP queries; the heap arity also applies to Dijkstra
+     * @param algorithm Engine each query runs
+     * @param executorKind Threads the queries run on
+     * @param workers Number of worker slots, i.e. maximum concurrent queries
+     */
+    public QueryEngine(CsrView graph, BmsspConfig config, Algorithm algorithm,
+                       ExecutorKind executorKind, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be at least 1");
+        }
+        this.graph = graph;
+        this.algorithm = algorithm;
+        this.executorKind = executorKind;
+        this.executor = switch (executorKind) {
+            case VIRTUAL -> Executors.newVirtualThreadPerTaskExecutor();
+            case FIXED -> Executors.newFixedThreadPool(workers);
+        };
+        this.idle = new ArrayBlockingQueue<>(workers);
+        this.workers = new Worker[workers];
+        for (int i = 0; i < workers; i++) {
+            this.workers[i] = new Worker(graph.getNodeCount(), config);
+            idle.add(this.workers[i]);
+        }
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public ExecutorKind getExecutorKind() {
+        return executorKind;
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Run one query per source and wait for all of them
+     */
+    public BatchReport runBatch(int[] sources) {
+        return runBatch(sources, (dist, source) -> {});
+    }
+
+    /**
+     * Run one query per source and wait for all of them
+     *
+     * @param onResult Called on the query's thread with its distances; the store is reused by
+     *                 the next query on that slot, so copy anything needed after returning
+     */
+    public BatchReport runBatch(int[] sources, ObjIntConsumer<DistanceStore> onResult) {
+        for (var worker : workers) {
+            worker.instr.reset();
+        }
+        var latencies = new long[sources.length];
+        var waits = new long[sources.length];
+        var futures = new ArrayList<Future<?>>(sources.length);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < sources.length; i++) {
+            int index = i;
+            long submitted = System.nanoTime();
+            futures.add(executor.submit(() -> {
+                runQuery(index, sources[index], submitted, latencies, waits, onResult);
+                return null;
+            }));
+        }
+        for (var future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for queries", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Query failed", e.getCause());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        long relaxations = 0;
+        for (var worker : workers) {
+            relaxations += worker.instr.getRelaxations();
+        }
+
+        Arrays.sort(latencies);
+        Arrays.sort(waits);
+        return new BatchReport(sources.length, seconds, seconds > 0 ? sources.length / seconds : 0.0,
+                percentileMillis(latencies, 0.50), percentileMillis(latencies, 0.90),
+                percentileMillis(latencies, 0.99), percentileMillis(latencies, 1.0),
+                percentileMillis(waits, 0.50), percentileMillis(waits, 0.99), relaxations);
+    }
+
+    /**
+     * Borrow a worker slot and run one query, recording in nanoseconds its latency since
+     * submission and the part of it spent waiting for a thread and a slot; onResult is not timed
+     */
+    private void runQuery(int index, int source, long submitted, long[] latencies, long[] waits,
+                          ObjIntConsumer<DistanceStore> onResult) throws InterruptedException {
+        var worker = idle.take();
+        try {
+            waits[index] = System.nanoTime() - submitted;
+            switch (algorithm) {
+                case DIJKSTRA -> Dijkstra.shortestPaths(graph, source, worker.workspace, worker.instr);
+                case BMSSP -> BMSSP.fromSource(graph, source, worker.workspace, worker.instr);
+            }
+            latencies[index] = System.nanoTime() - submitted;
+            onResult.accept(worker.workspace.getDistances(), source);
+        } finally {
+            idle.add(worker);
+        }
+    }
+
+    /**
+     * Nearest-rank percentile of sorted nanosecond latencies, in milliseconds
+     */
+    private static double percentileMillis(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,269 @@
+package org.bmssp.algo;
+
+import org.bmssp.algo.util.ConcurrentBitSet;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.IndexedDaryHeap;
+import org.bmssp.algo.util.IntBuffer;
+import org.bmssp.algo.util.NodeKeyBuffer;
+import org.bmssp.algo.util.NodeSet;
+import org.bmssp.algo.util.RadixHeap;
+import org.bmssp.algo.util.ShortestPathTree;
+
+import java.util.Arrays;
+
+/**
+ * Scratch state reused by one query across the BMSSP recursion, and by successive queries.
+ * Its distances are epoch-stamped and its node sets and heaps clear in O(size), so starting
+ * a query with {@link #startQuery} costs O(1) instead of O(n).
+ * Not thread-safe: use one workspace per thread.
+ */
+public class QueryWorkspace {
+
+    /**
+     * Node sets owned by one recursion depth. A level's sets stay valid until the next call
+     * at the same depth, which is after its caller has consumed them.
+     *
+     * @param U Nodes completed by this level (BMSSP and BASECASE result)
+     * @param P Pivots chosen by FIND_PIVOTS
+     * @param W Nodes discovered by FIND_PIVOTS
+     * @param frontier Current Bellman-Ford frontier in FIND_PIVOTS
+     * @param nextFrontier Next Bellman-Ford frontier in FIND_PIVOTS
+     * @param pivotCandidates Sources considered as pivots, with their distances
+     * @param batch Pairs collected for D.batchPrepend
+     */
+    public record Frame(NodeSet U, NodeSet P, NodeSet W, NodeSet frontier, NodeSet nextFrontier,
+                        NodeKeyBuffer pivotCandidates, NodeKeyBuffer batch) {
+
+        static Frame allocate(int nodeCount) {
+            return new Frame(new NodeSet(nodeCount), new NodeSet(nodeCount), new NodeSet(nodeCount),
+                    new NodeSet(nodeCount), new NodeSet(nodeCount), new NodeKeyBuffer(), new NodeKeyBuffer());
+        }
+    }
+
+    /**
+     * Output of one parallel relaxation chunk
+     *
+     * @param inserts Pairs bound for D.insert
+     * @param batch Pairs bound for D.batchPrepend
+     */
+    public record RelaxBuffers(NodeKeyBuffer inserts, NodeKeyBuffer batch) {}
+
+    private final int nodeCount;
+    private final BmsspConfig config;
+    private final BmsspParams params;
+    private final IndexedDaryHeap heap;
+    private RadixHeap radixHeap;
+    private DistanceStore distances;
+    private NodeSet sources;
+    private Frame[] frames = new Frame[0];
+    private ConcurrentBitSet concurrentMarks;
+    private IntBuffer[] chunkBuffers = new IntBuffer[0];
+    private RelaxBuffers[] relaxBuffers = new RelaxBuffers[0];
+    private DataStructureD[] structures = new DataStructureD[0];
+    private ShortestPathTree tree;
+    private NodeSet labels;
+    private boolean recordingLabels = false;
+
+    public QueryWorkspace(int nodeCount) {
+        this(nodeCount, BmsspConfig.defaults());
+    }
+
+    public QueryWorkspace(int nodeCount, BmsspConfig config) {
+        this.nodeCount = nodeCount;
+        this.config = config;
+        this.params = config.params(nodeCount);
+        this.heap = new IndexedDaryHeap(nodeCount, config.heapArity());
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public BmsspConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Recursion parameters of every query on this workspace, resolved once from the config
+     */
+    public BmsspParams getParams() {
+        return params;
+    }
+
+    /**
+     * Distances for a new query: the workspace's store with every node reset to +infinity.
+     * The store is epoch-stamped and resets in O(1); with parallel relaxation it is an
+     * {@link org.bmssp.algo.util.AtomicDistanceStore}, whose reset is O(n). The tree, if one is
+     * set, is reset with it, also in O(1).
+     */
+    public DistanceStore startQuery() {
+        if (distances == null) {
+            distances = config.parallelRelax() ? DistanceStore.atomic(nodeCount) : DistanceStore.epoch(nodeCount);
+        } else {
+            distances.clear();
+        }
+        if (tree != null) {
+            tree.clear();
+        }
+        return distances;
+    }
+
+    /**
+     * Distances of the current query, i.e. the store returned by the last {@link #startQuery}
+     */
+    public DistanceStore getDistances() {
+        if (distances == null) {
+            throw new IllegalStateException("No query has been started on this workspace");
+        }
+        return distances;
+    }
+
+    /**
+     * Source set holding just source, reused across queries
+     */
+    public NodeSet sources(int source) {
+        if (sources == null) {
+            sources = new NodeSet(nodeCount);
+        }
+        sources.clear();
+        sources.add(source);
+        return sources;
+    }
+
+    /**
+     * Heap shared by the base cases of the recursion, and by Dijkstra queries on the workspace
+     */
+    public IndexedDaryHeap getHeap() {
+        return heap;
+    }
+
+    /**
+     * Radix heap shared by the base cases on integer-weight graphs, allocated on first use
+     */
+    public RadixHeap getRadixHeap() {
+        if (radixHeap == null) {
+            radixHeap = new RadixHeap(nodeCount);
+        }
+        return radixHeap;
+    }
+
+    /**
+     * Predecessor tree filled by the relaxations of the recursion, or null if none is recorded
+     */
+    public ShortestPathTree getTree() {
+        return tree;
+    }
+
+    /**
+     * Record predecessors into tree from the next query on; null turns recording off.
+     * The tree must cover the workspace's nodes. Every {@link #startQuery} clears it, so it only
+     * holds the parents of the current query.
+     */
+    public void setTree(ShortestPathTree tree) {
+        if (tree != null && tree.getNodeCount() != nodeCount) {
+            throw new IllegalArgumentException("Tree has " + tree.getNodeCount() + " nodes, workspace " + nodeCount);
+        }
+        this.tree = tree;
+    }
+
+    /**
+     * Record every node whose distance the recursion writes into the returned set, cleared
+     * first, until {@link #stopRecordingLabels}; lets a bounded query list what it touched
+     * without scanning every node
+     */
+    NodeSet recordLabels() {
+        if (labels == null) {
+            labels = new NodeSet(nodeCount);
+        }
+        labels.clear();
+        recordingLabels = true;
+        return labels;
+    }
+
+    void stopRecordingLabels() {
+        recordingLabels = false;
+    }
+
+    /**
+     * Set that relaxations add the nodes they label to, or null if none is being recorded
+     */
+    NodeSet getLabels() {
+        return recordingLabels ? labels : null;
+    }
+
+    /**
+     * Bitset shared by parallel workers; must be all clear between uses
+     */
+    public ConcurrentBitSet concurrentMarks() {
+        if (concurrentMarks == null) {
+            concurrentMarks = new ConcurrentBitSet(nodeCount);
+        }
+        return concurrentMarks;
+    }
+
+    /**
+     * One output buffer per parallel chunk, cleared before they are returned
+     */
+    public IntBuffer[] chunkBuffers(int chunks) {
+        if (chunks > chunkBuffers.length) {
+            int old = chunkBuffers.length;
+            chunkBuffers = Arrays.copyOf(chunkBuffers, chunks);
+            for (int c = old; c < chunks; c++) {
+                chunkBuffers[c] = new IntBuffer();
+            }
+        }
+        for (int c = 0; c < chunks; c++) {
+            chunkBuffers[c].clear();
+        }
+        return chunkBuffers;
+    }
+
+    /**
+     * One pair of relaxation buffers per parallel chunk, cleared before they are returned
+     */
+    public RelaxBuffers[] relaxBuffers(int chunks) {
+        if (chunks > relaxBuffers.length) {
+            int old = relaxBuffers.length;
+            relaxBuffers = Arrays.copyOf(relaxBuffers, chunks);
+            for (int c = old; c < chunks; c++) {
+                relaxBuffers[c] = new RelaxBuffers(new NodeKeyBuffer(), new NodeKeyBuffer());
+            }
+        }
+        for (int c = 0; c < chunks; c++) {
+            relaxBuffers[c].inserts().clear();
+            relaxBuffers[c].batch().clear();
+        }
+        return relaxBuffers;
+    }
+
+    /**
+     * DataStructure D for recursion depth l, reset to the given parameters. Like the frame,
+     * it stays valid until the next call at the same depth.
+     */
+    public DataStructureD dataStructure(int l, int M, double BUpper, Integer blockSize) {
+        if (l >= structures.length) {
+            structures = Arrays.copyOf(structures, l + 1);
+        }
+        var D = structures[l];
+        if (D == null) {
+            D = config.dataStructure().create(M, BUpper, blockSize);
+            structures[l] = D;
+        } else {
+            D.reset(M, BUpper, blockSize);
+        }
+        return D;
+    }
+
+    /**
+     * Node sets for recursion depth l, allocated on first use and reused afterwards
+     */
+    public Frame frame(int depth) {
+        if (depth >= frames.length) {
+            frames = Arrays.copyOf(frames, depth + 1);
+        }
+        if (frames[depth] == null) {
+            frames[depth] = Frame.allocate(nodeCount);
+        }
+        return frames[depth];
+    }
+}
@@ -0,0 +1,206 @@
+package org.bmssp.algo.graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable compressed sparse row (CSR) graph.
+ *
+ * The out-edges of node {@code u} occupy the index range
+ * {@code [edgeStart(u), edgeEnd(u))} of the {@code targets} and {@code weights} arrays,
+ * so the relaxation loops can walk neighbors by index without allocating.
+ */
+public final class CsrGraph implements CsrView {
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+
+    /**
+     * @param offsets Edge offsets, length n + 1, non-decreasing, offsets[n] == targets.length
+     * @param targets Edge targets
+     * @param weights Edge weights, parallel to targets
+     */
+    public CsrGraph(int[] offsets, int[] targets, double[] weights) {
+        if (offsets.length == 0) {
+            throw new IllegalArgumentException("offsets must have length n + 1");
+        }
+        if (targets.length != weights.length) {
+            throw new IllegalArgumentException("targets and weights must have the same length");
+        }
+        if (offsets[offsets.length - 1] != targets.length) {
+            throw new IllegalArgumentException("offsets[n] must equal the number of edges");
+        }
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return targets.length;
+    }
+
+    @Override
+    public long edgeStart(int node) {
+        return offsets[node];
+    }
+
+    @Override
+    public long edgeEnd(int node) {
+        return offsets[node + 1];
+    }
+
+    @Override
+    public int target(long edge) {
+        return targets[(int) edge];
+    }
+
+    @Override
+    public double weight(long edge) {
+        return weights[(int) edge];
+    }
+
+    @Override
+    public int getOutDegree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /**
+     * Build a CSR graph from the output of {@link Graph#generate}
+     */
+    public static CsrGraph from(Graph.GeneratedGraph generated) {
+        return builder(generated.graph().getNodeCount())
+                .addEdges(generated.edges())
+                .build();
+    }
+
+    /**
+     * Build a CSR graph from an adjacency-list graph, keeping each node's edge order
+     */
+    public static CsrGraph from(Graph graph) {
+        int n = graph.getNodeCount();
+        var offsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] = offsets[u] + graph.getNeighbors(u).size();
+        }
+
+        var targets = new int[offsets[n]];
+        var weights = new double[offsets[n]];
+        for (int u = 0; u < n; u++) {
+            int e = offsets[u];
+            for (var edge : graph.getNeighbors(u)) {
+                targets[e] = edge.to();
+                weights[e] = edge.weight();
+                e++;
+            }
+        }
+        return new CsrGraph(offsets, targets, weights);
+    }
+
+    /**
+     * Build the transpose of a graph: edge (u, v, w) becomes (v, u, w). In-edges of each node
+     * keep the order of their sources.
+     */
+    public static CsrGraph reverseOf(CsrView graph) {
+        if (graph.getEdgeCount() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Graph has more than 2^31 - 1 edges");
+        }
+        int n = graph.getNodeCount();
+        int m = (int) graph.getEdgeCount();
+        var offsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                offsets[graph.target(e) + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        var cursor = Arrays.copyOf(offsets, n);
+        var targets = new int[m];
+        var weights = new double[m];
+        for (int u = 0; u < n; u++) {
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                int r = cursor[graph.target(e)]++;
+                targets[r] = u;
+                weights[r] = graph.weight(e);
+            }
+        }
+        return new CsrGraph(offsets, targets, weights);
+    }
+
+    public static Builder builder(int nodeCount) {
+        return new Builder(nodeCount);
+    }
+
+    /**
+     * Collects edges into primitive arrays and lays them out in CSR order on {@link #build()}.
+     * Edges of the same source keep their insertion order.
+     */
+    public static final class Builder {
+        private final int nodeCount;
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private double[] weight = new double[16];
+        private int size = 0;
+
+        private Builder(int nodeCount) {
+            if (nodeCount < 0) {
+                throw new IllegalArgumentException("nodeCount must be non-negative");
+            }
+            this.nodeCount = nodeCount;
+        }
+
+        public Builder addEdge(int u, int v, double w) {
+            if (u < 0 || u >= nodeCount || v < 0 || v >= nodeCount) {
+                throw new IndexOutOfBoundsException("Edge (" + u + ", " + v + ") outside [0, " + nodeCount + ")");
+            }
+            if (size == from.length) {
+                int capacity = size * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+            }
+            from[size] = u;
+            to[size] = v;
+            weight[size] = w;
+            size++;
+            return this;
+        }
+
+        public Builder addEdges(Collection<Graph.Edge> edges) {
+            for (var edge : edges) {
+                addEdge(edge.from(), edge.to(), edge.weight());
+            }
+            return this;
+        }
+
+        public CsrGraph build() {
+            var offsets = new int[nodeCount + 1];
+            for (int i = 0; i < size; i++) {
+                offsets[from[i] + 1]++;
+            }
+            for (int u = 0; u < nodeCount; u++) {
+                offsets[u + 1] += offsets[u];
+            }
+
+            // Stable counting sort by source
+            var cursor = Arrays.copyOf(offsets, nodeCount);
+            var targets = new int[size];
+            var weights = new double[size];
+            for (int i = 0; i < size; i++) {
+                int e = cursor[from[i]]++;
+                targets[e] = to[i];
+                weights[e] = weight[i];
+            }
+            return new CsrGraph(offsets, targets, weights);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package org.bmssp.algo.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Versioned binary snapshot of a CSR graph.
+ *
+ * Layout, little-endian:
+ * <pre>
+ *   0  long    magic "BMSSPCSR"
+ *   8  int     format version
+ *  12  int     flags, reserved (0)
+ *  16  long    node count n
+ *  24  long    edge count m
+ *  32  int[]   offsets, n + 1 entries, padded to a multiple of 8 bytes
+ *      int[]   targets, m entries, padded to a multiple of 8 bytes
+ *      double[] weights, m entries
+ * </pre>
+ * Every section starts 8-byte aligned, so it can be mapped and read in place by
+ * {@link MappedCsrGraph}.
+ */
+public final class CsrSnapshot {
+
+    public static final long MAGIC = 0x5253435053534D42L; // "BMSSPCSR" read little-endian
+    public static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private CsrSnapshot() {
+    }
+
+    /**
+     * Write an adjacency-list graph, keeping each node's edge order
+     */
+    public static void write(Graph graph, Path path) throws IOException {
+        write(CsrGraph.from(graph), path);
+    }
+
+    /**
+     * Write any CSR graph, replacing the file if it exists
+     */
+    public static void write(CsrView graph, Path path) throws IOException {
+        int n = graph.getNodeCount();
+        long edgeCount = graph.getEdgeCount();
+        if (edgeCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Snapshots hold at most " + Integer.MAX_VALUE + " edges, got " + edgeCount);
+        }
+        int m = (int) edgeCount;
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(MAGIC).putInt(VERSION).putInt(0).putLong(n).putLong(m);
+
+            // Offsets are rebuilt from the degrees, so a graph with slack between nodes is packed
+            int offset = 0;
+            for (int u = 0; u <= n; u++) {
+                buffer = ensure(channel, buffer, Integer.BYTES);
+                buffer.putInt(offset);
+                if (u < n) {
+                    offset += graph.getOutDegree(u);
+                }
+            }
+            buffer = pad(channel, buffer, n + 1);
+            for (int u = 0; u < n; u++) {
+                for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                    buffer = ensure(channel, buffer, Integer.BYTES);
+                    buffer.putInt(graph.target(e));
+                }
+            }
+            buffer = pad(channel, buffer, m);
+            for (int u = 0; u < n; u++) {
+                for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                    buffer = ensure(channel, buffer, Double.BYTES);
+                    buffer.putDouble(graph.weight(e));
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Map a snapshot read-only without scanning it; the mapping stays valid after the file is closed.
+     * Only the header and file size are checked, so the offsets and targets are trusted:
+     * use {@link #map(Path, boolean)} with verify for files that may be corrupt.
+     */
+    public static MappedCsrGraph map(Path path) throws IOException {
+        return map(path, false);
+    }
+
+    /**
+     * Map a snapshot read-only, optionally checking every offset and target in O(n + m) first
+     * @param verify Reject the file unless offsets run from 0 to m without decreasing and every target is in [0, n)
+     */
+    public static MappedCsrGraph map(Path path, boolean verify) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException(path + " is too short to be a CSR snapshot");
+            }
+            var header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getLong(0) != MAGIC) {
+                throw new IOException(path + " is not a CSR snapshot");
+            }
+            int version = header.getInt(8);
+            if (version != VERSION) {
+                throw new IOException(path + " has snapshot version " + version + ", expected " + VERSION);
+            }
+            long n = header.getLong(16);
+            long m = header.getLong(24);
+            if (n < 0 || n >= Integer.MAX_VALUE || m < 0 || m > Integer.MAX_VALUE) {
+                throw new IOException(path + " has unsupported sizes n=" + n + ", m=" + m);
+            }
+
+            long offsetsAt = HEADER_BYTES;
+            long targetsAt = offsetsAt + padded((n + 1) * Integer.BYTES);
+            long weightsAt = targetsAt + padded(m * Integer.BYTES);
+            long end = weightsAt + m * Double.BYTES;
+            if (size != end) {
+                throw new IOException(path + " has " + size + " bytes, expected " + end);
+            }
+
+            var offsets = section(channel, offsetsAt, (n + 1) * Integer.BYTES).asIntBuffer();
+            var targets = section(channel, targetsAt, m * Integer.BYTES).asIntBuffer();
+            if (verify) {
+                checkOffsets(path, offsets, (int) n, (int) m);
+                checkTargets(path, targets, (int) n, (int) m);
+            }
+            var weights = section(channel, weightsAt, m * Double.BYTES).asDoubleBuffer();
+            return new MappedCsrGraph(offsets, targets, weights);
+        }
+    }
+
+    /**
+     * Offsets must start at 0, never decrease and end at m, so every edge range lies in [0, m)
+     */
+    private static void checkOffsets(Path path, IntBuffer offsets, int n, int m) throws IOException {
+        if (offsets.get(0) != 0) {
+            throw new IOException(path + " has first offset " + offsets.get(0) + ", expected 0");
+        }
+        for (int u = 0; u < n; u++) {
+            if (offsets.get(u + 1) < offsets.get(u)) {
+                throw new IOException(path + " has decreasing offsets at node " + u);
+            }
+        }
+        if (offsets.get(n) != m) {
+            throw new IOException(path + " has last offset " + offsets.get(n) + ", expected " + m);
+        }
+    }
+
+    /**
+     * Every target must name a node, so walking an edge never reads outside the graph
+     */
+    private static void checkTargets(Path path, IntBuffer targets, int n, int m) throws IOException {
+        for (int e = 0; e < m; e++) {
+            int v = targets.get(e);
+            if (v < 0 || v >= n) {
+                throw new IOException(path + " has target " + v + " at edge " + e + ", expected [0, " + n + ")");
+            }
+        }
+    }
+
+    private static ByteBuffer section(FileChannel channel, long position, long bytes) throws IOException {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IOException("Section of " + bytes + " bytes exceeds the 2 GiB mapping limit");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long padded(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static ByteBuffer pad(FileChannel channel, ByteBuffer buffer, long intsWritten) throws IOException {
+        if ((intsWritten & 1) != 0) {
+            buffer = ensure(channel, buffer, Integer.BYTES);
+            buffer.putInt(0);
+        }
+        return buffer;
+    }
+
+    private static ByteBuffer ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.bmssp.algo.graph;
+
+/**
+ * Read-only compressed sparse row (CSR) adjacency, whatever memory it lives in.
+ *
+ * The out-edges of node {@code u} are the edge indices {@code [edgeStart(u), edgeEnd(u))};
+ * the algorithms walk them by index through {@link #target} and {@link #weight}. The ranges of
+ * different nodes need not be adjacent: {@link DynamicCsrGraph} leaves slack between them, so
+ * edges are walked node by node, never as {@code [0, getEdgeCount())}. Edge indices
+ * are longs so off-heap graphs can hold more than 2^31 edges; node ids stay ints.
+ * Implementations must be safe for concurrent reads.
+ */
+public interface CsrView {
+
+    int getNodeCount();
+
+    long getEdgeCount();
+
+    /**
+     * First edge index of node's out-edges (inclusive)
+     */
+    long edgeStart(int node);
+
+    /**
+     * Last edge index of node's out-edges (exclusive)
+     */
+    long edgeEnd(int node);
+
+    int target(long edge);
+
+    double weight(long edge);
+
+    default int getOutDegree(int node) {
+        return (int) (edgeEnd(node) - edgeStart(node));
+    }
+
+    default double getAverageOutDegree() {
+        int n = getNodeCount();
+        return n == 0 ? 0.0 : (double) getEdgeCount() / n;
+    }
+}
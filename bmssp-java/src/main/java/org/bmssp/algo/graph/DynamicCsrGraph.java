@@ -0,0 +1,306 @@
+package org.bmssp.algo.graph;
+
+import java.util.Arrays;
+
+/**
+ * Mutable CSR graph with slack: every node owns a segment of the edge arrays with room to grow,
+ * so weight updates, insertions and deletions are O(degree) instead of a rebuild.
+ *
+ * A node whose segment is full moves to the end of the arrays with twice the room; the space it
+ * leaves is reclaimed by compacting once it makes up half of the arrays. In-edges are kept the
+ * same way, so incremental repair can find a node's best remaining parent. Edge indices stay
+ * valid across {@link #setWeight} but not across insertions and deletions.
+ *
+ * Reads are safe from many threads as long as no update runs at the same time.
+ */
+public final class DynamicCsrGraph implements CsrView {
+
+    /**
+     * Free slots a node gets beyond its degree
+     */
+    private static final int MIN_SLACK = 2;
+
+    private final Segments out;
+    private final Segments in;
+
+    private DynamicCsrGraph(Segments out, Segments in) {
+        this.out = out;
+        this.in = in;
+    }
+
+    /**
+     * Graph with nodeCount nodes and no edges
+     */
+    public DynamicCsrGraph(int nodeCount) {
+        this(new Segments(new int[nodeCount]), new Segments(new int[nodeCount]));
+    }
+
+    /**
+     * Copy any CSR graph, keeping its edge order, with a quarter of each degree as slack
+     */
+    public static DynamicCsrGraph copyOf(CsrView graph) {
+        int n = graph.getNodeCount();
+        var outDegrees = new int[n];
+        var inDegrees = new int[n];
+        for (int u = 0; u < n; u++) {
+            outDegrees[u] = graph.getOutDegree(u);
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                inDegrees[graph.target(e)]++;
+            }
+        }
+        var copy = new DynamicCsrGraph(new Segments(outDegrees), new Segments(inDegrees));
+        for (int u = 0; u < n; u++) {
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                copy.out.append(u, graph.target(e), graph.weight(e));
+                copy.in.append(graph.target(e), u, graph.weight(e));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Add an edge; parallel edges are allowed
+     */
+    public void addEdge(int from, int to, double weight) {
+        checkWeight(weight);
+        out.append(from, to, weight);
+        in.append(to, from, weight);
+    }
+
+    /**
+     * Remove one edge from -> to
+     *
+     * @return Weight of the removed edge, or NaN if there was none
+     */
+    public double removeEdge(int from, int to) {
+        int slot = out.find(from, to);
+        if (slot < 0) {
+            return Double.NaN;
+        }
+        double weight = out.weights[slot];
+        out.removeAt(from, slot);
+        in.removeAt(to, in.find(to, from, weight));
+        return weight;
+    }
+
+    /**
+     * Change the weight of one edge from -> to
+     *
+     * @return The previous weight
+     * @throws IllegalArgumentException If there is no such edge
+     */
+    public double setWeight(int from, int to, double weight) {
+        checkWeight(weight);
+        int slot = out.find(from, to);
+        if (slot < 0) {
+            throw new IllegalArgumentException("No edge " + from + " -> " + to);
+        }
+        double old = out.weights[slot];
+        out.weights[slot] = weight;
+        in.weights[in.find(to, from, old)] = weight;
+        return old;
+    }
+
+    /**
+     * Smallest weight of the edges from -> to, +infinity if there is none
+     */
+    public double getWeight(int from, int to) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int e = out.start[from], end = e + out.degree[from]; e < end; e++) {
+            if (out.neighbors[e] == to) {
+                best = Math.min(best, out.weights[e]);
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return out.start.length;
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return out.live;
+    }
+
+    @Override
+    public long edgeStart(int node) {
+        return out.start[node];
+    }
+
+    @Override
+    public long edgeEnd(int node) {
+        return out.start[node] + out.degree[node];
+    }
+
+    @Override
+    public int target(long edge) {
+        return out.neighbors[(int) edge];
+    }
+
+    @Override
+    public double weight(long edge) {
+        return out.weights[(int) edge];
+    }
+
+    @Override
+    public int getOutDegree(int node) {
+        return out.degree[node];
+    }
+
+    /**
+     * First in-edge index of node (inclusive); in-edges are walked like out-edges
+     */
+    public long inEdgeStart(int node) {
+        return in.start[node];
+    }
+
+    /**
+     * Last in-edge index of node (exclusive)
+     */
+    public long inEdgeEnd(int node) {
+        return in.start[node] + in.degree[node];
+    }
+
+    /**
+     * Tail of an in-edge
+     */
+    public int source(long inEdge) {
+        return in.neighbors[(int) inEdge];
+    }
+
+    public double inWeight(long inEdge) {
+        return in.weights[(int) inEdge];
+    }
+
+    public int getInDegree(int node) {
+        return in.degree[node];
+    }
+
+    private static void checkWeight(double weight) {
+        if (!(weight >= 0) || weight == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException("Edge weights must be finite and non-negative, got " + weight);
+        }
+    }
+
+    /**
+     * Edges of one direction: node u owns slots [start[u], start[u] + capacity[u]) of neighbors
+     * and weights, of which the first degree[u] are in use
+     */
+    private static final class Segments {
+        final int[] start;
+        final int[] degree;
+        final int[] capacity;
+        int[] neighbors;
+        double[] weights;
+        /** Slots handed out to segments, i.e. the first free slot at the end */
+        int used;
+        /** Slots of segments that moved away */
+        long abandoned;
+        long live;
+
+        Segments(int[] degrees) {
+            int n = degrees.length;
+            start = new int[n];
+            degree = new int[n];
+            capacity = new int[n];
+            long total = 0;
+            for (int u = 0; u < n; u++) {
+                start[u] = (int) total;
+                capacity[u] = degrees[u] + Math.max(MIN_SLACK, degrees[u] >> 2);
+                total += capacity[u];
+            }
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Graph is too large for a DynamicCsrGraph");
+            }
+            used = (int) total;
+            neighbors = new int[used];
+            weights = new double[used];
+        }
+
+        int find(int u, int neighbor) {
+            for (int e = start[u], end = e + degree[u]; e < end; e++) {
+                if (neighbors[e] == neighbor) {
+                    return e;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Slot of an edge to neighbor with exactly this weight; parallel edges that also agree
+         * on the weight are interchangeable
+         */
+        int find(int u, int neighbor, double weight) {
+            for (int e = start[u], end = e + degree[u]; e < end; e++) {
+                if (neighbors[e] == neighbor && weights[e] == weight) {
+                    return e;
+                }
+            }
+            throw new IllegalStateException("In- and out-edges disagree on " + u + " / " + neighbor);
+        }
+
+        void append(int u, int neighbor, double weight) {
+            if (degree[u] == capacity[u]) {
+                relocate(u, Math.max(2 * MIN_SLACK, 2 * capacity[u]));
+            }
+            int slot = start[u] + degree[u]++;
+            neighbors[slot] = neighbor;
+            weights[slot] = weight;
+            live++;
+        }
+
+        /**
+         * Remove a slot by moving the segment's last edge into it
+         */
+        void removeAt(int u, int slot) {
+            int last = start[u] + --degree[u];
+            neighbors[slot] = neighbors[last];
+            weights[slot] = weights[last];
+            live--;
+        }
+
+        /**
+         * Move u's segment to the end of the arrays with the given capacity
+         */
+        private void relocate(int u, int newCapacity) {
+            if (abandoned > used / 2) {
+                compact();
+            }
+            if ((long) used + newCapacity > neighbors.length) {
+                long length = Math.max((long) used + newCapacity, neighbors.length + (neighbors.length >> 1));
+                if (length > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Graph is too large for a DynamicCsrGraph");
+                }
+                neighbors = Arrays.copyOf(neighbors, (int) length);
+                weights = Arrays.copyOf(weights, (int) length);
+            }
+            System.arraycopy(neighbors, start[u], neighbors, used, degree[u]);
+            System.arraycopy(weights, start[u], weights, used, degree[u]);
+            abandoned += capacity[u];
+            start[u] = used;
+            capacity[u] = newCapacity;
+            used += newCapacity;
+        }
+
+        /**
+         * Close the gaps left by moved segments, keeping every node's capacity
+         */
+        private void compact() {
+            var packedNeighbors = new int[neighbors.length];
+            var packedWeights = new double[weights.length];
+            int next = 0;
+            for (int u = 0; u < start.length; u++) {
+                System.arraycopy(neighbors, start[u], packedNeighbors, next, degree[u]);
+                System.arraycopy(weights, start[u], packedWeights, next, degree[u]);
+                start[u] = next;
+                next += capacity[u];
+            }
+            neighbors = packedNeighbors;
+            weights = packedWeights;
+            used = next;
+            abandoned = 0;
+        }
+    }
+}
@@ -0,0 +1,572 @@
+package org.bmssp.algo.graph;
+
+import org.bmssp.algo.util.Parallel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Parallel loaders for text edge lists.
+ *
+ * The file is cut into newline-aligned chunks that are mapped and parsed on a fork/join pool,
+ * reading numbers straight from the mapped bytes. The CSR arrays are built without holding an
+ * edge list: one pass counts out-degrees, a second one writes each edge into its node's
+ * segment, and each segment is then sorted by (target, weight) so the result does not depend
+ * on thread scheduling. SNAP files have no header, so they get an extra pass for the largest
+ * node id first.
+ */
+public final class EdgeListReader {
+
+    public enum Format {
+        /** DIMACS shortest-path challenge: "p sp n m" header, "a u v w" arcs, 1-based ids */
+        DIMACS,
+        /** SNAP edge list: "u v" or "u v w" per line, 0-based ids, '#' comments, weight 1 by default */
+        SNAP;
+
+        /**
+         * DIMACS for .gr files, SNAP for anything else
+         */
+        public static Format guess(Path path) {
+            return path.getFileName().toString().endsWith(".gr") ? DIMACS : SNAP;
+        }
+    }
+
+    private static final long MIN_CHUNK_BYTES = 1L << 22;
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+
+    private EdgeListReader() {
+    }
+
+    /**
+     * Read a graph on the common pool, guessing the format from the file name
+     */
+    public static CsrGraph read(Path path) throws IOException {
+        return read(path, Format.guess(path), ForkJoinPool.commonPool());
+    }
+
+    public static CsrGraph read(Path path, Format format, ForkJoinPool pool) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var chunks = split(channel, pool);
+            try {
+                return build(path, chunks, format, pool);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Read a graph straight into off-heap memory with the same two passes as {@link #read},
+     * so no edge is ever held on the heap and the edge count is not limited to 2^31. Only
+     * the per-node degrees and write cursors, O(n), live on the heap while loading.
+     */
+    public static OffHeapCsrGraph readOffHeap(Path path, Format format, ForkJoinPool pool) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var chunks = split(channel, pool);
+            try {
+                return buildOffHeap(path, chunks, format, pool);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * @param degree Out-degree of every node
+     * @param edgeCount Number of edges, the sum of the degrees
+     */
+    private record Counts(int nodeCount, AtomicIntegerArray degree, long edgeCount) {}
+
+    /**
+     * Node count from the DIMACS header or the largest SNAP id, then pass 1: out-degrees
+     */
+    private static Counts count(Path path, ByteBuffer[] chunks, Format format,
+                                ForkJoinPool pool) throws IOException {
+        long declaredEdges = -1;
+        int n;
+        if (format == Format.DIMACS) {
+            long[] header = dimacsHeader(path, chunks);
+            n = (int) header[0];
+            declaredEdges = header[1];
+        } else {
+            var maxId = new AtomicLong(-1);
+            Parallel.forEachChunk(pool, chunks.length, c -> {
+                long[] chunkMax = {-1};
+                parse(path, chunks[c], format, Integer.MAX_VALUE,
+                        (u, v, w) -> chunkMax[0] = Math.max(chunkMax[0], Math.max(u, v)));
+                maxId.accumulateAndGet(chunkMax[0], Math::max);
+            });
+            n = (int) (maxId.get() + 1);
+        }
+        int nodeCount = n;
+
+        var degree = new AtomicIntegerArray(nodeCount);
+        var edgeCount = new AtomicLong();
+        Parallel.forEachChunk(pool, chunks.length, c -> {
+            long[] count = {0};
+            parse(path, chunks[c], format, nodeCount, (u, v, w) -> {
+                degree.incrementAndGet(u);
+                count[0]++;
+            });
+            edgeCount.addAndGet(count[0]);
+        });
+        long m = edgeCount.get();
+        if (declaredEdges >= 0 && declaredEdges != m) {
+            throw new IOException(path + " declares " + declaredEdges + " arcs but contains " + m);
+        }
+        return new Counts(nodeCount, degree, m);
+    }
+
+    private static CsrGraph build(Path path, ByteBuffer[] chunks, Format format,
+                                  ForkJoinPool pool) throws IOException {
+        var counts = count(path, chunks, format, pool);
+        int nodeCount = counts.nodeCount();
+        long m = counts.edgeCount();
+        if (m > Integer.MAX_VALUE) {
+            throw new IOException(path + " has " + m + " edges, more than a CSR graph can index");
+        }
+
+        var offsets = new int[nodeCount + 1];
+        for (int u = 0; u < nodeCount; u++) {
+            offsets[u + 1] = offsets[u] + counts.degree().get(u);
+        }
+
+        // Pass 2: fill each node's segment through an atomic cursor
+        var cursor = new AtomicIntegerArray(offsets);
+        var targets = new int[(int) m];
+        var weights = new double[(int) m];
+        Parallel.forEachChunk(pool, chunks.length, c ->
+                parse(path, chunks[c], format, nodeCount, (u, v, w) -> {
+                    int e = cursor.getAndIncrement(u);
+                    targets[e] = v;
+                    weights[e] = w;
+                }));
+
+        int sortChunks = Parallel.chunkCount(pool, nodeCount, 1 << 14);
+        Parallel.forEachChunk(pool, sortChunks, c -> {
+            for (int u = Parallel.chunkStart(nodeCount, sortChunks, c), end = Parallel.chunkStart(nodeCount, sortChunks, c + 1);
+                 u < end; u++) {
+                sortSegment(targets, weights, offsets[u], offsets[u + 1]);
+            }
+        });
+        return new CsrGraph(offsets, targets, weights);
+    }
+
+    private static OffHeapCsrGraph buildOffHeap(Path path, ByteBuffer[] chunks, Format format,
+                                                ForkJoinPool pool) throws IOException {
+        var counts = count(path, chunks, format, pool);
+        int nodeCount = counts.nodeCount();
+        try (var filler = OffHeapCsrGraph.filler(nodeCount, counts.edgeCount(), counts.degree()::get)) {
+            // Pass 2: fill each node's segment through an atomic cursor
+            var cursor = new AtomicLongArray(nodeCount);
+            for (int u = 0; u < nodeCount; u++) {
+                cursor.set(u, filler.edgeStart(u));
+            }
+            Parallel.forEachChunk(pool, chunks.length, c ->
+                    parse(path, chunks[c], format, nodeCount,
+                            (u, v, w) -> filler.setEdge(cursor.getAndIncrement(u), v, w)));
+
+            int sortChunks = Parallel.chunkCount(pool, nodeCount, 1 << 14);
+            Parallel.forEachChunk(pool, sortChunks, c -> {
+                for (int u = Parallel.chunkStart(nodeCount, sortChunks, c), end = Parallel.chunkStart(nodeCount, sortChunks, c + 1);
+                     u < end; u++) {
+                    filler.sortSegment(u);
+                }
+            });
+            return filler.build();
+        }
+    }
+
+    @FunctionalInterface
+    private interface EdgeSink {
+        void edge(int u, int v, double w);
+    }
+
+    /**
+     * Parse every edge line of one chunk; node ids are converted to 0-based and checked
+     * against nodeCount
+     */
+    private static void parse(Path path, ByteBuffer chunk, Format format, int nodeCount, EdgeSink sink) {
+        var scanner = new ByteScanner(chunk);
+        while (scanner.skipBlankLines()) {
+            byte first = scanner.peek();
+            long u;
+            long v;
+            double w;
+            if (format == Format.DIMACS) {
+                if (first != 'a') {
+                    // Comments, the problem line and anything else unknown
+                    scanner.skipLine();
+                    continue;
+                }
+                scanner.advance();
+                u = scanner.readLong() - 1;
+                v = scanner.readLong() - 1;
+                w = scanner.readDouble();
+            } else {
+                if (first == '#' || first == '%') {
+                    scanner.skipLine();
+                    continue;
+                }
+                u = scanner.readLong();
+                v = scanner.readLong();
+                w = scanner.hasNumberOnLine() ? scanner.readDouble() : 1.0;
+            }
+            if (scanner.failed()) {
+                throw malformed(path, "malformed edge line", scanner);
+            }
+            if (u < 0 || v < 0 || u >= nodeCount || v >= nodeCount) {
+                throw malformed(path, "node id out of range", scanner);
+            }
+            if (!(w >= 0)) {
+                throw malformed(path, "negative edge weight", scanner);
+            }
+            sink.edge((int) u, (int) v, w);
+            scanner.skipLine();
+        }
+    }
+
+    private static UncheckedIOException malformed(Path path, String problem, ByteScanner scanner) {
+        return new UncheckedIOException(new IOException(path + ": " + problem + " near line starting \""
+                + scanner.currentLine() + "\""));
+    }
+
+    /**
+     * Node and arc counts from the "p sp n m" line, which must come before the first arc
+     */
+    private static long[] dimacsHeader(Path path, ByteBuffer[] chunks) throws IOException {
+        for (var chunk : chunks) {
+            var scanner = new ByteScanner(chunk.duplicate());
+            while (scanner.skipBlankLines()) {
+                byte first = scanner.peek();
+                if (first == 'a') {
+                    throw new IOException(path + ": arc before the \"p sp n m\" problem line");
+                }
+                if (first == 'p') {
+                    scanner.advance();
+                    scanner.skipWord();
+                    long n = scanner.readLong();
+                    long m = scanner.readLong();
+                    if (scanner.failed() || n < 0 || n >= Integer.MAX_VALUE || m < 0) {
+                        throw new IOException(path + ": malformed problem line \"" + scanner.currentLine() + "\"");
+                    }
+                    return new long[]{n, m};
+                }
+                scanner.skipLine();
+            }
+        }
+        throw new IOException(path + ": missing \"p sp n m\" problem line");
+    }
+
+    /**
+     * Map the file as newline-aligned chunks: each chunk after the first starts right after
+     * the first newline at or past its nominal start, so every line lands in exactly one chunk
+     */
+    private static ByteBuffer[] split(FileChannel channel, ForkJoinPool pool) throws IOException {
+        long size = channel.size();
+        long byWork = Math.max(1, size / MIN_CHUNK_BYTES);
+        long bySize = (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES;
+        int count = (int) Math.max(bySize, Math.min(byWork, pool.getParallelism() * 4L));
+
+        var starts = new long[count + 1];
+        starts[count] = size;
+        for (int c = 1; c < count; c++) {
+            starts[c] = Math.max(starts[c - 1], lineStartAtOrAfter(channel, size * c / count, size));
+        }
+
+        var chunks = new ByteBuffer[count];
+        for (int c = 0; c < count; c++) {
+            long length = starts[c + 1] - starts[c];
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Line longer than " + MAX_CHUNK_BYTES + " bytes");
+            }
+            chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, starts[c], length);
+        }
+        return chunks;
+    }
+
+    private static long lineStartAtOrAfter(FileChannel channel, long position, long size) throws IOException {
+        var buffer = ByteBuffer.allocate(4096);
+        long at = position - 1;
+        while (at < size) {
+            buffer.clear();
+            int read = channel.read(buffer, at);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return at + i + 1;
+                }
+            }
+            at += read;
+        }
+        return size;
+    }
+
+    /**
+     * Sort targets[from, to) ascending by (target, weight), moving weights along
+     */
+    static void sortSegment(int[] targets, double[] weights, int from, int to) {
+        if (to - from <= 32) {
+            for (int i = from + 1; i < to; i++) {
+                int t = targets[i];
+                double w = weights[i];
+                int j = i - 1;
+                while (j >= from && (targets[j] > t || (targets[j] == t && weights[j] > w))) {
+                    targets[j + 1] = targets[j];
+                    weights[j + 1] = weights[j];
+                    j--;
+                }
+                targets[j + 1] = t;
+                weights[j + 1] = w;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sortSegment(targets, weights, from, mid);
+        sortSegment(targets, weights, mid, to);
+
+        // Merge the sorted halves through temporary copies of the left half
+        int leftSize = mid - from;
+        var leftTargets = new int[leftSize];
+        var leftWeights = new double[leftSize];
+        System.arraycopy(targets, from, leftTargets, 0, leftSize);
+        System.arraycopy(weights, from, leftWeights, 0, leftSize);
+        int i = 0;
+        int j = mid;
+        int k = from;
+        while (i < leftSize && j < to) {
+            if (targets[j] < leftTargets[i] || (targets[j] == leftTargets[i] && weights[j] < leftWeights[i])) {
+                targets[k] = targets[j];
+                weights[k++] = weights[j++];
+            } else {
+                targets[k] = leftTargets[i];
+                weights[k++] = leftWeights[i++];
+            }
+        }
+        while (i < leftSize) {
+            targets[k] = leftTargets[i];
+            weights[k++] = leftWeights[i++];
+        }
+    }
+
+    /**
+     * Cursor over the bytes of one chunk. Number reads skip spaces and tabs but never cross a
+     * line end; a failed read sets a flag instead of throwing so the caller can report the line.
+     */
+    private static final class ByteScanner {
+        private static final double[] POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+
+        private final ByteBuffer bytes;
+        private final int limit;
+        private int pos = 0;
+        private int lineStart = 0;
+        private boolean failed = false;
+
+        ByteScanner(ByteBuffer bytes) {
+            this.bytes = bytes;
+            this.limit = bytes.limit();
+        }
+
+        /**
+         * Move to the first non-blank byte of the next non-empty line; false at the end
+         */
+        boolean skipBlankLines() {
+            failed = false;
+            while (pos < limit) {
+                byte b = bytes.get(pos);
+                if (b == '\n') {
+                    pos++;
+                    lineStart = pos;
+                } else if (b == ' ' || b == '\t' || b == '\r') {
+                    pos++;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        byte peek() {
+            return bytes.get(pos);
+        }
+
+        void advance() {
+            pos++;
+        }
+
+        boolean failed() {
+            return failed;
+        }
+
+        void skipLine() {
+            while (pos < limit && bytes.get(pos) != '\n') {
+                pos++;
+            }
+            lineStart = pos + 1;
+        }
+
+        void skipWord() {
+            skipSpaces();
+            while (pos < limit && !isSpace(bytes.get(pos))) {
+                pos++;
+            }
+        }
+
+        boolean hasNumberOnLine() {
+            skipSpaces();
+            if (pos >= limit) {
+                return false;
+            }
+            byte b = bytes.get(pos);
+            return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.';
+        }
+
+        long readLong() {
+            skipSpaces();
+            boolean negative = false;
+            if (pos < limit && (bytes.get(pos) == '-' || bytes.get(pos) == '+')) {
+                negative = bytes.get(pos) == '-';
+                pos++;
+            }
+            int start = pos;
+            long value = 0;
+            while (pos < limit) {
+                byte b = bytes.get(pos);
+                if (b < '0' || b > '9') {
+                    break;
+                }
+                if (value > (Long.MAX_VALUE - 9) / 10) {
+                    failed = true;
+                    return 0;
+                }
+                value = value * 10 + (b - '0');
+                pos++;
+            }
+            if (pos == start || !atTokenEnd()) {
+                failed = true;
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Decimal number with optional fraction and exponent. Up to 15 significant digits and
+         * a decimal exponent within +-22 take the exact fast path (one multiply or divide of
+         * exactly representable values); longer numbers fall back to Double.parseDouble.
+         */
+        double readDouble() {
+            skipSpaces();
+            int tokenStart = pos;
+            boolean negative = false;
+            if (pos < limit && (bytes.get(pos) == '-' || bytes.get(pos) == '+')) {
+                negative = bytes.get(pos) == '-';
+                pos++;
+            }
+            int start = pos;
+            long mantissa = 0;
+            int scale = 0;
+            int digits = 0;
+            boolean fraction = false;
+            while (pos < limit) {
+                byte b = bytes.get(pos);
+                if (b >= '0' && b <= '9') {
+                    if (mantissa != 0 || b != '0') {
+                        digits++;
+                    }
+                    if (digits <= 15) {
+                        mantissa = mantissa * 10 + (b - '0');
+                        if (fraction) {
+                            scale--;
+                        }
+                    }
+                } else if (b == '.' && !fraction) {
+                    fraction = true;
+                } else {
+                    break;
+                }
+                pos++;
+            }
+            if (pos == start || (pos == start + 1 && fraction)) {
+                failed = true;
+                return 0;
+            }
+            if (pos < limit && (bytes.get(pos) == 'e' || bytes.get(pos) == 'E')) {
+                pos++;
+                scale += (int) readExponent();
+            }
+            if (!atTokenEnd()) {
+                failed = true;
+                return 0;
+            }
+            if (digits > 15 || scale < -22 || scale > 22) {
+                var text = new byte[pos - tokenStart];
+                bytes.get(tokenStart, text);
+                return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+            }
+            double value = scale >= 0 ? mantissa * POWERS_OF_TEN[scale] : mantissa / POWERS_OF_TEN[-scale];
+            return negative ? -value : value;
+        }
+
+        private long readExponent() {
+            boolean negative = false;
+            if (pos < limit && (bytes.get(pos) == '-' || bytes.get(pos) == '+')) {
+                negative = bytes.get(pos) == '-';
+                pos++;
+            }
+            int start = pos;
+            long value = 0;
+            while (pos < limit && bytes.get(pos) >= '0' && bytes.get(pos) <= '9' && value < 10_000) {
+                value = value * 10 + (bytes.get(pos) - '0');
+                pos++;
+            }
+            if (pos == start) {
+                failed = true;
+            }
+            return negative ? -value : value;
+        }
+
+        private boolean atTokenEnd() {
+            return pos >= limit || isSpace(bytes.get(pos));
+        }
+
+        private void skipSpaces() {
+            while (pos < limit) {
+                byte b = bytes.get(pos);
+                if (b != ' ' && b != '\t' && b != '\r') {
+                    break;
+                }
+                pos++;
+            }
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+        }
+
+        /**
+         * Text of the current line, for error messages only
+         */
+        String currentLine() {
+            int end = lineStart;
+            while (end < limit && end - lineStart < 80 && bytes.get(end) != '\n') {
+                end++;
+            }
+            var text = new byte[end - lineStart];
+            bytes.get(lineStart, text);
+            return new String(text, StandardCharsets.US_ASCII).trim();
+        }
+    }
+}
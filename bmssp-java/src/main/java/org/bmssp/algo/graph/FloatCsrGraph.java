@@ -0,0 +1,96 @@
+package org.bmssp.algo.graph;
+
+/**
+ * Immutable CSR graph with single-precision edge weights and int edge offsets.
+ *
+ * A relaxation streams a 4-byte target and a 4-byte weight instead of 4 + 8 bytes. Weights are
+ * rounded once when the graph is built; {@link #weight} widens them back exactly, so the engines
+ * run on it unchanged. Pair it with {@link org.bmssp.algo.util.DistanceStore#denseFloat} to keep
+ * the distances in single precision too.
+ */
+public final class FloatCsrGraph implements CsrView {
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final float[] weights;
+
+    /**
+     * @param offsets Edge offsets, length n + 1, non-decreasing, offsets[n] == targets.length
+     * @param targets Edge targets
+     * @param weights Edge weights, parallel to targets
+     */
+    public FloatCsrGraph(int[] offsets, int[] targets, float[] weights) {
+        if (offsets.length == 0) {
+            throw new IllegalArgumentException("offsets must have length n + 1");
+        }
+        if (targets.length != weights.length) {
+            throw new IllegalArgumentException("targets and weights must have the same length");
+        }
+        if (offsets[offsets.length - 1] != targets.length) {
+            throw new IllegalArgumentException("offsets[n] must equal the number of edges");
+        }
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Copy a graph with every weight rounded to the nearest float
+     */
+    public static FloatCsrGraph narrowed(CsrView graph) {
+        int n = graph.getNodeCount();
+        long m = graph.getEdgeCount();
+        if (m > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Graph has " + m + " edges, more than a FloatCsrGraph can index");
+        }
+        var offsets = new int[n + 1];
+        var targets = new int[(int) m];
+        var weights = new float[(int) m];
+        int next = 0;
+        for (int u = 0; u < n; u++) {
+            offsets[u] = next;
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                targets[next] = graph.target(e);
+                weights[next] = (float) graph.weight(e);
+                next++;
+            }
+        }
+        offsets[n] = next;
+        return new FloatCsrGraph(offsets, targets, weights);
+    }
+
+    @Override
+    public int getNodeCount() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return targets.length;
+    }
+
+    @Override
+    public long edgeStart(int node) {
+        return offsets[node];
+    }
+
+    @Override
+    public long edgeEnd(int node) {
+        return offsets[node + 1];
+    }
+
+    @Override
+    public int target(long edge) {
+        return targets[(int) edge];
+    }
+
+    @Override
+    public double weight(long edge) {
+        return weights[(int) edge];
+    }
+
+    @Override
+    public int getOutDegree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+}
@@ -0,0 +1,318 @@
+package org.bmssp.algo.graph;
+
+import org.bmssp.algo.util.Parallel;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.random.RandomGenerator;
+
+/**
+ * Synthetic graph families beyond the uniform random graph of {@link Graph#generate}.
+ *
+ * Uniform random graphs have a small diameter and no locality, which flatters some algorithms
+ * and hurts others, so benchmarks should also be run on graphs shaped like real inputs:
+ * road networks (planar, large diameter, low degree), social and web graphs (power-law degrees)
+ * and sensor or proximity networks (local, clustered). Every family is deterministic in its
+ * seed. Coordinates of the spatial families live in a sqrt(n) x sqrt(n) square, so one unit of
+ * weight is about the spacing between neighbouring nodes.
+ *
+ * {@link #generateParallel} builds the edge-stream families RANDOM and RMAT on a fork/join pool,
+ * for graphs too large to draw edge by edge from one Random.
+ */
+public final class GraphGenerator {
+
+    public enum Family {
+        /** Random tree backbone plus uniform random edges, weights in [1, 100), see {@link Graph#generate} */
+        RANDOM,
+        /** Road-like jittered grid: two-way lattice streets with Euclidean weights; m is ignored (about 4n edges) */
+        GRID,
+        /** R-MAT power-law graph with m edges, (a, b, c, d) = (0.57, 0.19, 0.19, 0.05), weights in [1, 100) */
+        RMAT,
+        /** Random geometric graph: uniform points joined both ways when closer than a radius giving about m edges */
+        GEOMETRIC
+    }
+
+    private static final double MAX_WEIGHT = 100.0;
+
+    /** Largest offset of a grid node from its lattice point, per coordinate */
+    private static final double GRID_JITTER = 0.35;
+    /** Every ARTERIAL_SPACING-th row and column is an arterial road */
+    private static final int ARTERIAL_SPACING = 8;
+    /** Travel-time divisor of arterial edges */
+    private static final double ARTERIAL_SPEEDUP = 2.0;
+
+    private static final double RMAT_A = 0.57;
+    private static final double RMAT_B = 0.19;
+    private static final double RMAT_C = 0.19;
+
+    /** Edges per parallel generation chunk; fixed so the graph does not depend on the pool */
+    private static final int CHUNK_EDGES = 1 << 18;
+
+    private GraphGenerator() {
+    }
+
+    public static CsrGraph generate(Family family, int n, int m, long seed) {
+        if (n < 0 || m < 0) {
+            throw new IllegalArgumentException("n and m must be non-negative");
+        }
+        var random = new Random(seed);
+        return switch (family) {
+            case RANDOM -> CsrGraph.from(Graph.generate(n, m, MAX_WEIGHT, random));
+            case GRID -> grid(n, random);
+            case RMAT -> rmat(n, m, random);
+            case GEOMETRIC -> geometric(n, m, random);
+        };
+    }
+
+    /**
+     * Nodes in row-major order on a ceil(sqrt(n)) wide lattice, the last row possibly partial.
+     * Each node moves off its lattice point by up to GRID_JITTER and is joined both ways to its
+     * right and lower neighbours; an edge weighs its Euclidean length, halved on the arterial rows
+     * and columns so shortest paths prefer them, as travel times on a road network do.
+     */
+    static CsrGraph grid(int n, Random random) {
+        int width = Math.max(1, (int) Math.ceil(Math.sqrt(n)));
+        var x = new double[n];
+        var y = new double[n];
+        for (int v = 0; v < n; v++) {
+            x[v] = v % width + (random.nextDouble() * 2.0 - 1.0) * GRID_JITTER;
+            y[v] = v / width + (random.nextDouble() * 2.0 - 1.0) * GRID_JITTER;
+        }
+
+        var builder = CsrGraph.builder(n);
+        for (int v = 0; v < n; v++) {
+            int column = v % width;
+            int row = v / width;
+            if (column + 1 < width && v + 1 < n) {
+                addStreet(builder, x, y, v, v + 1, row % ARTERIAL_SPACING == 0);
+            }
+            if (v + width < n) {
+                addStreet(builder, x, y, v, v + width, column % ARTERIAL_SPACING == 0);
+            }
+        }
+        return builder.build();
+    }
+
+    private static void addStreet(CsrGraph.Builder builder, double[] x, double[] y, int u, int v, boolean arterial) {
+        double w = Math.hypot(x[u] - x[v], y[u] - y[v]);
+        if (arterial) {
+            w /= ARTERIAL_SPEEDUP;
+        }
+        builder.addEdge(u, v, w);
+        builder.addEdge(v, u, w);
+    }
+
+    /**
+     * Each edge picks one quadrant of the adjacency matrix per bit of the ids with probabilities
+     * (a, b, c, d), recursively, which yields power-law in- and out-degrees. Ids are drawn from
+     * the next power of two above n; pairs outside [0, n) and self-loops are drawn again. Ids are
+     * then relabeled by a random permutation so degree does not correlate with id. Parallel edges
+     * are kept and there is no backbone, so low-degree nodes may be unreachable.
+     */
+    static CsrGraph rmat(int n, int m, Random random) {
+        var builder = CsrGraph.builder(n);
+        if (n < 2) {
+            return builder.build();
+        }
+        var permutation = shuffledIds(n, random);
+        for (int i = 0; i < m; i++) {
+            rmatEdge(n, permutation, random, builder::addEdge);
+        }
+        return builder.build();
+    }
+
+    private static int[] shuffledIds(int n, RandomGenerator random) {
+        var permutation = new int[n];
+        for (int v = 0; v < n; v++) {
+            permutation[v] = v;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = tmp;
+        }
+        return permutation;
+    }
+
+    /**
+     * Draw one R-MAT edge and its weight, relabeled through permutation
+     */
+    private static void rmatEdge(int n, int[] permutation, RandomGenerator random, EdgeSink sink) {
+        int scale = 32 - Integer.numberOfLeadingZeros(n - 1);
+        int u;
+        int v;
+        do {
+            u = 0;
+            v = 0;
+            for (int bit = 1 << (scale - 1); bit != 0; bit >>>= 1) {
+                double r = random.nextDouble();
+                if (r >= RMAT_A + RMAT_B + RMAT_C) {
+                    u |= bit;
+                    v |= bit;
+                } else if (r >= RMAT_A + RMAT_B) {
+                    u |= bit;
+                } else if (r >= RMAT_A) {
+                    v |= bit;
+                }
+            }
+        } while (u >= n || v >= n || u == v);
+        double w = random.nextDouble() * (MAX_WEIGHT - 1.0) + 1.0;
+        sink.edge(permutation[u], permutation[v], w);
+    }
+
+    /**
+     * Generate a RANDOM or RMAT graph on the pool, straight into CSR arrays.
+     *
+     * The edge index range is cut into fixed chunks of CHUNK_EDGES, and chunk c draws its edges
+     * from a SplittableRandom seeded with the c-th output of a root generator, so the same seed
+     * gives the same graph on any number of threads. A first pass draws every chunk to count
+     * out-degrees, a second one draws it again and writes each edge into its node's segment
+     * through an atomic cursor, and each segment is then sorted by (target, weight) to undo the
+     * interleaving of chunks. The draws differ from {@link #generate}'s, so the graph is not the
+     * sequential one for the same seed, but it has the same distribution: for RANDOM, edge
+     * k < n - 1 is the backbone edge into node k + 1 and the rest are uniform. GRID and
+     * GEOMETRIC are not edge streams and are built by {@link #generate}.
+     */
+    public static CsrGraph generateParallel(Family family, int n, int m, long seed, ForkJoinPool pool) {
+        if (n < 0 || m < 0) {
+            throw new IllegalArgumentException("n and m must be non-negative");
+        }
+        if (family == Family.GRID || family == Family.GEOMETRIC) {
+            return generate(family, n, m, seed);
+        }
+        var root = new SplittableRandom(seed);
+        int[] permutation = family == Family.RMAT ? shuffledIds(n, root) : null;
+        int edgeCount = switch (family) {
+            case RANDOM -> n == 0 ? 0 : Math.max(m, n - 1);
+            case RMAT -> n < 2 ? 0 : m;
+            default -> throw new AssertionError(family);
+        };
+        int chunks = (int) (((long) edgeCount + CHUNK_EDGES - 1) / CHUNK_EDGES);
+        var chunkSeeds = new long[chunks];
+        for (int c = 0; c < chunks; c++) {
+            chunkSeeds[c] = root.nextLong();
+        }
+
+        // Pass 1: out-degrees
+        var degree = new AtomicIntegerArray(n);
+        Parallel.forEachChunk(pool, chunks, c ->
+                generateChunk(family, n, permutation, chunkSeeds[c], edgeCount, c,
+                        (u, v, w) -> degree.incrementAndGet(u)));
+
+        var offsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] = offsets[u] + degree.get(u);
+        }
+
+        // Pass 2: draw the same edges again and fill each node's segment through an atomic cursor
+        var cursor = new AtomicIntegerArray(offsets);
+        var targets = new int[edgeCount];
+        var weights = new double[edgeCount];
+        Parallel.forEachChunk(pool, chunks, c ->
+                generateChunk(family, n, permutation, chunkSeeds[c], edgeCount, c, (u, v, w) -> {
+                    int e = cursor.getAndIncrement(u);
+                    targets[e] = v;
+                    weights[e] = w;
+                }));
+
+        int sortChunks = Parallel.chunkCount(pool, n, 1 << 14);
+        Parallel.forEachChunk(pool, sortChunks, c -> {
+            for (int u = Parallel.chunkStart(n, sortChunks, c), end = Parallel.chunkStart(n, sortChunks, c + 1);
+                 u < end; u++) {
+                EdgeListReader.sortSegment(targets, weights, offsets[u], offsets[u + 1]);
+            }
+        });
+        return new CsrGraph(offsets, targets, weights);
+    }
+
+    private static void generateChunk(Family family, int n, int[] permutation, long chunkSeed, int edgeCount,
+                                      int chunk, EdgeSink sink) {
+        var random = new SplittableRandom(chunkSeed);
+        int start = chunk * CHUNK_EDGES;
+        int end = (int) Math.min(edgeCount, (long) start + CHUNK_EDGES);
+        for (int k = start; k < end; k++) {
+            if (family == Family.RMAT) {
+                rmatEdge(n, permutation, random, sink);
+            } else if (k < n - 1) {
+                sink.edge(random.nextInt(k + 1), k + 1, random.nextDouble() * (MAX_WEIGHT - 1.0) + 1.0);
+            } else {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                sink.edge(u, v, random.nextDouble() * (MAX_WEIGHT - 1.0) + 1.0);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface EdgeSink {
+        void edge(int u, int v, double w);
+    }
+
+    /**
+     * n uniform points in the sqrt(n) x sqrt(n) square; every pair closer than
+     * r = sqrt((m / n) / pi) is joined both ways with its Euclidean length as weight, so a node
+     * expects m / n out-edges. Points are bucketed into cells at least r wide, so only the 3 x 3
+     * cells around a point are searched. Sparse settings leave the graph disconnected.
+     */
+    static CsrGraph geometric(int n, int m, Random random) {
+        var builder = CsrGraph.builder(n);
+        if (n < 2 || m == 0) {
+            return builder.build();
+        }
+        double side = Math.sqrt(n);
+        double radius = Math.sqrt((double) m / n / Math.PI);
+        var x = new double[n];
+        var y = new double[n];
+        for (int v = 0; v < n; v++) {
+            x[v] = random.nextDouble() * side;
+            y[v] = random.nextDouble() * side;
+        }
+
+        // Counting sort of the points by cell, row-major
+        int cellsPerSide = (int) Math.max(1, Math.min(Math.ceil(side), Math.floor(side / radius)));
+        double cellSize = side / cellsPerSide;
+        var cellOf = new int[n];
+        var cellStart = new int[cellsPerSide * cellsPerSide + 1];
+        for (int v = 0; v < n; v++) {
+            cellOf[v] = cell(y[v], cellSize, cellsPerSide) * cellsPerSide + cell(x[v], cellSize, cellsPerSide);
+            cellStart[cellOf[v] + 1]++;
+        }
+        for (int c = 0; c < cellsPerSide * cellsPerSide; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        var cursor = new int[cellsPerSide * cellsPerSide];
+        System.arraycopy(cellStart, 0, cursor, 0, cursor.length);
+        var byCell = new int[n];
+        for (int v = 0; v < n; v++) {
+            byCell[cursor[cellOf[v]]++] = v;
+        }
+
+        double radiusSquared = radius * radius;
+        for (int u = 0; u < n; u++) {
+            int row = cellOf[u] / cellsPerSide;
+            int column = cellOf[u] % cellsPerSide;
+            for (int r = Math.max(0, row - 1); r <= Math.min(cellsPerSide - 1, row + 1); r++) {
+                for (int c = Math.max(0, column - 1); c <= Math.min(cellsPerSide - 1, column + 1); c++) {
+                    int cell = r * cellsPerSide + c;
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                        int v = byCell[i];
+                        double dx = x[u] - x[v];
+                        double dy = y[u] - y[v];
+                        double squared = dx * dx + dy * dy;
+                        if (v != u && squared < radiusSquared) {
+                            builder.addEdge(u, v, Math.sqrt(squared));
+                        }
+                    }
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private static int cell(double coordinate, double cellSize, int cellsPerSide) {
+        return Math.min(cellsPerSide - 1, (int) (coordinate / cellSize));
+    }
+}
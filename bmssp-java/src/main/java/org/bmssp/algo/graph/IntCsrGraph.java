@@ -0,0 +1,125 @@
+package org.bmssp.algo.graph;
+
+/**
+ * Immutable CSR graph with non-negative integer edge weights, e.g. travel times in deciseconds.
+ *
+ * {@link #weight} widens to double, so every engine runs on it unchanged and, since integer sums
+ * below 2^53 are exact doubles, without rounding. The integer engines read {@link #intWeight}
+ * instead: {@link org.bmssp.algo.IntDijkstra} with long distances, and BASECASE, which switches
+ * to a radix heap on this graph.
+ */
+public final class IntCsrGraph implements CsrView {
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final int maxWeight;
+
+    /**
+     * @param offsets Edge offsets, length n + 1, non-decreasing, offsets[n] == targets.length
+     * @param targets Edge targets
+     * @param weights Edge weights, parallel to targets, all >= 0
+     */
+    public IntCsrGraph(int[] offsets, int[] targets, int[] weights) {
+        if (offsets.length == 0) {
+            throw new IllegalArgumentException("offsets must have length n + 1");
+        }
+        if (targets.length != weights.length) {
+            throw new IllegalArgumentException("targets and weights must have the same length");
+        }
+        if (offsets[offsets.length - 1] != targets.length) {
+            throw new IllegalArgumentException("offsets[n] must equal the number of edges");
+        }
+        int max = 0;
+        for (int w : weights) {
+            if (w < 0) {
+                throw new IllegalArgumentException("Edge weights must be non-negative, got " + w);
+            }
+            max = Math.max(max, w);
+        }
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.maxWeight = max;
+    }
+
+    /**
+     * Copy a graph with every weight multiplied by scale and rounded to the nearest integer,
+     * e.g. scale 10 turns seconds into deciseconds
+     */
+    public static IntCsrGraph scaled(CsrView graph, double scale) {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("scale must be positive");
+        }
+        int n = graph.getNodeCount();
+        long m = graph.getEdgeCount();
+        if (m > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Graph has " + m + " edges, more than an IntCsrGraph can index");
+        }
+        var offsets = new int[n + 1];
+        var targets = new int[(int) m];
+        var weights = new int[(int) m];
+        int next = 0;
+        for (int u = 0; u < n; u++) {
+            offsets[u] = next;
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                double w = Math.rint(graph.weight(e) * scale);
+                if (!(w >= 0 && w <= Integer.MAX_VALUE)) {
+                    throw new IllegalArgumentException("Weight " + graph.weight(e) + " of edge " + e
+                            + " does not scale to a non-negative int");
+                }
+                targets[next] = graph.target(e);
+                weights[next] = (int) w;
+                next++;
+            }
+        }
+        offsets[n] = next;
+        return new IntCsrGraph(offsets, targets, weights);
+    }
+
+    @Override
+    public int getNodeCount() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return targets.length;
+    }
+
+    @Override
+    public long edgeStart(int node) {
+        return offsets[node];
+    }
+
+    @Override
+    public long edgeEnd(int node) {
+        return offsets[node + 1];
+    }
+
+    @Override
+    public int target(long edge) {
+        return targets[(int) edge];
+    }
+
+    @Override
+    public double weight(long edge) {
+        return weights[(int) edge];
+    }
+
+    public int intWeight(long edge) {
+        return weights[(int) edge];
+    }
+
+    /**
+     * Largest edge weight, 0 for a graph without edges
+     */
+    public int getMaxWeight() {
+        return maxWeight;
+    }
+
+    @Override
+    public int getOutDegree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+}
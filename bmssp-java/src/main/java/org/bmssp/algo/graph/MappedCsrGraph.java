@@ -0,0 +1,54 @@
+package org.bmssp.algo.graph;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * CSR graph served straight from a memory-mapped {@link CsrSnapshot}.
+ *
+ * Loading only maps the file, so it costs the same for any graph size; pages are faulted in
+ * as the algorithms touch them and are shared through the page cache with every other process
+ * mapping the same file. Only absolute reads are used, so concurrent queries are safe.
+ */
+public final class MappedCsrGraph implements CsrView {
+
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final DoubleBuffer weights;
+
+    MappedCsrGraph(IntBuffer offsets, IntBuffer targets, DoubleBuffer weights) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return offsets.capacity() - 1;
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return targets.capacity();
+    }
+
+    @Override
+    public long edgeStart(int node) {
+        return offsets.get(node);
+    }
+
+    @Override
+    public long edgeEnd(int node) {
+        return offsets.get(node + 1);
+    }
+
+    @Override
+    public int target(long edge) {
+        return targets.get((int) edge);
+    }
+
+    @Override
+    public double weight(long edge) {
+        return weights.get((int) edge);
+    }
+}
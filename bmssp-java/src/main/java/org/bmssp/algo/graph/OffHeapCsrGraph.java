@@ -0,0 +1,313 @@
+package org.bmssp.algo.graph;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * CSR graph stored off-heap in {@link MemorySegment}s, with long edge offsets.
+ *
+ * The arrays live outside the Java heap, so graphs with billions of edges neither need a giant
+ * heap nor add to GC work, and the edge count is not limited by int array indexing. The memory
+ * belongs to a shared {@link Arena}: reads are safe from any thread until {@link #close()}
+ * frees it, after which every access throws.
+ */
+public final class OffHeapCsrGraph implements CsrView, AutoCloseable {
+
+    private final Arena arena;
+    private final int nodeCount;
+    private final long edgeCount;
+    private final MemorySegment offsets;
+    private final MemorySegment targets;
+    private final MemorySegment weights;
+
+    private OffHeapCsrGraph(Arena arena, int nodeCount, long edgeCount,
+                            MemorySegment offsets, MemorySegment targets, MemorySegment weights) {
+        this.arena = arena;
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public long edgeStart(int node) {
+        return offsets.getAtIndex(ValueLayout.JAVA_LONG, node);
+    }
+
+    @Override
+    public long edgeEnd(int node) {
+        return offsets.getAtIndex(ValueLayout.JAVA_LONG, node + 1L);
+    }
+
+    @Override
+    public int target(long edge) {
+        return targets.getAtIndex(ValueLayout.JAVA_INT, edge);
+    }
+
+    @Override
+    public double weight(long edge) {
+        return weights.getAtIndex(ValueLayout.JAVA_DOUBLE, edge);
+    }
+
+    /**
+     * Bytes of off-heap memory held by this graph
+     */
+    public long byteSize() {
+        return offsets.byteSize() + targets.byteSize() + weights.byteSize();
+    }
+
+    /**
+     * Free the off-heap memory; no query may be running on the graph
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Copy any CSR graph off-heap, keeping its edge order
+     */
+    public static OffHeapCsrGraph copyOf(CsrView graph) {
+        try (var builder = builder(graph.getNodeCount(), graph.getEdgeCount())) {
+            for (int u = 0; u < graph.getNodeCount(); u++) {
+                for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                    builder.addEdge(u, graph.target(e), graph.weight(e));
+                }
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * @param nodeCount Number of nodes
+     * @param edgeCount Exact number of edges that will be added
+     */
+    public static Builder builder(int nodeCount, long edgeCount) {
+        return new Builder(nodeCount, edgeCount);
+    }
+
+    /**
+     * Off-heap graph whose edge ranges are fixed by the out-degrees up front and whose edges
+     * are then written in any order, for inputs that are not grouped by source
+     *
+     * @param degree Out-degree of each node
+     * @param edgeCount Sum of the degrees
+     */
+    static Filler filler(int nodeCount, long edgeCount, IntUnaryOperator degree) {
+        return new Filler(nodeCount, edgeCount, degree);
+    }
+
+    /**
+     * Streams edges straight into off-heap memory sized up front. Edges must arrive grouped by
+     * source in non-decreasing source order, so no temporary edge list is ever held.
+     *
+     * The builder owns its arena until {@link #build()} hands it to the graph, so use it in a
+     * try-with-resources block: closing a builder that was never built frees the memory, closing
+     * one that was built does nothing.
+     */
+    public static final class Builder implements AutoCloseable {
+        private final Arena arena = Arena.ofShared();
+        private final int nodeCount;
+        private final long edgeCount;
+        private final MemorySegment offsets;
+        private final MemorySegment targets;
+        private final MemorySegment weights;
+        private int currentSource = 0;
+        private long size = 0;
+        private boolean built = false;
+        private boolean closed = false;
+
+        private Builder(int nodeCount, long edgeCount) {
+            if (nodeCount < 0 || edgeCount < 0) {
+                throw new IllegalArgumentException("nodeCount and edgeCount must be non-negative");
+            }
+            this.nodeCount = nodeCount;
+            this.edgeCount = edgeCount;
+            try {
+                this.offsets = arena.allocate((nodeCount + 1L) * Long.BYTES, Long.BYTES);
+                this.targets = arena.allocate(Math.max(1, edgeCount) * Integer.BYTES, Integer.BYTES);
+                this.weights = arena.allocate(Math.max(1, edgeCount) * Double.BYTES, Double.BYTES);
+            } catch (RuntimeException | Error e) {
+                arena.close();
+                throw e;
+            }
+            offsets.setAtIndex(ValueLayout.JAVA_LONG, 0, 0L);
+        }
+
+        public Builder addEdge(int u, int v, double w) {
+            checkOpen();
+            if (u < currentSource) {
+                throw new IllegalStateException("Edges must be added in non-decreasing source order, got "
+                        + u + " after " + currentSource);
+            }
+            if (u >= nodeCount || v < 0 || v >= nodeCount) {
+                throw new IndexOutOfBoundsException("Edge (" + u + ", " + v + ") outside [0, " + nodeCount + ")");
+            }
+            if (!(w >= 0) || w == Double.POSITIVE_INFINITY) {
+                throw new IllegalArgumentException("Edge weights must be finite and non-negative, got " + w);
+            }
+            if (size == edgeCount) {
+                throw new IllegalStateException("More than the declared " + edgeCount + " edges");
+            }
+            closeSourcesUpTo(u);
+            targets.setAtIndex(ValueLayout.JAVA_INT, size, v);
+            weights.setAtIndex(ValueLayout.JAVA_DOUBLE, size, w);
+            size++;
+            return this;
+        }
+
+        /**
+         * Record the end offset of every source before u
+         */
+        private void closeSourcesUpTo(int u) {
+            while (currentSource < u) {
+                currentSource++;
+                offsets.setAtIndex(ValueLayout.JAVA_LONG, currentSource, size);
+            }
+        }
+
+        private void checkOpen() {
+            if (built) {
+                throw new IllegalStateException("Builder already built");
+            }
+            if (closed) {
+                throw new IllegalStateException("Builder closed");
+            }
+        }
+
+        /**
+         * Hand the arena to a new graph; the builder cannot be used afterwards
+         */
+        public OffHeapCsrGraph build() {
+            checkOpen();
+            if (size != edgeCount) {
+                throw new IllegalStateException("Declared " + edgeCount + " edges but added " + size);
+            }
+            closeSourcesUpTo(nodeCount);
+            built = true;
+            return new OffHeapCsrGraph(arena, nodeCount, edgeCount, offsets, targets, weights);
+        }
+
+        /**
+         * Free the off-heap memory unless {@link #build()} already handed it to a graph
+         */
+        @Override
+        public void close() {
+            if (!built && !closed) {
+                closed = true;
+                arena.close();
+            }
+        }
+    }
+
+    /**
+     * Writes edges at given indices of off-heap memory sized from the out-degrees. Each edge
+     * index must be written exactly once; distinct indices may be written from different
+     * threads. Like {@link Builder}, the filler owns its arena until {@link #build()}, so close
+     * it in a try-with-resources block.
+     */
+    static final class Filler implements AutoCloseable {
+        private final Arena arena = Arena.ofShared();
+        private final int nodeCount;
+        private final long edgeCount;
+        private final MemorySegment offsets;
+        private final MemorySegment targets;
+        private final MemorySegment weights;
+        private boolean built = false;
+        private boolean closed = false;
+
+        private Filler(int nodeCount, long edgeCount, IntUnaryOperator degree) {
+            if (nodeCount < 0 || edgeCount < 0) {
+                throw new IllegalArgumentException("nodeCount and edgeCount must be non-negative");
+            }
+            this.nodeCount = nodeCount;
+            this.edgeCount = edgeCount;
+            try {
+                this.offsets = arena.allocate((nodeCount + 1L) * Long.BYTES, Long.BYTES);
+                this.targets = arena.allocate(Math.max(1, edgeCount) * Integer.BYTES, Integer.BYTES);
+                this.weights = arena.allocate(Math.max(1, edgeCount) * Double.BYTES, Double.BYTES);
+                long offset = 0;
+                for (int u = 0; u < nodeCount; u++) {
+                    offsets.setAtIndex(ValueLayout.JAVA_LONG, u, offset);
+                    offset += degree.applyAsInt(u);
+                }
+                offsets.setAtIndex(ValueLayout.JAVA_LONG, nodeCount, offset);
+                if (offset != edgeCount) {
+                    throw new IllegalArgumentException("Degrees sum to " + offset + ", not " + edgeCount);
+                }
+            } catch (RuntimeException | Error e) {
+                arena.close();
+                throw e;
+            }
+        }
+
+        long edgeStart(int node) {
+            return offsets.getAtIndex(ValueLayout.JAVA_LONG, node);
+        }
+
+        /**
+         * Unchecked: the loader has already validated v and w against the graph
+         */
+        void setEdge(long edge, int v, double w) {
+            targets.setAtIndex(ValueLayout.JAVA_INT, edge, v);
+            weights.setAtIndex(ValueLayout.JAVA_DOUBLE, edge, w);
+        }
+
+        /**
+         * Sort node's edges by (target, weight) through temporary on-heap copies of its segment
+         */
+        void sortSegment(int node) {
+            long from = edgeStart(node);
+            int degree = (int) (offsets.getAtIndex(ValueLayout.JAVA_LONG, node + 1L) - from);
+            if (degree < 2) {
+                return;
+            }
+            var segmentTargets = new int[degree];
+            var segmentWeights = new double[degree];
+            for (int i = 0; i < degree; i++) {
+                segmentTargets[i] = targets.getAtIndex(ValueLayout.JAVA_INT, from + i);
+                segmentWeights[i] = weights.getAtIndex(ValueLayout.JAVA_DOUBLE, from + i);
+            }
+            EdgeListReader.sortSegment(segmentTargets, segmentWeights, 0, degree);
+            for (int i = 0; i < degree; i++) {
+                targets.setAtIndex(ValueLayout.JAVA_INT, from + i, segmentTargets[i]);
+                weights.setAtIndex(ValueLayout.JAVA_DOUBLE, from + i, segmentWeights[i]);
+            }
+        }
+
+        /**
+         * Hand the arena to a new graph; the filler cannot be used afterwards
+         */
+        OffHeapCsrGraph build() {
+            if (built || closed) {
+                throw new IllegalStateException(built ? "Filler already built" : "Filler closed");
+            }
+            built = true;
+            return new OffHeapCsrGraph(arena, nodeCount, edgeCount, offsets, targets, weights);
+        }
+
+        /**
+         * Free the off-heap memory unless {@link #build()} already handed it to a graph
+         */
+        @Override
+        public void close() {
+            if (!built && !closed) {
+                closed = true;
+                arena.close();
+            }
+        }
+    }
+}
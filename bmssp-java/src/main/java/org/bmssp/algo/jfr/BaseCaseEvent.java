@@ -0,0 +1,40 @@
+package org.bmssp.algo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One BASECASE expansion
+ */
+@Name("org.bmssp.BaseCase")
+@Label("BASECASE")
+@Category("BMSSP")
+@StackTrace(false)
+public class BaseCaseEvent extends Event {
+
+    @Label("Bound")
+    public double bound;
+
+    @Label("Sources")
+    @Description("|S|")
+    public int sources;
+
+    @Label("Limit")
+    @Description("k; the expansion stops after k + 1 nodes")
+    public int limit;
+
+    @Label("Completed")
+    @Description("|U| returned")
+    public int completed;
+
+    @Label("New Bound")
+    @Description("B' returned")
+    public double newBound;
+
+    @Label("Relaxations")
+    public long relaxations;
+}
@@ -0,0 +1,26 @@
+package org.bmssp.algo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One DataStructureD.batchPrepend
+ */
+@Name("org.bmssp.BatchPrepend")
+@Label("D.batchPrepend")
+@Category({"BMSSP", "DataStructure D"})
+@StackTrace(false)
+public class BatchPrependEvent extends Event {
+
+    @Label("Depth")
+    public int depth;
+
+    @Label("Data Structure")
+    public String dataStructure;
+
+    @Label("Pairs")
+    public int pairs;
+}
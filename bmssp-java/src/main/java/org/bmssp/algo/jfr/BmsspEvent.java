@@ -0,0 +1,43 @@
+package org.bmssp.algo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One BMSSP call, including its recursive calls; base-case calls (depth 0) included
+ */
+@Name("org.bmssp.Bmssp")
+@Label("BMSSP Call")
+@Category("BMSSP")
+@Description("A BMSSP recursion frame, including the frames it spawned")
+@StackTrace(false)
+public class BmsspEvent extends Event {
+
+    @Label("Depth")
+    @Description("Recursion depth parameter l; the top-level call has the largest")
+    public int depth;
+
+    @Label("Bound")
+    @Description("Upper bound B of the call")
+    public double bound;
+
+    @Label("Sources")
+    @Description("|S|")
+    public int sources;
+
+    @Label("Completed")
+    @Description("|U| returned")
+    public int completed;
+
+    @Label("New Bound")
+    @Description("B' returned")
+    public double newBound;
+
+    @Label("Relaxations")
+    @Description("Edges relaxed by the call and everything below it")
+    public long relaxations;
+}
@@ -0,0 +1,42 @@
+package org.bmssp.algo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One FIND_PIVOTS pass of a BMSSP call
+ */
+@Name("org.bmssp.FindPivots")
+@Label("FIND_PIVOTS")
+@Category("BMSSP")
+@StackTrace(false)
+public class FindPivotsEvent extends Event {
+
+    @Label("Depth")
+    public int depth;
+
+    @Label("Bound")
+    public double bound;
+
+    @Label("Sources")
+    @Description("|S|")
+    public int sources;
+
+    @Label("Pivots")
+    @Description("|P|")
+    public int pivots;
+
+    @Label("Discovered")
+    @Description("|W|")
+    public int discovered;
+
+    @Label("Relaxations")
+    public long relaxations;
+
+    @Label("Parallel")
+    public boolean parallel;
+}
@@ -0,0 +1,32 @@
+package org.bmssp.algo.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One DataStructureD.pull
+ */
+@Name("org.bmssp.Pull")
+@Label("D.pull")
+@Category({"BMSSP", "DataStructure D"})
+@StackTrace(false)
+public class PullEvent extends Event {
+
+    @Label("Depth")
+    public int depth;
+
+    @Label("Data Structure")
+    public String dataStructure;
+
+    @Label("Pulled")
+    @Description("|Si|")
+    public int pulled;
+
+    @Label("Separator")
+    @Description("Bi returned with the pulled nodes")
+    public double separator;
+}
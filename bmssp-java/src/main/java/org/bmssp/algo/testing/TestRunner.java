@@ -1,109 +1,590 @@
 package org.bmssp.algo.testing;
 
 import org.bmssp.algo.BMSSP;
+import org.bmssp.algo.Ball;
+import org.bmssp.algo.BidirectionalDijkstra;
+import org.bmssp.algo.BmsspConfig;
+import org.bmssp.algo.BmsspTuner;
+import org.bmssp.algo.DeltaStepping;
 import org.bmssp.algo.Dijkstra;
-import org.bmssp.algo.graph.Graph;
+import org.bmssp.algo.DynamicSssp;
+import org.bmssp.algo.IntDijkstra;
+import org.bmssp.algo.QueryEngine;
+import org.bmssp.algo.QueryWorkspace;
+import org.bmssp.algo.graph.CsrGraph;
+import org.bmssp.algo.graph.CsrView;
+import org.bmssp.algo.graph.DynamicCsrGraph;
+import org.bmssp.algo.graph.FloatCsrGraph;
+import org.bmssp.algo.graph.GraphGenerator;
+import org.bmssp.algo.graph.IntCsrGraph;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.IndexedDaryHeap;
 import org.bmssp.algo.util.Instrument;
+import org.bmssp.algo.util.NodeSet;
+import org.bmssp.algo.util.RadixHeap;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Test harness for comparing BMSSP and Dijkstra algorithms
+ * Test harness for comparing BMSSP, Dijkstra and delta-stepping
  */
 public class TestRunner {
 
     public record TestResult(
-            int n, int m, int seed,
+            int n, long m, int seed,
             double dijkstraTime, long dijkstraRelaxations,
             double bmsspTime, long bmsspRelaxations,
             long dijkstraReachable, long bmsspReachable,
-            double maxDiff
+            double maxDiff,
+            double deltaTime, long deltaRelaxations, long deltaReachable,
+            double deltaMaxDiff
+    ) {}
+
+    /**
+     * Full-graph runs against runs that stop once the targets are settled. Max diffs are taken
+     * over the targets against the full Dijkstra run.
+     */
+    public record TargetResult(
+            int targets,
+            double dijkstraTime, long dijkstraRelaxations,
+            double earlyDijkstraTime, long earlyDijkstraRelaxations,
+            double bidirectionalTime, long bidirectionalRelaxations,
+            double bmsspTime, long bmsspRelaxations,
+            double earlyBmsspTime, long earlyBmsspRelaxations,
+            double exactMaxDiff, double bmsspMaxDiff
+    ) {}
+
+    /**
+     * Bounded Dijkstra and BMSSP ball queries of the same radius
+     *
+     * @param missing Nodes of the Dijkstra ball absent from the BMSSP ball
+     * @param maxDiff Max abs distance difference on nodes in both balls
+     */
+    public record BallResult(
+            double radius,
+            double dijkstraTime, long dijkstraRelaxations, int dijkstraSize,
+            double bmsspTime, long bmsspRelaxations, int bmsspSize, boolean bmsspComplete,
+            int missing, double maxDiff
+    ) {}
+
+    /**
+     * Dijkstra and BMSSP in double precision against the same engines on single-precision
+     * weights and distances. Max diffs are taken over nodes both runs of an engine reach.
+     */
+    public record PrecisionResult(
+            double dijkstraTime, double floatDijkstraTime, double dijkstraMaxDiff,
+            double bmsspTime, double floatBmsspTime, double bmsspMaxDiff
+    ) {}
+
+    /**
+     * Incremental repair after each of a stream of edge updates against one full rerun on the
+     * final graph
+     *
+     * @param relabeled Labels rewritten by all repairs together
+     * @param maxDiff Max abs distance difference to a fresh Dijkstra run over all nodes;
+     *                +infinity if the two disagree on which nodes are reachable
+     */
+    public record DynamicResult(
+            int updates, double repairTime, long repairRelaxations, long relabeled,
+            double rerunTime, long rerunRelaxations, double maxDiff
     ) {}
 
     /**
      * Run a single test comparing BMSSP and Dijkstra
      */
     public static TestResult runSingleTest(int n, int m, int seed, int source) {
-        System.out.printf("Generating graph: n=%d, m=%d, seed=%d%n", n, m, seed);
+        return runSingleTest(n, m, seed, source, BmsspConfig.defaults());
+    }
+
+    /**
+     * Run a single test comparing BMSSP and Dijkstra with the given implementation choices
+     */
+    public static TestResult runSingleTest(int n, int m, int seed, int source, BmsspConfig config) {
+        return runSingleTest(n, m, seed, source, config, 0.0);
+    }
+
+    /**
+     * Run a single test comparing all engines
+     *
+     * @param delta Bucket width for delta-stepping; <= 0 picks {@link DeltaStepping#defaultDelta}
+     */
+    public static TestResult runSingleTest(int n, int m, int seed, int source, BmsspConfig config, double delta) {
+        return runSingleTest(generateGraph(n, m, seed), seed, source, config, delta);
+    }
+
+    /**
+     * Generate the random graph the tests run on
+     */
+    public static CsrGraph generateGraph(int n, int m, int seed) {
+        return generateGraph(GraphGenerator.Family.RANDOM, n, m, seed);
+    }
+
+    /**
+     * Generate a graph of the given family; m is a target the family may not hit exactly
+     */
+    public static CsrGraph generateGraph(GraphGenerator.Family family, int n, int m, int seed) {
+        System.out.printf("Generating %s graph: n=%d, m=%d, seed=%d%n", family, n, m, seed);
+
+        long start = System.nanoTime();
+        var graph = GraphGenerator.generate(family, n, m, seed);
+        printGenerated(graph, start);
+        return graph;
+    }
 
-        var random = new Random(seed);
-        var generated = Graph.generate(n, m, 100.0, random);
-        var graph = generated.graph();
-        var edges = generated.edges();
+    /**
+     * Generate a graph of the given family on the pool, see {@link GraphGenerator#generateParallel}
+     */
+    public static CsrGraph generateGraph(GraphGenerator.Family family, int n, int m, int seed, ForkJoinPool pool) {
+        System.out.printf("Generating %s graph in parallel: n=%d, m=%d, seed=%d%n", family, n, m, seed);
 
+        long start = System.nanoTime();
+        var graph = GraphGenerator.generateParallel(family, n, m, seed, pool);
+        printGenerated(graph, start);
+        return graph;
+    }
+
+    private static void printGenerated(CsrGraph graph, long start) {
         double avgDeg = graph.getAverageOutDegree();
-        System.out.printf("Graph generated. avg out-degree ≈ %.3f%n", avgDeg);
+        System.out.printf("Graph generated in %.3fs. m=%d, avg out-degree ≈ %.3f%n",
+                (System.nanoTime() - start) / 1_000_000_000.0, graph.getEdgeCount(), avgDeg);
+    }
+
+    /**
+     * Run a single test comparing all engines on a prebuilt graph
+     *
+     * @param seed Seed the graph was built from, only recorded in the result
+     * @param delta Bucket width for delta-stepping; <= 0 picks {@link DeltaStepping#defaultDelta}
+     */
+    public static TestResult runSingleTest(CsrView graph, int seed, int source, BmsspConfig config, double delta) {
+        int n = graph.getNodeCount();
+        long m = graph.getEdgeCount();
 
         // Run Dijkstra
         var instrDij = new Instrument();
         long start = System.nanoTime();
-        var distDij = Dijkstra.shortestPaths(graph, source, instrDij);
+        var distDij = Dijkstra.shortestPaths(graph, source, DistanceStore.dense(n),
+                new IndexedDaryHeap(n, config.heapArity()), instrDij);
         long end = System.nanoTime();
         double dijkstraTime = (end - start) / 1_000_000_000.0;
 
-        long dijkstraReachable = distDij.values().stream()
-                .mapToLong(d -> Double.isFinite(d) ? 1 : 0)
-                .sum();
+        long dijkstraReachable = distDij.countReachable();
 
-        System.out.printf("Dijkstra: time=%.6fs, relaxations=%d, heap_ops=%d, reachable=%d%n",
-                dijkstraTime, instrDij.getRelaxations(), instrDij.getHeapOps(), dijkstraReachable);
+        System.out.printf("Dijkstra: time=%.6fs, relaxations=%d, heap_ops=%d (push=%d, pop=%d, decrease_key=%d), reachable=%d%n",
+                dijkstraTime, instrDij.getRelaxations(), instrDij.getHeapOps(), instrDij.getHeapPushes(),
+                instrDij.getHeapPops(), instrDij.getHeapDecreaseKeys(), dijkstraReachable);
 
-        // Run BMSSP
-        var distBM = new HashMap<Integer, Double>();
-        for (int node : graph.getNodes()) {
-            distBM.put(node, Double.POSITIVE_INFINITY);
+        if (graph instanceof IntCsrGraph intGraph) {
+            runIntDijkstra(intGraph, source, distDij);
         }
-        distBM.put(source, 0.0);
+
+        // Run BMSSP
+        var distBM = config.parallelRelax() ? DistanceStore.atomic(n) : DistanceStore.dense(n);
+        distBM.set(source, 0.0);
 
         var instrBM = new Instrument();
 
-        // Choose top-level recursion depth l heuristically
-        int l;
-        if (n <= 2) {
-            l = 1;
-        } else {
-            double logN = Math.log(Math.max(3, n));
-            int tGuess = Math.max(1, (int) Math.round(Math.pow(logN, 2.0 / 3.0)));
-            l = Math.max(1, (int) Math.round(logN / tGuess));
-        }
+        // Heuristic parameters unless the config carries a tuned profile
+        var workspace = new QueryWorkspace(n, config);
+        var params = workspace.getParams();
 
-        System.out.printf("BMSSP params: top-level l=%d%n", l);
+        System.out.printf("BMSSP params: %s, D=%s, parallel pivots=%s, parallel relax=%s, threads=%d%n",
+                params, config.dataStructure(), config.parallelPivots() ? "on" : "off",
+                config.parallelRelax() ? "on" : "off", config.pool().getParallelism());
 
         start = System.nanoTime();
-        var bmsspResult = BMSSP.bmssp(graph, distBM, edges, l, Double.POSITIVE_INFINITY,
-                Set.of(source), n, instrBM);
+        var bmsspResult = BMSSP.bmssp(graph, distBM, params.topLevel(), Double.POSITIVE_INFINITY,
+                NodeSet.of(n, source), n, workspace, instrBM);
         end = System.nanoTime();
         double bmsspTime = (end - start) / 1_000_000_000.0;
 
         double Bp = bmsspResult.BPrime();
         var UFinal = bmsspResult.U();
 
-        long bmsspReachable = distBM.values().stream()
-                .mapToLong(d -> Double.isFinite(d) ? 1 : 0)
-                .sum();
+        long bmsspReachable = distBM.countReachable();
 
-        System.out.printf("BMSSP: time=%.6fs, relaxations=%d, reachable=%d, B'=%.6f, |U_final|=%d%n",
-                bmsspTime, instrBM.getRelaxations(), bmsspReachable, Bp, UFinal.size());
+        System.out.printf("BMSSP: time=%.6fs, relaxations=%d, heap_ops=%d (push=%d, pop=%d, decrease_key=%d), reachable=%d, B'=%.6f, |U_final|=%d%n",
+                bmsspTime, instrBM.getRelaxations(), instrBM.getHeapOps(), instrBM.getHeapPushes(),
+                instrBM.getHeapPops(), instrBM.getHeapDecreaseKeys(), bmsspReachable, Bp, UFinal.size());
 
-        // Compare distances for commonly reachable nodes
-        var diffs = new ArrayList<Double>();
-        for (int node : graph.getNodes()) {
-            double dv = distDij.getOrDefault(node, Double.POSITIVE_INFINITY);
-            double db = distBM.getOrDefault(node, Double.POSITIVE_INFINITY);
-            if (Double.isFinite(dv) && Double.isFinite(db)) {
-                diffs.add(Math.abs(dv - db));
-            }
-        }
+        // Run delta-stepping
+        var instrDelta = new Instrument();
+        var deltaStepping = new DeltaStepping(graph, delta > 0 ? delta : DeltaStepping.defaultDelta(graph));
+        System.out.printf("Delta-stepping params: delta=%.6f, threads=%d%n",
+                deltaStepping.getDelta(), config.pool().getParallelism());
+
+        start = System.nanoTime();
+        var distDelta = deltaStepping.shortestPaths(source, config.pool(), instrDelta);
+        end = System.nanoTime();
+        double deltaTime = (end - start) / 1_000_000_000.0;
+
+        long deltaReachable = distDelta.countReachable();
+
+        System.out.printf("Delta-stepping: time=%.6fs, relaxations=%d, reachable=%d%n",
+                deltaTime, instrDelta.getRelaxations(), deltaReachable);
 
-        double maxDiff = diffs.isEmpty() ? 0.0 : Collections.max(diffs);
+        // Compare distances for commonly reachable nodes
+        double maxDiff = maxDiff(distDij, distBM, n);
         System.out.printf("Distance agreement (max abs diff on commonly reachable nodes): %.6e%n", maxDiff);
+        double deltaMaxDiff = maxDiff(distDij, distDelta, n);
+        System.out.printf("Delta-stepping agreement with Dijkstra: %.6e%n", deltaMaxDiff);
 
         return new TestResult(
                 n, m, seed,
                 dijkstraTime, instrDij.getRelaxations(),
                 bmsspTime, instrBM.getRelaxations(),
                 dijkstraReachable, bmsspReachable,
-                maxDiff
+                maxDiff,
+                deltaTime, instrDelta.getRelaxations(), deltaReachable,
+                deltaMaxDiff
         );
     }
+
+    /**
+     * Compare full single-source runs with the target-set queries: Dijkstra stopping at the last
+     * target pop, BMSSP stopping at the top level once B' passes every target, and one
+     * bidirectional Dijkstra per target
+     */
+    public static TargetResult runTargetTest(CsrView graph, int source, int[] targets, BmsspConfig config) {
+        int n = graph.getNodeCount();
+        var targetSet = NodeSet.of(n, targets);
+        var heap = new IndexedDaryHeap(n, config.heapArity());
+
+        var instrDij = new Instrument();
+        long start = System.nanoTime();
+        var distDij = Dijkstra.shortestPaths(graph, source, DistanceStore.dense(n), heap, instrDij);
+        double dijkstraTime = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        var instrEarly = new Instrument();
+        start = System.nanoTime();
+        var distEarly = Dijkstra.toTargets(graph, source, targetSet, DistanceStore.dense(n), heap, instrEarly);
+        double earlyDijkstraTime = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        start = System.nanoTime();
+        var bidirectional = new BidirectionalDijkstra(graph);
+        System.out.printf("Reverse graph built in %.6fs%n", (System.nanoTime() - start) / 1_000_000_000.0);
+        var instrBidi = new Instrument();
+        var distBidi = new double[targets.length];
+        start = System.nanoTime();
+        for (int i = 0; i < targets.length; i++) {
+            distBidi[i] = bidirectional.distance(source, targets[i], instrBidi);
+        }
+        double bidirectionalTime = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        var instrBM = new Instrument();
+        var distBM = config.parallelRelax() ? DistanceStore.atomic(n) : DistanceStore.dense(n);
+        distBM.set(source, 0.0);
+        start = System.nanoTime();
+        BMSSP.bmssp(graph, distBM, config.params(n).topLevel(), Double.POSITIVE_INFINITY,
+                NodeSet.of(n, source), n, new QueryWorkspace(n, config), instrBM);
+        double bmsspTime = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        var instrEarlyBM = new Instrument();
+        var distEarlyBM = config.parallelRelax() ? DistanceStore.atomic(n) : DistanceStore.dense(n);
+        distEarlyBM.set(source, 0.0);
+        start = System.nanoTime();
+        BMSSP.toTargets(graph, distEarlyBM, NodeSet.of(n, source), targetSet, new QueryWorkspace(n, config),
+                instrEarlyBM);
+        double earlyBmsspTime = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        double exactMaxDiff = 0.0;
+        double bmsspMaxDiff = 0.0;
+        for (int i = 0; i < targets.length; i++) {
+            double expected = distDij.get(targets[i]);
+            exactMaxDiff = Math.max(exactMaxDiff, absDiff(expected, distEarly.get(targets[i])));
+            exactMaxDiff = Math.max(exactMaxDiff, absDiff(expected, distBidi[i]));
+            bmsspMaxDiff = Math.max(bmsspMaxDiff, absDiff(expected, distEarlyBM.get(targets[i])));
+        }
+
+        System.out.printf("Dijkstra (full):        time=%.6fs, relaxations=%d%n", dijkstraTime, instrDij.getRelaxations());
+        System.out.printf("Dijkstra (to targets):  time=%.6fs, relaxations=%d%n", earlyDijkstraTime, instrEarly.getRelaxations());
+        System.out.printf("Bidirectional Dijkstra: time=%.6fs, relaxations=%d%n", bidirectionalTime, instrBidi.getRelaxations());
+        System.out.printf("BMSSP (full):           time=%.6fs, relaxations=%d%n", bmsspTime, instrBM.getRelaxations());
+        System.out.printf("BMSSP (to targets):     time=%.6fs, relaxations=%d%n", earlyBmsspTime, instrEarlyBM.getRelaxations());
+        for (int i = 0; i < Math.min(targets.length, 10); i++) {
+            System.out.printf("  d(%d, %d) = %.6f%n", source, targets[i], distDij.get(targets[i]));
+        }
+
+        return new TargetResult(targets.length,
+                dijkstraTime, instrDij.getRelaxations(),
+                earlyDijkstraTime, instrEarly.getRelaxations(),
+                bidirectionalTime, instrBidi.getRelaxations(),
+                bmsspTime, instrBM.getRelaxations(),
+                earlyBmsspTime, instrEarlyBM.getRelaxations(),
+                exactMaxDiff, bmsspMaxDiff);
+    }
+
+    /**
+     * Compare the bounded Dijkstra and BMSSP ball queries around one source
+     */
+    public static BallResult runBallTest(CsrView graph, int source, double radius, BmsspConfig config) {
+        int n = graph.getNodeCount();
+
+        var instrDij = new Instrument();
+        var distDij = DistanceStore.dense(n);
+        long start = System.nanoTime();
+        var dijkstra = Dijkstra.ball(graph, source, radius, distDij, new IndexedDaryHeap(n, config.heapArity()), instrDij);
+        double dijkstraTime = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        var instrBM = new Instrument();
+        var distBM = config.parallelRelax() ? DistanceStore.atomic(n) : DistanceStore.dense(n);
+        distBM.set(source, 0.0);
+        start = System.nanoTime();
+        var bmssp = BMSSP.ball(graph, distBM, NodeSet.of(n, source), radius, new QueryWorkspace(n, config), instrBM);
+        double bmsspTime = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        var inBmssp = new NodeSet(n);
+        for (int v : bmssp.nodes()) {
+            inBmssp.add(v);
+        }
+        int missing = 0;
+        double maxDiff = 0.0;
+        for (int i = 0; i < dijkstra.size(); i++) {
+            int v = dijkstra.nodes()[i];
+            if (inBmssp.contains(v)) {
+                maxDiff = Math.max(maxDiff, Math.abs(dijkstra.distances()[i] - distBM.get(v)));
+            } else {
+                missing++;
+            }
+        }
+
+        System.out.printf("Dijkstra ball: time=%.6fs, relaxations=%d, nodes=%d%n",
+                dijkstraTime, instrDij.getRelaxations(), dijkstra.size());
+        System.out.printf("BMSSP ball:    time=%.6fs, relaxations=%d, nodes=%d, complete=%s%n",
+                bmsspTime, instrBM.getRelaxations(), bmssp.size(), bmssp.complete());
+
+        return new BallResult(radius,
+                dijkstraTime, instrDij.getRelaxations(), dijkstra.size(),
+                bmsspTime, instrBM.getRelaxations(), bmssp.size(), bmssp.complete(),
+                missing, maxDiff);
+    }
+
+    /**
+     * Run Dijkstra and BMSSP on the graph with double distances, then on a float copy of it with
+     * {@link DistanceStore#denseFloat} distances, and report how far the single-precision
+     * distances drift from the double ones
+     */
+    public static PrecisionResult runPrecisionTest(CsrView graph, int source, BmsspConfig config) {
+        if (config.parallelRelax()) {
+            throw new IllegalArgumentException("Single-precision distances do not support parallel relaxation");
+        }
+        int n = graph.getNodeCount();
+        long start = System.nanoTime();
+        var floatGraph = FloatCsrGraph.narrowed(graph);
+        System.out.printf("Narrowed weights to float in %.3fs%n", (System.nanoTime() - start) / 1_000_000_000.0);
+        var heap = new IndexedDaryHeap(n, config.heapArity());
+
+        var instrDij = new Instrument();
+        start = System.nanoTime();
+        var distDij = Dijkstra.shortestPaths(graph, source, DistanceStore.dense(n), heap, instrDij);
+        double dijkstraTime = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        var instrFloatDij = new Instrument();
+        start = System.nanoTime();
+        var distFloatDij = Dijkstra.shortestPaths(floatGraph, source, DistanceStore.denseFloat(n), heap,
+                instrFloatDij);
+        double floatDijkstraTime = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        int l = config.params(n).topLevel();
+        var instrBM = new Instrument();
+        var distBM = DistanceStore.dense(n);
+        distBM.set(source, 0.0);
+        start = System.nanoTime();
+        BMSSP.bmssp(graph, distBM, l, Double.POSITIVE_INFINITY, NodeSet.of(n, source), n,
+                new QueryWorkspace(n, config), instrBM);
+        double bmsspTime = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        var instrFloatBM = new Instrument();
+        var distFloatBM = DistanceStore.denseFloat(n);
+        distFloatBM.set(source, 0.0);
+        start = System.nanoTime();
+        BMSSP.bmssp(floatGraph, distFloatBM, l, Double.POSITIVE_INFINITY, NodeSet.of(n, source), n,
+                new QueryWorkspace(n, config), instrFloatBM);
+        double floatBmsspTime = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        double dijkstraMaxDiff = maxDiff(distDij, distFloatDij, n);
+        double bmsspMaxDiff = maxDiff(distBM, distFloatBM, n);
+
+        System.out.printf("Dijkstra (double): time=%.6fs, relaxations=%d, reachable=%d%n",
+                dijkstraTime, instrDij.getRelaxations(), distDij.countReachable());
+        System.out.printf("Dijkstra (float):  time=%.6fs, relaxations=%d, reachable=%d, max abs diff=%.6e%n",
+                floatDijkstraTime, instrFloatDij.getRelaxations(), distFloatDij.countReachable(), dijkstraMaxDiff);
+        System.out.printf("BMSSP (double):    time=%.6fs, relaxations=%d, reachable=%d%n",
+                bmsspTime, instrBM.getRelaxations(), distBM.countReachable());
+        System.out.printf("BMSSP (float):     time=%.6fs, relaxations=%d, reachable=%d, max abs diff=%.6e%n",
+                floatBmsspTime, instrFloatBM.getRelaxations(), distFloatBM.countReachable(), bmsspMaxDiff);
+
+        return new PrecisionResult(dijkstraTime, floatDijkstraTime, dijkstraMaxDiff,
+                bmsspTime, floatBmsspTime, bmsspMaxDiff);
+    }
+
+    /**
+     * Apply random edge updates to a mutable copy of graph, repairing the distances from source
+     * after each one, then rerun from scratch once and check the repaired distances against it.
+     *
+     * Most updates scale the weight of a random edge by a factor in [0.5, 2); one in ten deletes
+     * an edge and one in ten inserts an edge with the weight of another random edge.
+     *
+     * @param seed Updates are drawn from a generator seeded with seed + 2
+     */
+    public static DynamicResult runDynamicTest(CsrView graph, int source, int updates, int seed) {
+        int n = graph.getNodeCount();
+        long start = System.nanoTime();
+        var dynamic = DynamicCsrGraph.copyOf(graph);
+        var sssp = new DynamicSssp(dynamic, source);
+        System.out.printf("Copied graph and computed initial distances in %.3fs%n",
+                (System.nanoTime() - start) / 1_000_000_000.0);
+
+        var random = new Random(seed + 2L);
+        var instrRepair = new Instrument();
+        long relabeled = 0;
+        long repairNanos = 0;
+        for (int i = 0; i < updates; i++) {
+            int from = random.nextInt(n);
+            if (dynamic.getOutDegree(from) == 0) {
+                continue;
+            }
+            long edge = dynamic.edgeStart(from) + random.nextInt(dynamic.getOutDegree(from));
+            int to = dynamic.target(edge);
+            double weight = dynamic.weight(edge);
+            int kind = random.nextInt(10);
+            int other = random.nextInt(n);
+            start = System.nanoTime();
+            if (kind == 0) {
+                relabeled += sssp.removeEdge(from, to, instrRepair);
+            } else if (kind == 1) {
+                relabeled += sssp.addEdge(from, other, weight, instrRepair);
+            } else {
+                relabeled += sssp.setWeight(from, to, weight * (0.5 + 1.5 * random.nextDouble()), instrRepair);
+            }
+            repairNanos += System.nanoTime() - start;
+        }
+        double repairTime = repairNanos / 1_000_000_000.0;
+
+        var instrRerun = new Instrument();
+        start = System.nanoTime();
+        var expected = Dijkstra.shortestPaths(dynamic, source, instrRerun);
+        double rerunTime = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        double maxDiff = 0.0;
+        for (int v = 0; v < n; v++) {
+            maxDiff = Math.max(maxDiff, absDiff(expected.get(v), sssp.distances().get(v)));
+        }
+
+        System.out.printf("Repair: %d updates, time=%.6fs (%.3fms/update), relaxations=%d, relabeled=%d%n",
+                updates, repairTime, repairTime * 1000.0 / Math.max(1, updates), instrRepair.getRelaxations(),
+                relabeled);
+        System.out.printf("Full rerun: time=%.6fs, relaxations=%d, reachable=%d%n",
+                rerunTime, instrRerun.getRelaxations(), expected.countReachable());
+        System.out.printf("Distance agreement (max abs diff over all nodes): %.6e%n", maxDiff);
+
+        return new DynamicResult(updates, repairTime, instrRepair.getRelaxations(), relabeled,
+                rerunTime, instrRerun.getRelaxations(), maxDiff);
+    }
+
+    /**
+     * Run a batch of queries from random sources against one generated graph
+     *
+     * @param queries Number of sources, drawn from a generator seeded with seed + 1
+     * @param workers Worker slots, i.e. maximum concurrent queries
+     */
+    public static QueryEngine.BatchReport runBatchTest(int n, int m, int seed, int queries,
+                                                       QueryEngine.Algorithm algorithm,
+                                                       QueryEngine.ExecutorKind executor, int workers,
+                                                       BmsspConfig config) {
+        return runBatchTest(generateGraph(n, m, seed), seed, queries, algorithm, executor, workers, config);
+    }
+
+    /**
+     * Run a batch of queries from random sources against a prebuilt graph
+     *
+     * @param seed Sources are drawn from a generator seeded with seed + 1
+     */
+    public static QueryEngine.BatchReport runBatchTest(CsrView graph, int seed, int queries,
+                                                       QueryEngine.Algorithm algorithm,
+                                                       QueryEngine.ExecutorKind executor, int workers,
+                                                       BmsspConfig config) {
+        int n = graph.getNodeCount();
+        var sourceRandom = new Random(seed + 1L);
+        var sources = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            sources[i] = sourceRandom.nextInt(n);
+        }
+
+        System.out.printf("Running %d %s queries on %d %s workers%n", queries, algorithm, workers, executor);
+        try (var engine = new QueryEngine(graph, config, algorithm, executor, workers)) {
+            var report = engine.runBatch(sources);
+            System.out.printf("Batch: time=%.6fs, throughput=%.1f queries/s, relaxations=%d%n",
+                    report.seconds(), report.queriesPerSecond(), report.relaxations());
+            System.out.printf("Latency: p50=%.3fms, p90=%.3fms, p99=%.3fms, max=%.3fms (from submission)%n",
+                    report.p50Millis(), report.p90Millis(), report.p99Millis(), report.maxMillis());
+            System.out.printf("Queueing: p50=%.3fms, p99=%.3fms%n", report.p50QueueMillis(), report.p99QueueMillis());
+            return report;
+        }
+    }
+
+    /**
+     * Run the radix-heap Dijkstra and check it against the double-keyed one
+     */
+    private static void runIntDijkstra(IntCsrGraph graph, int source, DistanceStore expected) {
+        int n = graph.getNodeCount();
+        var dist = new long[n];
+        Arrays.fill(dist, IntDijkstra.UNREACHABLE);
+        var instr = new Instrument();
+        long start = System.nanoTime();
+        IntDijkstra.shortestPaths(graph, source, dist, new RadixHeap(n), instr);
+        double time = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        long mismatches = 0;
+        for (int v = 0; v < n; v++) {
+            double d = dist[v] == IntDijkstra.UNREACHABLE ? Double.POSITIVE_INFINITY : dist[v];
+            if (d != expected.get(v)) {
+                mismatches++;
+            }
+        }
+        System.out.printf("Integer Dijkstra (radix heap): time=%.6fs, relaxations=%d, heap_ops=%d (push=%d, pop=%d, decrease_key=%d), mismatches=%d%n",
+                time, instr.getRelaxations(), instr.getHeapOps(), instr.getHeapPushes(), instr.getHeapPops(),
+                instr.getHeapDecreaseKeys(), mismatches);
+    }
+
+    /**
+     * Tune the BMSSP parameters on a prebuilt graph, printing every candidate
+     *
+     * @param samples Number of sample sources, drawn from a generator seeded with seed + 1
+     */
+    public static BmsspTuner.Trial runTuning(CsrView graph, int seed, int samples, BmsspConfig config) {
+        int n = graph.getNodeCount();
+        var sourceRandom = new Random(seed + 1L);
+        var sources = new int[samples];
+        for (int i = 0; i < samples; i++) {
+            sources[i] = sourceRandom.nextInt(n);
+        }
+
+        System.out.printf("Tuning on %d sample sources%n", samples);
+        var tuner = new BmsspTuner(graph, config, sources);
+        var best = tuner.tune(trial -> System.out.printf("%s: time=%.3fms, relaxations=%d, exact=%d%n",
+                trial.params(), trial.nanos() / 1_000_000.0, trial.relaxations(), trial.exactNodes()));
+        System.out.printf("Best: %s (time=%.3fms, exact=%d)%n", best.params(), best.nanos() / 1_000_000.0,
+                best.exactNodes());
+        return best;
+    }
+
+    /**
+     * Absolute difference that treats two infinities as equal
+     */
+    private static double absDiff(double expected, double actual) {
+        return expected == actual ? 0.0 : Math.abs(expected - actual);
+    }
+
+    private static double maxDiff(DistanceStore expected, DistanceStore actual, int n) {
+        var diffs = new ArrayList<Double>();
+        for (int node = 0; node < n; node++) {
+            double dv = expected.get(node);
+            double db = actual.get(node);
+            if (Double.isFinite(dv) && Double.isFinite(db)) {
+                diffs.add(Math.abs(dv - db));
+            }
+        }
+        return diffs.isEmpty() ? 0.0 : Collections.max(diffs);
+    }
 }
@@ -0,0 +1,80 @@
+package org.bmssp.algo.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Dense distance store that several threads may lower at once. Distances are kept as the raw
+ * bits of their doubles in a long[]; {@link #lowerTo} is an atomic min done by CAS on those bits.
+ */
+public class AtomicDistanceStore implements DistanceStore {
+
+    private static final VarHandle BITS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long INFINITY_BITS = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+
+    private final long[] bits;
+
+    public AtomicDistanceStore(int nodeCount) {
+        this.bits = new long[nodeCount];
+        Arrays.fill(bits, INFINITY_BITS);
+    }
+
+    @Override
+    public double get(int node) {
+        return Double.longBitsToDouble((long) BITS.getOpaque(bits, node));
+    }
+
+    @Override
+    public void set(int node, double distance) {
+        BITS.setOpaque(bits, node, Double.doubleToRawLongBits(distance));
+    }
+
+    /**
+     * Atomically lower node's distance to the given value if it is <= the current one.
+     * Returns true if the stored distance now equals distance, false if a smaller one was there.
+     */
+    public boolean lowerTo(int node, double distance) {
+        return lower(node, distance, true);
+    }
+
+    /**
+     * Atomically lower node's distance if the given value is strictly smaller; returns true
+     * only for the update that stored it
+     */
+    public boolean lowerBelow(int node, double distance) {
+        return lower(node, distance, false);
+    }
+
+    private boolean lower(int node, double distance, boolean acceptEqual) {
+        long newBits = Double.doubleToRawLongBits(distance);
+        long current = (long) BITS.getOpaque(bits, node);
+        while (true) {
+            double currentDistance = Double.longBitsToDouble(current);
+            if (distance > currentDistance) {
+                return false;
+            }
+            if (distance == currentDistance) {
+                return acceptEqual;
+            }
+            long witness = (long) BITS.compareAndExchange(bits, node, current, newBits);
+            if (witness == current) {
+                return true;
+            }
+            current = witness;
+        }
+    }
+
+    /**
+     * Not safe against concurrent updates
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(bits, INFINITY_BITS);
+    }
+
+    @Override
+    public int size() {
+        return bits.length;
+    }
+}
@@ -0,0 +1,46 @@
+package org.bmssp.algo.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size bitset whose bits can be set concurrently; set() uses CAS so exactly one
+ * thread wins each bit
+ */
+public class ConcurrentBitSet {
+
+    private final AtomicLongArray words;
+
+    public ConcurrentBitSet(int nodeCount) {
+        this.words = new AtomicLongArray((Math.max(1, nodeCount) + 63) >>> 6);
+    }
+
+    public boolean get(int index) {
+        return (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Set the bit; returns true only for the thread that changed it from 0 to 1
+     */
+    public boolean set(int index) {
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long current = words.get(word);
+        while ((current & mask) == 0) {
+            long witness = words.compareAndExchange(word, current, current | mask);
+            if (witness == current) {
+                return true;
+            }
+            current = witness;
+        }
+        return false;
+    }
+
+    /**
+     * Clear the bits of the given members; not safe against concurrent set()
+     */
+    public void clear(NodeSet members) {
+        for (int i = 0; i < members.size(); i++) {
+            words.set(members.get(i) >>> 6, 0L);
+        }
+    }
+}
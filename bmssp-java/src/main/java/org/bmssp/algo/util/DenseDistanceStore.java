@@ -0,0 +1,36 @@
+package org.bmssp.algo.util;
+
+import java.util.Arrays;
+
+/**
+ * Distance store backed by a double[] indexed by node id
+ */
+public class DenseDistanceStore implements DistanceStore {
+
+    private final double[] dist;
+
+    public DenseDistanceStore(int nodeCount) {
+        this.dist = new double[nodeCount];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+    }
+
+    @Override
+    public double get(int node) {
+        return dist[node];
+    }
+
+    @Override
+    public void set(int node, double distance) {
+        dist[node] = distance;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+    }
+
+    @Override
+    public int size() {
+        return dist.length;
+    }
+}
@@ -0,0 +1,82 @@
+package org.bmssp.algo.util;
+
+/**
+ * Primitive distance estimates keyed by node id.
+ * Nodes that were never written read as {@link Double#POSITIVE_INFINITY}.
+ */
+public interface DistanceStore {
+
+    /**
+     * Current distance estimate of node, or +infinity if unset
+     */
+    double get(int node);
+
+    void set(int node, double distance);
+
+    /**
+     * The distance this store would hold for a candidate. Engines pass every candidate through
+     * it before comparing, so the labels they compare, queue and store agree exactly; a
+     * single-precision store rounds here, the others return the candidate unchanged.
+     */
+    default double narrow(double distance) {
+        return distance;
+    }
+
+    /**
+     * Reset every node to +infinity so the store can serve another query
+     */
+    void clear();
+
+    /**
+     * Number of node ids this store covers, i.e. valid ids are [0, size())
+     */
+    int size();
+
+    /**
+     * Number of nodes with a finite distance
+     */
+    default long countReachable() {
+        long count = 0;
+        for (int node = 0; node < size(); node++) {
+            if (Double.isFinite(get(node))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * double[]-backed store for queries that touch most of the graph
+     */
+    static DistanceStore dense(int nodeCount) {
+        return new DenseDistanceStore(nodeCount);
+    }
+
+    /**
+     * Dense store stamped with a query epoch, so clear() is O(1); for stores reused across queries
+     */
+    static EpochDistanceStore epoch(int nodeCount) {
+        return new EpochDistanceStore(nodeCount);
+    }
+
+    /**
+     * float[]-backed dense store: half the memory traffic, single-precision distances
+     */
+    static DistanceStore denseFloat(int nodeCount) {
+        return new FloatDistanceStore(nodeCount);
+    }
+
+    /**
+     * Dense store that supports concurrent atomic-min updates
+     */
+    static AtomicDistanceStore atomic(int nodeCount) {
+        return new AtomicDistanceStore(nodeCount);
+    }
+
+    /**
+     * Open-addressing store for queries that touch few nodes
+     */
+    static DistanceStore sparse(int nodeCount) {
+        return new SparseDistanceStore(nodeCount);
+    }
+}
@@ -0,0 +1,50 @@
+package org.bmssp.algo.util;
+
+import java.util.Arrays;
+
+/**
+ * Dense distance store whose clear() is O(1): every entry carries the epoch of the query that
+ * wrote it, and entries from older epochs read as +infinity. clear() just starts a new epoch,
+ * so a query that touches a few thousand nodes of a huge graph pays nothing for the rest.
+ *
+ * The stamps are wiped once every 2^31 - 1 clears, when the epoch counter would wrap.
+ */
+public class EpochDistanceStore implements DistanceStore {
+
+    private final double[] dist;
+    private final int[] stamps;
+    private int epoch = 1;
+
+    public EpochDistanceStore(int nodeCount) {
+        this.dist = new double[nodeCount];
+        this.stamps = new int[nodeCount];
+    }
+
+    @Override
+    public double get(int node) {
+        return stamps[node] == epoch ? dist[node] : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public void set(int node, double distance) {
+        dist[node] = distance;
+        stamps[node] = epoch;
+    }
+
+    /**
+     * Start a new epoch in O(1)
+     */
+    @Override
+    public void clear() {
+        if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            epoch = 0;
+        }
+        epoch++;
+    }
+
+    @Override
+    public int size() {
+        return dist.length;
+    }
+}
@@ -0,0 +1,47 @@
+package org.bmssp.algo.util;
+
+import java.util.Arrays;
+
+/**
+ * Distance store backed by a float[] indexed by node id, half the footprint of
+ * {@link DenseDistanceStore}.
+ *
+ * Candidates are rounded to the nearest float by {@link #narrow}, so an engine running on this
+ * store adds, compares and keeps single-precision labels, and ties it relies on (BMSSP re-deriving
+ * a label during relaxation) still compare equal. Rounding is monotone, so a candidate derived
+ * from a settled label never undercuts it and relaxation loops end as in double precision.
+ */
+public class FloatDistanceStore implements DistanceStore {
+
+    private final float[] dist;
+
+    public FloatDistanceStore(int nodeCount) {
+        this.dist = new float[nodeCount];
+        Arrays.fill(dist, Float.POSITIVE_INFINITY);
+    }
+
+    @Override
+    public double get(int node) {
+        return dist[node];
+    }
+
+    @Override
+    public void set(int node, double distance) {
+        dist[node] = (float) distance;
+    }
+
+    @Override
+    public double narrow(double distance) {
+        return (float) distance;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(dist, Float.POSITIVE_INFINITY);
+    }
+
+    @Override
+    public int size() {
+        return dist.length;
+    }
+}
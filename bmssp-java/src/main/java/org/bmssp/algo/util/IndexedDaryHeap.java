@@ -0,0 +1,189 @@
+package org.bmssp.algo.util;
+
+import java.util.Arrays;
+
+/**
+ * Primitive indexed d-ary min-heap keyed by node id, with decrease-key.
+ *
+ * Each node is present at most once, so the heap never grows beyond the number of nodes
+ * and no stale entries are left behind. Ties on key are broken by the smaller node id.
+ */
+public class IndexedDaryHeap {
+
+    public static final int DEFAULT_ARITY = 4;
+
+    private static final int ABSENT = -1;
+
+    private final int arity;
+    private final int[] nodes;
+    private final double[] keys;
+    private final int[] position;
+    private int size = 0;
+
+    public IndexedDaryHeap(int nodeCount) {
+        this(nodeCount, DEFAULT_ARITY);
+    }
+
+    /**
+     * @param nodeCount Node ids must lie in [0, nodeCount)
+     * @param arity Number of children per heap slot (at least 2)
+     */
+    public IndexedDaryHeap(int nodeCount, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Heap arity must be at least 2, got " + arity);
+        }
+        this.arity = arity;
+        this.nodes = new int[nodeCount];
+        this.keys = new double[nodeCount];
+        this.position = new int[nodeCount];
+        Arrays.fill(position, ABSENT);
+    }
+
+    public int getArity() {
+        return arity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int node) {
+        return position[node] != ABSENT;
+    }
+
+    /**
+     * Key of a node currently in the heap
+     */
+    public double key(int node) {
+        return keys[position[node]];
+    }
+
+    /**
+     * Insert a node that is not yet in the heap
+     */
+    public void push(int node, double key) {
+        if (position[node] != ABSENT) {
+            throw new IllegalStateException("Node " + node + " is already in the heap");
+        }
+        int i = size++;
+        nodes[i] = node;
+        keys[i] = key;
+        position[node] = i;
+        siftUp(i);
+    }
+
+    /**
+     * Lower the key of a node already in the heap
+     */
+    public void decreaseKey(int node, double key) {
+        int i = position[node];
+        if (i == ABSENT) {
+            throw new IllegalStateException("Node " + node + " is not in the heap");
+        }
+        keys[i] = key;
+        siftUp(i);
+    }
+
+    /**
+     * Node with the smallest key
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Cannot peek into an empty heap");
+        }
+        return nodes[0];
+    }
+
+    /**
+     * Smallest key in the heap
+     */
+    public double peekKey() {
+        if (size == 0) {
+            throw new IllegalStateException("Cannot peek into an empty heap");
+        }
+        return keys[0];
+    }
+
+    /**
+     * Remove and return the node with the smallest key
+     */
+    public int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("Cannot pop from an empty heap");
+        }
+        int top = nodes[0];
+        position[top] = ABSENT;
+        size--;
+        if (size > 0) {
+            nodes[0] = nodes[size];
+            keys[0] = keys[size];
+            position[nodes[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Remove all nodes in O(size), keeping the backing arrays for reuse
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[nodes[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    private boolean less(double keyA, int nodeA, double keyB, int nodeB) {
+        return keyA < keyB || (keyA == keyB && nodeA < nodeB);
+    }
+
+    private void siftUp(int i) {
+        int node = nodes[i];
+        double key = keys[i];
+        while (i > 0) {
+            int parent = (i - 1) / arity;
+            if (!less(key, node, keys[parent], nodes[parent])) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            keys[i] = keys[parent];
+            position[nodes[i]] = i;
+            i = parent;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+        position[node] = i;
+    }
+
+    private void siftDown(int i) {
+        int node = nodes[i];
+        double key = keys[i];
+        while (true) {
+            int first = i * arity + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + arity, size);
+            int best = first;
+            for (int c = first + 1; c < last; c++) {
+                if (less(keys[c], nodes[c], keys[best], nodes[best])) {
+                    best = c;
+                }
+            }
+            if (!less(keys[best], nodes[best], key, node)) {
+                break;
+            }
+            nodes[i] = nodes[best];
+            keys[i] = keys[best];
+            position[nodes[i]] = i;
+            i = best;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+        position[node] = i;
+    }
+}
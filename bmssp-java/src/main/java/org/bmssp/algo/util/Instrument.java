@@ -1,35 +1,80 @@
 package org.bmssp.algo.util;
 
 /**
- * Instrumentation class for tracking algorithm performance metrics
+ * Instrumentation class for tracking algorithm performance metrics.
+ * Totals of one thread's runs; see {@link Metrics} for shared per-level counters and timers.
  */
 public class Instrument {
     private long relaxations = 0;
     private long heapOps = 0;
+    private long heapPushes = 0;
+    private long heapPops = 0;
+    private long heapDecreaseKeys = 0;
 
     public void incrementRelaxations() {
         relaxations++;
     }
 
+    /**
+     * Add relaxations counted elsewhere, e.g. by parallel workers after they joined
+     */
+    public void addRelaxations(long count) {
+        relaxations += count;
+    }
+
     public void incrementHeapOps() {
         heapOps++;
     }
 
+    public void incrementHeapPushes() {
+        heapPushes++;
+        heapOps++;
+    }
+
+    public void incrementHeapPops() {
+        heapPops++;
+        heapOps++;
+    }
+
+    public void incrementHeapDecreaseKeys() {
+        heapDecreaseKeys++;
+        heapOps++;
+    }
+
     public long getRelaxations() {
         return relaxations;
     }
 
+    /**
+     * Total heap operations, including pushes, pops and decrease-keys
+     */
     public long getHeapOps() {
         return heapOps;
     }
 
+    public long getHeapPushes() {
+        return heapPushes;
+    }
+
+    public long getHeapPops() {
+        return heapPops;
+    }
+
+    public long getHeapDecreaseKeys() {
+        return heapDecreaseKeys;
+    }
+
     public void reset() {
         relaxations = 0;
         heapOps = 0;
+        heapPushes = 0;
+        heapPops = 0;
+        heapDecreaseKeys = 0;
     }
 
     @Override
     public String toString() {
-        return String.format("Instrumentation{relaxations=%d, heapOps=%d}", relaxations, heapOps);
+        return String.format("Instrumentation{relaxations=%d, heapOps=%d, pushes=%d, pops=%d, decreaseKeys=%d}",
+                relaxations, heapOps, heapPushes, heapPops, heapDecreaseKeys);
     }
 }
@@ -0,0 +1,43 @@
+package org.bmssp.algo.util;
+
+import java.util.Arrays;
+
+/**
+ * Reusable growable list of ints
+ */
+public class IntBuffer {
+
+    private int[] values;
+    private int size = 0;
+
+    public IntBuffer() {
+        this(16);
+    }
+
+    public IntBuffer(int initialCapacity) {
+        this.values = new int[Math.max(1, initialCapacity)];
+    }
+
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public int get(int index) {
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,155 @@
+package org.bmssp.algo.util;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-recursion-level counters and timers of BMSSP runs.
+ *
+ * Every counter is a {@link LongAdder}, so one registry can be shared by parallel stages and
+ * by concurrent queries; callers count locally and add once per phase. Level l is the
+ * recursion depth parameter of the call, with the base cases at level 0 and the top-level
+ * call at the highest level. Exported as CSV (one row per level) or JSON.
+ */
+public class Metrics {
+
+    public enum Counter {
+        /** BMSSP calls, including the base-case calls at level 0 */
+        BMSSP_CALLS,
+        /** Time inside BMSSP calls, including their recursive calls */
+        BMSSP_NANOS,
+        /** Sum of |S| over calls */
+        S_NODES,
+        /** Sum of the returned |U| over calls */
+        U_NODES,
+        FIND_PIVOTS_CALLS,
+        FIND_PIVOTS_NANOS,
+        /** Sum of |P| over FIND_PIVOTS calls */
+        P_NODES,
+        /** Sum of |W| over FIND_PIVOTS calls */
+        W_NODES,
+        BASE_CASE_CALLS,
+        BASE_CASE_NANOS,
+        /** Sum of the |U| returned by base cases */
+        BASE_CASE_NODES,
+        PULLS,
+        PULL_NANOS,
+        /** Sum of |Si| over pulls */
+        PULLED_NODES,
+        /** Non-empty batchPrepend calls */
+        BATCH_PREPENDS,
+        BATCH_PREPEND_NANOS,
+        /** Sum of pairs handed to batchPrepend */
+        PREPENDED_PAIRS,
+        /** D.insert calls made by the Ui relaxations */
+        INSERTS,
+        /** Ui relaxation passes, one per recursive call */
+        RELAX_CALLS,
+        RELAX_NANOS,
+        /** Edges relaxed by the Ui relaxations */
+        RELAXATIONS;
+
+        /**
+         * Column name used by the exports
+         */
+        public String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final Counter[] COUNTERS = Counter.values();
+
+    private volatile LongAdder[][] levels = new LongAdder[0][];
+
+    public void add(int level, Counter counter, long value) {
+        level(level)[counter.ordinal()].add(value);
+    }
+
+    /**
+     * Add one call of a timed phase: its call counter and its nanosecond timer
+     */
+    public void addCall(int level, Counter calls, Counter nanos, long elapsedNanos) {
+        var counters = level(level);
+        counters[calls.ordinal()].increment();
+        counters[nanos.ordinal()].add(elapsedNanos);
+    }
+
+    public long get(int level, Counter counter) {
+        var current = levels;
+        return level < current.length ? current[level][counter.ordinal()].sum() : 0L;
+    }
+
+    /**
+     * One more than the highest level recorded so far
+     */
+    public int levelCount() {
+        return levels.length;
+    }
+
+    public void reset() {
+        for (var counters : levels) {
+            for (var adder : counters) {
+                adder.reset();
+            }
+        }
+    }
+
+    private LongAdder[] level(int level) {
+        var current = levels;
+        if (level < current.length) {
+            return current[level];
+        }
+        return grow(level);
+    }
+
+    private synchronized LongAdder[] grow(int level) {
+        var current = levels;
+        if (level >= current.length) {
+            var grown = Arrays.copyOf(current, level + 1);
+            for (int l = current.length; l <= level; l++) {
+                grown[l] = new LongAdder[COUNTERS.length];
+                for (int c = 0; c < COUNTERS.length; c++) {
+                    grown[l][c] = new LongAdder();
+                }
+            }
+            levels = grown;
+            current = grown;
+        }
+        return current[level];
+    }
+
+    /**
+     * Header line plus one line per level, columns named by {@link Counter#key()}
+     */
+    public String toCsv() {
+        var sb = new StringBuilder("level");
+        for (var counter : COUNTERS) {
+            sb.append(',').append(counter.key());
+        }
+        sb.append('\n');
+        for (int l = 0; l < levelCount(); l++) {
+            sb.append(l);
+            for (var counter : COUNTERS) {
+                sb.append(',').append(get(l, counter));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {"levels": [{"level": 0, "bmssp_calls": ..., ...}, ...]}
+     */
+    public String toJson() {
+        var sb = new StringBuilder("{\"levels\": [");
+        for (int l = 0; l < levelCount(); l++) {
+            sb.append(l == 0 ? "\n" : ",\n").append("  {\"level\": ").append(l);
+            for (var counter : COUNTERS) {
+                sb.append(", \"").append(counter.key()).append("\": ").append(get(l, counter));
+            }
+            sb.append('}');
+        }
+        return sb.append("\n]}\n").toString();
+    }
+}
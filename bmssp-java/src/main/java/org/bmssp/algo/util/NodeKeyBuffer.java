@@ -0,0 +1,59 @@
+package org.bmssp.algo.util;
+
+import java.util.Arrays;
+
+/**
+ * Reusable list of (node, key) pairs stored in parallel primitive arrays
+ */
+public class NodeKeyBuffer {
+
+    private int[] nodes;
+    private double[] keys;
+    private int size = 0;
+
+    public NodeKeyBuffer() {
+        this(16);
+    }
+
+    public NodeKeyBuffer(int initialCapacity) {
+        this.nodes = new int[Math.max(1, initialCapacity)];
+        this.keys = new double[Math.max(1, initialCapacity)];
+    }
+
+    public void add(int node, double key) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        nodes[size] = node;
+        keys[size] = key;
+        size++;
+    }
+
+    public int node(int index) {
+        return nodes[index];
+    }
+
+    public double key(int index) {
+        return keys[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Reorder so that the first count pairs are the smallest by key, then node id
+     */
+    public void selectSmallest(int count) {
+        Selection.selectSmallest(keys, nodes, 0, size, count);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,116 @@
+package org.bmssp.algo.util;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Reusable set of node ids: a bitset answers membership and an int[] lists the members
+ * in insertion order for iteration. clear() costs O(size), so one instance can be reused
+ * across calls without reallocating or touching the whole bitset.
+ *
+ * The bitset grows on demand if a node beyond the initial capacity is added.
+ */
+public class NodeSet {
+
+    private long[] bits;
+    private int[] members;
+    private int size = 0;
+
+    /**
+     * @param nodeCount Expected node id universe [0, nodeCount)
+     */
+    public NodeSet(int nodeCount) {
+        this.bits = new long[(Math.max(1, nodeCount) + 63) >>> 6];
+        this.members = new int[16];
+    }
+
+    public static NodeSet of(int nodeCount, int... nodes) {
+        var set = new NodeSet(nodeCount);
+        for (int node : nodes) {
+            set.add(node);
+        }
+        return set;
+    }
+
+    public boolean contains(int node) {
+        int word = node >>> 6;
+        return word < bits.length && (bits[word] & (1L << node)) != 0;
+    }
+
+    /**
+     * Add node; returns false if it was already present
+     */
+    public boolean add(int node) {
+        int word = node >>> 6;
+        if (word >= bits.length) {
+            bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+        }
+        long mask = 1L << node;
+        if ((bits[word] & mask) != 0) {
+            return false;
+        }
+        bits[word] |= mask;
+        if (size == members.length) {
+            members = Arrays.copyOf(members, size * 2);
+        }
+        members[size++] = node;
+        return true;
+    }
+
+    public void addAll(NodeSet other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.members[i]);
+        }
+    }
+
+    /**
+     * Member at position index, in insertion order; index must be in [0, size())
+     */
+    public int get(int index) {
+        return members[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Keep only the members accepted by the predicate, preserving their order
+     */
+    public void retainIf(IntPredicate keep) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int node = members[i];
+            if (keep.test(node)) {
+                members[kept++] = node;
+            } else {
+                bits[node >>> 6] &= ~(1L << node);
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Remove all members in O(size)
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            int node = members[i];
+            bits[node >>> 6] &= ~(1L << node);
+        }
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(members, size);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
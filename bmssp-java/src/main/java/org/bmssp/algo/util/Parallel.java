@@ -0,0 +1,64 @@
+package org.bmssp.algo.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Fork/join helpers for splitting index ranges into fixed chunks
+ */
+public final class Parallel {
+
+    private Parallel() {
+    }
+
+    /**
+     * Number of chunks for size items: enough to balance the pool, none smaller than minChunk
+     */
+    public static int chunkCount(ForkJoinPool pool, int size, int minChunk) {
+        int byWork = Math.max(1, size / Math.max(1, minChunk));
+        return Math.min(byWork, pool.getParallelism() * 4);
+    }
+
+    /**
+     * First index of chunk c when size items are cut into chunks equal parts
+     */
+    public static int chunkStart(int size, int chunks, int c) {
+        return (int) ((long) size * c / chunks);
+    }
+
+    /**
+     * Run body(c) for every chunk c in [0, chunks) on the pool and wait for all of them.
+     * A single chunk runs inline on the calling thread.
+     */
+    public static void forEachChunk(ForkJoinPool pool, int chunks, IntConsumer body) {
+        if (chunks <= 1) {
+            body.accept(0);
+            return;
+        }
+        pool.invoke(new ChunkAction(body, 0, chunks));
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ChunkAction extends RecursiveAction {
+        private final transient IntConsumer body;
+        private final int from;
+        private final int to;
+
+        ChunkAction(IntConsumer body, int from, int to) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                body.accept(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkAction(body, from, mid), new ChunkAction(body, mid, to));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.bmssp.algo.util;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Lazy view of one shortest path in a {@link ShortestPathTree}.
+ *
+ * Every read walks the predecessor chain again, so a view costs nothing until it is used and
+ * always reflects the tree's current state. Walks stop after as many steps as the tree has
+ * nodes; a longer chain can only come from a zero-weight cycle and fails with an
+ * IllegalStateException.
+ */
+public class PathView {
+
+    private final ShortestPathTree tree;
+    private final int target;
+
+    PathView(ShortestPathTree tree, int target) {
+        if (target < 0 || target >= tree.getNodeCount()) {
+            throw new IndexOutOfBoundsException("Node " + target + " outside [0, " + tree.getNodeCount() + ")");
+        }
+        this.tree = tree;
+        this.target = target;
+    }
+
+    public int target() {
+        return target;
+    }
+
+    /**
+     * First node of the path, i.e. the root of the target's tree
+     */
+    public int source() {
+        int node = target;
+        for (int steps = 0; tree.parent(node) != ShortestPathTree.NO_PARENT; steps++) {
+            checkSteps(steps);
+            node = tree.parent(node);
+        }
+        return node;
+    }
+
+    /**
+     * Number of edges on the path
+     */
+    public int hops() {
+        int hops = 0;
+        for (int node = target; tree.parent(node) != ShortestPathTree.NO_PARENT; node = tree.parent(node)) {
+            checkSteps(hops);
+            hops++;
+        }
+        return hops;
+    }
+
+    /**
+     * Nodes from the target back to the source, walked one step per call
+     */
+    public PrimitiveIterator.OfInt fromTarget() {
+        return new PrimitiveIterator.OfInt() {
+            private int next = target;
+            private int steps = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next != ShortestPathTree.NO_PARENT;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next == ShortestPathTree.NO_PARENT) {
+                    throw new NoSuchElementException();
+                }
+                checkSteps(steps++);
+                int node = next;
+                next = tree.parent(node);
+                return node;
+            }
+        };
+    }
+
+    /**
+     * Nodes from the source to the target
+     */
+    public int[] toArray() {
+        var nodes = new int[hops() + 1];
+        int node = target;
+        for (int i = nodes.length - 1; i >= 0; i--) {
+            nodes[i] = node;
+            node = tree.parent(node);
+        }
+        return nodes;
+    }
+
+    private void checkSteps(int steps) {
+        if (steps >= tree.getNodeCount()) {
+            throw new IllegalStateException("Predecessor chain of node " + target + " has a cycle");
+        }
+    }
+}
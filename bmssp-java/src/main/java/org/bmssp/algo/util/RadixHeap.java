@@ -0,0 +1,190 @@
+package org.bmssp.algo.util;
+
+import java.util.Arrays;
+
+/**
+ * Indexed monotone radix heap with non-negative long keys, for integer-weight Dijkstra.
+ *
+ * Keys may never drop below the last key popped, which holds for Dijkstra with non-negative
+ * weights. A node with key k sits in bucket 0 if k equals that last key and otherwise in the
+ * bucket of the highest bit in which k differs from it, so there are 64 buckets whatever the
+ * key range. When bucket 0 runs dry, the smallest key of the first non-empty bucket becomes
+ * the last key and that bucket's nodes spread over lower buckets. A node only ever moves down,
+ * so pops cost O(log C) amortized for a key range C, and pushes and decrease-keys O(1) with no
+ * key comparisons. Nodes with equal keys pop in no particular order.
+ */
+public class RadixHeap {
+
+    private static final int BUCKETS = 64;
+    private static final int ABSENT = -1;
+
+    private final long[] keys;
+    private final int[] bucketOf;
+    private final int[] slotOf;
+    private final int[][] buckets = new int[BUCKETS][];
+    private final int[] bucketSize = new int[BUCKETS];
+    private long last = 0;
+    private int size = 0;
+
+    /**
+     * @param nodeCount Node ids must lie in [0, nodeCount)
+     */
+    public RadixHeap(int nodeCount) {
+        this.keys = new long[nodeCount];
+        this.bucketOf = new int[nodeCount];
+        this.slotOf = new int[nodeCount];
+        Arrays.fill(bucketOf, ABSENT);
+        for (int b = 0; b < BUCKETS; b++) {
+            buckets[b] = new int[16];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int node) {
+        return bucketOf[node] != ABSENT;
+    }
+
+    /**
+     * Key of a node currently in the heap
+     */
+    public long key(int node) {
+        return keys[node];
+    }
+
+    /**
+     * Insert a node that is not yet in the heap, with a key no smaller than the last one popped
+     */
+    public void push(int node, long key) {
+        if (bucketOf[node] != ABSENT) {
+            throw new IllegalStateException("Node " + node + " is already in the heap");
+        }
+        checkMonotone(key);
+        keys[node] = key;
+        add(node, bucket(key));
+        size++;
+    }
+
+    /**
+     * Lower the key of a node already in the heap, not below the last key popped
+     */
+    public void decreaseKey(int node, long key) {
+        if (bucketOf[node] == ABSENT) {
+            throw new IllegalStateException("Node " + node + " is not in the heap");
+        }
+        checkMonotone(key);
+        remove(node);
+        keys[node] = key;
+        add(node, bucket(key));
+    }
+
+    /**
+     * A node with the smallest key
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Cannot peek into an empty heap");
+        }
+        refill();
+        return buckets[0][bucketSize[0] - 1];
+    }
+
+    /**
+     * Smallest key in the heap
+     */
+    public long peekKey() {
+        if (size == 0) {
+            throw new IllegalStateException("Cannot peek into an empty heap");
+        }
+        refill();
+        return last;
+    }
+
+    /**
+     * Remove and return a node with the smallest key
+     */
+    public int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("Cannot pop from an empty heap");
+        }
+        refill();
+        int node = buckets[0][--bucketSize[0]];
+        bucketOf[node] = ABSENT;
+        size--;
+        return node;
+    }
+
+    /**
+     * Remove all nodes in O(size) and forget the last key, so smaller keys are accepted again
+     */
+    public void clear() {
+        for (int b = 0; b < BUCKETS; b++) {
+            for (int i = 0; i < bucketSize[b]; i++) {
+                bucketOf[buckets[b][i]] = ABSENT;
+            }
+            bucketSize[b] = 0;
+        }
+        size = 0;
+        last = 0;
+    }
+
+    private void checkMonotone(long key) {
+        if (key < last) {
+            throw new IllegalArgumentException("Key " + key + " is below the last popped key " + last);
+        }
+    }
+
+    private int bucket(long key) {
+        return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+    }
+
+    /**
+     * Make bucket 0 non-empty: advance last to the smallest key of the first non-empty bucket
+     * and redistribute that bucket, whose nodes all land in lower buckets
+     */
+    private void refill() {
+        if (bucketSize[0] > 0) {
+            return;
+        }
+        int b = 1;
+        while (bucketSize[b] == 0) {
+            b++;
+        }
+        var nodes = buckets[b];
+        int count = bucketSize[b];
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, keys[nodes[i]]);
+        }
+        last = min;
+        bucketSize[b] = 0;
+        for (int i = 0; i < count; i++) {
+            int node = nodes[i];
+            add(node, bucket(keys[node]));
+        }
+    }
+
+    private void add(int node, int b) {
+        int slot = bucketSize[b]++;
+        if (slot == buckets[b].length) {
+            buckets[b] = Arrays.copyOf(buckets[b], slot * 2);
+        }
+        buckets[b][slot] = node;
+        bucketOf[node] = b;
+        slotOf[node] = slot;
+    }
+
+    private void remove(int node) {
+        int b = bucketOf[node];
+        int slot = slotOf[node];
+        int moved = buckets[b][--bucketSize[b]];
+        buckets[b][slot] = moved;
+        slotOf[moved] = slot;
+    }
+}
@@ -0,0 +1,60 @@
+package org.bmssp.algo.util;
+
+/**
+ * In-place selection over parallel (key, node) arrays, ordered by key then node id
+ */
+public final class Selection {
+
+    private Selection() {
+    }
+
+    /**
+     * Partially reorder [from, to) so that [from, from + count) holds the count smallest pairs
+     * and every pair after that position is no smaller. Expected O(to - from) time.
+     */
+    public static void selectSmallest(double[] keys, int[] nodes, int from, int to, int count) {
+        if (count <= 0 || count >= to - from) {
+            return;
+        }
+        int target = from + count;
+        int lo = from;
+        int hi = to - 1;
+        while (lo < hi) {
+            int p = partition(keys, nodes, lo, hi, lo + (hi - lo) / 2);
+            if (p == target) {
+                return;
+            } else if (p < target) {
+                lo = p + 1;
+            } else {
+                hi = p - 1;
+            }
+        }
+    }
+
+    /**
+     * Lomuto partition around the pair at pivotIndex; returns the pivot's final position
+     */
+    private static int partition(double[] keys, int[] nodes, int lo, int hi, int pivotIndex) {
+        double pivotKey = keys[pivotIndex];
+        int pivotNode = nodes[pivotIndex];
+        swap(keys, nodes, pivotIndex, hi);
+        int store = lo;
+        for (int i = lo; i < hi; i++) {
+            if (keys[i] < pivotKey || (keys[i] == pivotKey && nodes[i] < pivotNode)) {
+                swap(keys, nodes, i, store);
+                store++;
+            }
+        }
+        swap(keys, nodes, store, hi);
+        return store;
+    }
+
+    private static void swap(double[] keys, int[] nodes, int i, int j) {
+        double k = keys[i];
+        keys[i] = keys[j];
+        keys[j] = k;
+        int n = nodes[i];
+        nodes[i] = nodes[j];
+        nodes[j] = n;
+    }
+}
@@ -0,0 +1,63 @@
+package org.bmssp.algo.util;
+
+import java.util.Arrays;
+
+/**
+ * Predecessor of every node on its shortest path, backed by an int[] indexed by node id.
+ *
+ * The relaxation loops write the parent whenever they accept a distance, so the tree always
+ * agrees with the distance store it was filled next to. Paths are only walked when asked for,
+ * through {@link #pathTo(int)}.
+ *
+ * Like {@link EpochDistanceStore}, every parent carries the epoch that wrote it and parents from
+ * older epochs read as {@link #NO_PARENT}, so {@link #clear()} is O(1) and a tree can be reused
+ * across queries on a huge graph.
+ */
+public class ShortestPathTree {
+
+    /**
+     * Parent of sources and of nodes never reached
+     */
+    public static final int NO_PARENT = -1;
+
+    private final int[] parent;
+    private final int[] stamps;
+    private int epoch = 1;
+
+    public ShortestPathTree(int nodeCount) {
+        this.parent = new int[nodeCount];
+        this.stamps = new int[nodeCount];
+    }
+
+    public int getNodeCount() {
+        return parent.length;
+    }
+
+    public int parent(int node) {
+        return stamps[node] == epoch ? parent[node] : NO_PARENT;
+    }
+
+    public void setParent(int node, int parentNode) {
+        parent[node] = parentNode;
+        stamps[node] = epoch;
+    }
+
+    /**
+     * Forget every parent by starting a new epoch in O(1)
+     */
+    public void clear() {
+        if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            epoch = 0;
+        }
+        epoch++;
+    }
+
+    /**
+     * Path from the root of target's tree to target; nothing is walked until the view is read.
+     * An unreached node has the single-node path to itself, so check its distance first.
+     */
+    public PathView pathTo(int target) {
+        return new PathView(this, target);
+    }
+}
@@ -0,0 +1,128 @@
+package org.bmssp.algo.util;
+
+import java.util.Arrays;
+
+/**
+ * Distance store backed by an open-addressing (linear probing) int -> double table.
+ * Memory is proportional to the number of nodes written, not to the graph size.
+ * The occupied slots are listed as they fill, so clear() costs O(entries), not O(capacity),
+ * even after the table has grown for an earlier, larger use.
+ */
+public class SparseDistanceStore implements DistanceStore {
+
+    private static final int EMPTY = -1;
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final int nodeCount;
+    private int[] keys;
+    private double[] values;
+    private int[] occupied;
+    private int mask;
+    private int count;
+
+    public SparseDistanceStore(int nodeCount) {
+        this(nodeCount, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param nodeCount Size of the node id universe
+     * @param expectedNodes Expected number of nodes written, used to size the table
+     */
+    public SparseDistanceStore(int nodeCount, int expectedNodes) {
+        this.nodeCount = nodeCount;
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, expectedNodes * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new double[capacity];
+        occupied = new int[capacity / 2 + 1];
+        mask = capacity - 1;
+        count = 0;
+    }
+
+    private static int hash(int node) {
+        int h = node * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public double get(int node) {
+        int i = hash(node) & mask;
+        while (true) {
+            int key = keys[i];
+            if (key == node) {
+                return values[i];
+            }
+            if (key == EMPTY) {
+                return Double.POSITIVE_INFINITY;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    @Override
+    public void set(int node, double distance) {
+        if (node < 0 || node >= nodeCount) {
+            throw new IndexOutOfBoundsException("Node " + node + " outside [0, " + nodeCount + ")");
+        }
+        int i = hash(node) & mask;
+        while (true) {
+            int key = keys[i];
+            if (key == node) {
+                values[i] = distance;
+                return;
+            }
+            if (key == EMPTY) {
+                keys[i] = node;
+                values[i] = distance;
+                occupied[count] = i;
+                if (++count * 2 > keys.length) {
+                    rehash();
+                }
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Drop every entry but keep the table's capacity; only the occupied slots are touched
+     */
+    @Override
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            keys[occupied[i]] = EMPTY;
+        }
+        count = 0;
+    }
+
+    private void rehash() {
+        var oldKeys = keys;
+        var oldValues = values;
+        var oldOccupied = occupied;
+        int oldCount = count;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldCount; i++) {
+            set(oldKeys[oldOccupied[i]], oldValues[oldOccupied[i]]);
+        }
+    }
+
+    @Override
+    public int size() {
+        return nodeCount;
+    }
+
+    @Override
+    public long countReachable() {
+        long reachable = 0;
+        for (int i = 0; i < count; i++) {
+            if (Double.isFinite(values[occupied[i]])) {
+                reachable++;
+            }
+        }
+        return reachable;
+    }
+}
@@ -1,14 +1,49 @@
 package testing;
 
 import org.bmssp.algo.BMSSP;
+import org.bmssp.algo.Ball;
+import org.bmssp.algo.BidirectionalDijkstra;
+import org.bmssp.algo.BmsspConfig;
+import org.bmssp.algo.BmsspParams;
+import org.bmssp.algo.BmsspTuner;
+import org.bmssp.algo.DeltaStepping;
 import org.bmssp.algo.Dijkstra;
+import org.bmssp.algo.DynamicSssp;
+import org.bmssp.algo.QueryEngine;
+import org.bmssp.algo.FindPivots;
+import org.bmssp.algo.IntDijkstra;
+import org.bmssp.algo.QueryWorkspace;
+import org.bmssp.algo.graph.CsrGraph;
+import org.bmssp.algo.graph.CsrSnapshot;
+import org.bmssp.algo.graph.DynamicCsrGraph;
+import org.bmssp.algo.graph.EdgeListReader;
+import org.bmssp.algo.graph.FloatCsrGraph;
 import org.bmssp.algo.graph.Graph;
+import org.bmssp.algo.graph.GraphGenerator;
+import org.bmssp.algo.graph.IntCsrGraph;
+import org.bmssp.algo.graph.OffHeapCsrGraph;
+import org.bmssp.algo.util.DistanceStore;
+import org.bmssp.algo.util.IndexedDaryHeap;
 import org.bmssp.algo.util.Instrument;
+import org.bmssp.algo.util.Metrics;
+import org.bmssp.algo.util.NodeSet;
+import org.bmssp.algo.util.RadixHeap;
+import org.bmssp.algo.util.ShortestPathTree;
 import org.bmssp.algo.testing.TestRunner;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,31 +56,23 @@ class BMSSPTest {
     @DisplayName("Simple graph test - both algorithms should produce same results")
     void testSimpleGraph() {
         // Create a simple graph: 0 -> 1 -> 2
-        var graph = new Graph(3);
-        graph.addEdge(0, 1, 5.0);
-        graph.addEdge(1, 2, 3.0);
-        graph.addEdge(0, 2, 10.0); // Longer direct path
-
-        var edges = List.of(
-                new Graph.Edge(0, 1, 5.0),
-                new Graph.Edge(1, 2, 3.0),
-                new Graph.Edge(0, 2, 10.0)
-        );
+        var adjacency = new Graph(3);
+        adjacency.addEdge(0, 1, 5.0);
+        adjacency.addEdge(1, 2, 3.0);
+        adjacency.addEdge(0, 2, 10.0); // Longer direct path
+        var graph = CsrGraph.from(adjacency);
 
         // Run Dijkstra
         var instrDij = new Instrument();
         var distDij = Dijkstra.shortestPaths(graph, 0, instrDij);
 
         // Run BMSSP
-        var distBM = new HashMap<Integer, Double>();
-        for (int i = 0; i < 3; i++) {
-            distBM.put(i, Double.POSITIVE_INFINITY);
-        }
-        distBM.put(0, 0.0);
+        var distBM = DistanceStore.dense(3);
+        distBM.set(0, 0.0);
 
         var instrBM = new Instrument();
-        var result = BMSSP.bmssp(graph, distBM, edges, 1, Double.POSITIVE_INFINITY,
-                Set.of(0), 3, instrBM);
+        var result = BMSSP.bmssp(graph, distBM, 1, Double.POSITIVE_INFINITY,
+                NodeSet.of(3, 0), 3, instrBM);
 
         // Check results
         assertEquals(0.0, distDij.get(0), 1e-6);
@@ -61,18 +88,17 @@ class BMSSPTest {
     @Test
     @DisplayName("Single node graph")
     void testSingleNode() {
-        var graph = new Graph(1);
-        var edges = List.<Graph.Edge>of();
+        var graph = CsrGraph.from(new Graph(1));
 
         var instrDij = new Instrument();
         var distDij = Dijkstra.shortestPaths(graph, 0, instrDij);
 
-        var distBM = new HashMap<Integer, Double>();
-        distBM.put(0, 0.0);
+        var distBM = DistanceStore.dense(1);
+        distBM.set(0, 0.0);
 
         var instrBM = new Instrument();
-        var result = BMSSP.bmssp(graph, distBM, edges, 1, Double.POSITIVE_INFINITY,
-                Set.of(0), 1, instrBM);
+        var result = BMSSP.bmssp(graph, distBM, 1, Double.POSITIVE_INFINITY,
+                NodeSet.of(1, 0), 1, instrBM);
 
         assertEquals(0.0, distDij.get(0), 1e-6);
         assertEquals(0.0, distBM.get(0), 1e-6);
@@ -83,27 +109,20 @@ class BMSSPTest {
     @DisplayName("Disconnected graph")
     void testDisconnectedGraph() {
         // Two disconnected components: 0-1 and 2-3
-        var graph = new Graph(4);
-        graph.addEdge(0, 1, 2.0);
-        graph.addEdge(2, 3, 3.0);
-
-        var edges = List.of(
-                new Graph.Edge(0, 1, 2.0),
-                new Graph.Edge(2, 3, 3.0)
-        );
+        var adjacency = new Graph(4);
+        adjacency.addEdge(0, 1, 2.0);
+        adjacency.addEdge(2, 3, 3.0);
+        var graph = CsrGraph.from(adjacency);
 
         var instrDij = new Instrument();
         var distDij = Dijkstra.shortestPaths(graph, 0, instrDij);
 
-        var distBM = new HashMap<Integer, Double>();
-        for (int i = 0; i < 4; i++) {
-            distBM.put(i, Double.POSITIVE_INFINITY);
-        }
-        distBM.put(0, 0.0);
+        var distBM = DistanceStore.dense(4);
+        distBM.set(0, 0.0);
 
         var instrBM = new Instrument();
-        var result = BMSSP.bmssp(graph, distBM, edges, 1, Double.POSITIVE_INFINITY,
-                Set.of(0), 4, instrBM);
+        var result = BMSSP.bmssp(graph, distBM, 1, Double.POSITIVE_INFINITY,
+                NodeSet.of(4, 0), 4, instrBM);
 
         // Node 0 should reach node 1 but not nodes 2,3
         assertEquals(0.0, distDij.get(0), 1e-6);
@@ -155,6 +174,1245 @@ class BMSSPTest {
         }
     }
 
+    @Test
+    @DisplayName("CSR graph keeps per-node edge order of the generated graph")
+    void testCsrGraphFromGenerated() {
+        var generated = Graph.generate(50, 200, 10.0, new Random(7));
+        var csr = CsrGraph.from(generated);
+
+        assertEquals(50, csr.getNodeCount());
+        assertEquals(200, csr.getEdgeCount());
+        for (int u = 0; u < 50; u++) {
+            var neighbors = generated.graph().getNeighbors(u);
+            assertEquals(neighbors.size(), csr.getOutDegree(u));
+            long e = csr.edgeStart(u);
+            for (var edge : neighbors) {
+                assertEquals(edge.to(), csr.target(e));
+                assertEquals(edge.weight(), csr.weight(e));
+                e++;
+            }
+            assertEquals(csr.edgeEnd(u), e);
+        }
+    }
+
+    @Test
+    @DisplayName("Graph families are deterministic and have their expected shape")
+    void testGraphFamilies() {
+        int n = 2000;
+        int m = 8000;
+        for (var family : GraphGenerator.Family.values()) {
+            var graph = GraphGenerator.generate(family, n, m, 17);
+            var again = GraphGenerator.generate(family, n, m, 17);
+            assertEquals(n, graph.getNodeCount(), family.name());
+            assertEquals(graph.getEdgeCount(), again.getEdgeCount(), family.name());
+            for (int u = 0; u < n; u++) {
+                assertEquals(graph.edgeStart(u), again.edgeStart(u), family.name());
+                for (long e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                    assertEquals(graph.target(e), again.target(e), family.name());
+                    assertEquals(graph.weight(e), again.weight(e), family.name());
+                    assertTrue(graph.target(e) >= 0 && graph.target(e) < n, family.name());
+                    assertTrue(graph.weight(e) >= 0 && Double.isFinite(graph.weight(e)), family.name());
+                }
+            }
+        }
+
+        // RANDOM is the graph every other entry point generates
+        var random = GraphGenerator.generate(GraphGenerator.Family.RANDOM, n, m, 17);
+        var expected = CsrGraph.from(Graph.generate(n, m, 100.0, new Random(17)));
+        assertEquals(expected.getEdgeCount(), random.getEdgeCount());
+        for (long e = 0; e < expected.getEdgeCount(); e++) {
+            assertEquals(expected.target(e), random.target(e));
+            assertEquals(expected.weight(e), random.weight(e));
+        }
+
+        // 45 x 45 lattice with a partial last row of 20 nodes, every street both ways, connected
+        var grid = GraphGenerator.generate(GraphGenerator.Family.GRID, n, m, 17);
+        int horizontal = 44 * 44 + 19;
+        int vertical = 43 * 45 + 20;
+        assertEquals(2L * (horizontal + vertical), grid.getEdgeCount());
+        assertSymmetric(grid);
+        var gridDist = Dijkstra.shortestPaths(grid, 0, new Instrument());
+        for (int v = 0; v < n; v++) {
+            assertTrue(gridDist.get(v) < Double.POSITIVE_INFINITY);
+        }
+
+        // Exactly m edges, no self-loops, heavily skewed degrees
+        var rmat = GraphGenerator.generate(GraphGenerator.Family.RMAT, n, m, 17);
+        assertEquals(m, rmat.getEdgeCount());
+        int maxDegree = 0;
+        for (int u = 0; u < n; u++) {
+            maxDegree = Math.max(maxDegree, rmat.getOutDegree(u));
+            for (long e = rmat.edgeStart(u); e < rmat.edgeEnd(u); e++) {
+                assertNotEquals(u, rmat.target(e));
+            }
+        }
+        assertTrue(maxDegree > 10 * rmat.getAverageOutDegree(), "max out-degree " + maxDegree);
+
+        // About m edges, every pair both ways
+        var geometric = GraphGenerator.generate(GraphGenerator.Family.GEOMETRIC, n, m, 17);
+        assertEquals(m, geometric.getEdgeCount(), 0.1 * m);
+        assertSymmetric(geometric);
+    }
+
+    @Test
+    @DisplayName("Parallel generation gives the same graph on any number of threads")
+    void testParallelGraphGeneration() {
+        int n = 5000;
+        int m = 600000;
+        var single = new ForkJoinPool(1);
+        var three = new ForkJoinPool(3);
+        try {
+            for (var family : List.of(GraphGenerator.Family.RANDOM, GraphGenerator.Family.RMAT)) {
+                var graph = GraphGenerator.generateParallel(family, n, m, 23, single);
+                assertEquals(n, graph.getNodeCount());
+                assertEquals(m, graph.getEdgeCount());
+                assertSameGraph(graph, GraphGenerator.generateParallel(family, n, m, 23, three));
+                assertSameGraph(graph, GraphGenerator.generateParallel(family, n, m, 23, ForkJoinPool.commonPool()));
+                for (int u = 0; u < n; u++) {
+                    for (long e = graph.edgeStart(u); e + 1 < graph.edgeEnd(u); e++) {
+                        assertTrue(graph.target(e) <= graph.target(e + 1));
+                    }
+                }
+            }
+        } finally {
+            single.shutdown();
+            three.shutdown();
+        }
+
+        // The RANDOM backbone reaches every node from 0
+        var random = GraphGenerator.generateParallel(GraphGenerator.Family.RANDOM, n, n + 100, 29, ForkJoinPool.commonPool());
+        var dist = Dijkstra.shortestPaths(random, 0, new Instrument());
+        for (int v = 0; v < n; v++) {
+            assertTrue(dist.get(v) < Double.POSITIVE_INFINITY);
+        }
+    }
+
+    @Test
+    @DisplayName("Sparse and dense distance stores agree")
+    void testDistanceStores() {
+        var generated = Graph.generate(300, 1200, 10.0, new Random(11));
+        var graph = CsrGraph.from(generated);
+
+        var dense = Dijkstra.shortestPaths(graph, 0, DistanceStore.dense(300), new Instrument());
+        var sparse = Dijkstra.shortestPaths(graph, 0, DistanceStore.sparse(300), new Instrument());
+
+        assertEquals(dense.countReachable(), sparse.countReachable());
+        for (int v = 0; v < 300; v++) {
+            assertEquals(dense.get(v), sparse.get(v));
+        }
+        assertTrue(Double.isInfinite(DistanceStore.sparse(300).get(5)));
+
+        sparse.clear();
+        assertEquals(0, sparse.countReachable());
+        for (int v = 0; v < 300; v++) {
+            assertTrue(Double.isInfinite(sparse.get(v)));
+        }
+        sparse.set(17, 4.0);
+        assertEquals(4.0, sparse.get(17));
+        assertEquals(1, sparse.countReachable());
+    }
+
+    @Test
+    @DisplayName("Indexed d-ary heap pops in key order and supports decrease-key")
+    void testIndexedDaryHeap() {
+        for (int arity = 2; arity <= 8; arity++) {
+            var heap = new IndexedDaryHeap(100, arity);
+            var random = new Random(arity);
+            var keys = new double[100];
+            for (int v = 0; v < 100; v++) {
+                keys[v] = random.nextDouble() * 100;
+                heap.push(v, keys[v]);
+            }
+            for (int v = 0; v < 100; v += 3) {
+                keys[v] /= 2;
+                heap.decreaseKey(v, keys[v]);
+            }
+
+            double previous = Double.NEGATIVE_INFINITY;
+            while (!heap.isEmpty()) {
+                double key = heap.peekKey();
+                int v = heap.pop();
+                assertEquals(keys[v], key);
+                assertTrue(key >= previous);
+                assertFalse(heap.contains(v));
+                previous = key;
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Dijkstra with decrease-key pops each node at most once")
+    void testDijkstraHeapCounters() {
+        var graph = CsrGraph.from(Graph.generate(500, 4000, 10.0, new Random(5)));
+        var instr = new Instrument();
+        Dijkstra.shortestPaths(graph, 0, instr);
+
+        assertTrue(instr.getHeapPops() <= 500);
+        assertEquals(instr.getHeapPushes(), instr.getHeapPops());
+        assertEquals(instr.getHeapOps(),
+                instr.getHeapPushes() + instr.getHeapPops() + instr.getHeapDecreaseKeys());
+    }
+
+    @Test
+    @DisplayName("Node set membership, iteration order and O(size) clear")
+    void testNodeSet() {
+        var set = new NodeSet(10);
+        assertTrue(set.add(3));
+        assertTrue(set.add(70)); // beyond the initial capacity
+        assertFalse(set.add(3));
+        assertEquals(2, set.size());
+        assertEquals(3, set.get(0));
+        assertEquals(70, set.get(1));
+        assertTrue(set.contains(70));
+
+        set.retainIf(v -> v > 5);
+        assertFalse(set.contains(3));
+        assertArrayEquals(new int[]{70}, set.toArray());
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(70));
+    }
+
+    @Test
+    @DisplayName("Reusing a workspace gives the same BMSSP result")
+    void testWorkspaceReuse() {
+        var graph = CsrGraph.from(Graph.generate(2000, 8000, 10.0, new Random(9)));
+        var workspace = new QueryWorkspace(2000);
+
+        var first = DistanceStore.dense(2000);
+        first.set(0, 0.0);
+        var firstU = BMSSP.bmssp(graph, first, 2, Double.POSITIVE_INFINITY,
+                NodeSet.of(2000, 0), 2000, workspace, new Instrument()).U().toArray();
+
+        var second = DistanceStore.dense(2000);
+        second.set(0, 0.0);
+        var secondU = BMSSP.bmssp(graph, second, 2, Double.POSITIVE_INFINITY,
+                NodeSet.of(2000, 0), 2000, workspace, new Instrument()).U().toArray();
+
+        assertArrayEquals(firstU, secondU);
+        for (int v = 0; v < 2000; v++) {
+            assertEquals(first.get(v), second.get(v));
+        }
+    }
+
+    @Test
+    @DisplayName("Epoch-stamped workspace distances reset in O(1) between queries")
+    void testEpochWorkspace() {
+        var store = DistanceStore.epoch(4);
+        store.set(1, 2.5);
+        assertEquals(2.5, store.get(1));
+        assertTrue(Double.isInfinite(store.get(0)));
+        store.clear();
+        assertTrue(Double.isInfinite(store.get(1)));
+        assertEquals(0, store.countReachable());
+        store.set(2, 1.0);
+        assertEquals(1, store.countReachable());
+
+        var graph = CsrGraph.from(Graph.generate(3000, 12000, 10.0, new Random(43)));
+        var workspace = new QueryWorkspace(3000);
+        var expected = Dijkstra.shortestPaths(graph, 7, new Instrument());
+        var actual = Dijkstra.shortestPaths(graph, 7, workspace, new Instrument());
+        for (int v = 0; v < 3000; v++) {
+            assertEquals(expected.get(v), actual.get(v));
+        }
+
+        // Nothing of the full query above may leak into the next one
+        var ball = Dijkstra.ball(graph, 11, 5.0, workspace, new Instrument());
+        assertEquals(Dijkstra.ball(graph, 11, 5.0, new Instrument()).size(), ball.size());
+        for (int v = 0; v < 3000; v++) {
+            assertTrue(workspace.getDistances().get(v) <= 5.0 || Double.isInfinite(workspace.getDistances().get(v)));
+        }
+
+        for (int source : new int[]{0, 19}) {
+            var fresh = DistanceStore.dense(3000);
+            fresh.set(source, 0.0);
+            var freshResult = BMSSP.bmssp(graph, fresh, BMSSP.topLevelDepth(3000), Double.POSITIVE_INFINITY,
+                    NodeSet.of(3000, source), 3000, new QueryWorkspace(3000), new Instrument());
+            var reused = BMSSP.fromSource(graph, source, workspace, new Instrument());
+            assertEquals(freshResult.BPrime(), reused.BPrime());
+            for (int v = 0; v < 3000; v++) {
+                assertEquals(fresh.get(v), workspace.getDistances().get(v));
+            }
+        }
+        assertThrows(IllegalStateException.class, () -> new QueryWorkspace(10).getDistances());
+    }
+
+    @Test
+    @DisplayName("Predecessor trees give paths whose length matches the distances")
+    void testShortestPathTree() {
+        int n = 5000;
+        var graph = CsrGraph.from(Graph.generate(n, 20000, 10.0, new Random(31)));
+
+        var dijkstraTree = new ShortestPathTree(n);
+        var dijkstra = Dijkstra.shortestPaths(graph, 0, DistanceStore.dense(n), new IndexedDaryHeap(n),
+                dijkstraTree, new Instrument());
+        for (int v = 0; v < n; v++) {
+            if (Double.isFinite(dijkstra.get(v))) {
+                var path = dijkstraTree.pathTo(v);
+                assertEquals(0, path.source());
+                assertEquals(dijkstra.get(v), pathLength(graph, path.toArray()), 1e-9);
+            } else {
+                assertEquals(ShortestPathTree.NO_PARENT, dijkstraTree.parent(v));
+            }
+        }
+
+        // BMSSP estimates are upper bounds; each tree path is at most as long as its estimate
+        var bmssp = DistanceStore.atomic(n);
+        bmssp.set(0, 0.0);
+        var bmsspTree = new ShortestPathTree(n);
+        var pool = new ForkJoinPool(4);
+        try {
+            var workspace = new QueryWorkspace(n, BmsspConfig.defaults().withParallelRelax(true).withPool(pool));
+            workspace.setTree(bmsspTree);
+            BMSSP.bmssp(graph, bmssp, BMSSP.topLevelDepth(n), Double.POSITIVE_INFINITY,
+                    NodeSet.of(n, 0), n, workspace, new Instrument());
+        } finally {
+            pool.shutdown();
+        }
+        for (int v = 0; v < n; v++) {
+            if (Double.isFinite(bmssp.get(v))) {
+                var nodes = bmsspTree.pathTo(v).toArray();
+                assertEquals(0, nodes[0]);
+                double length = pathLength(graph, nodes);
+                assertTrue(length <= bmssp.get(v) + 1e-9);
+                assertTrue(length >= dijkstra.get(v) - 1e-9);
+            }
+        }
+
+        // One workspace and tree reused across sources keeps only the current query's parents
+        var reused = new QueryWorkspace(n);
+        var reusedTree = new ShortestPathTree(n);
+        reused.setTree(reusedTree);
+        for (int source : new int[]{0, 1}) {
+            var dist = Dijkstra.shortestPaths(graph, source, reused, new Instrument());
+            assertEquals(ShortestPathTree.NO_PARENT, reusedTree.parent(source));
+            assertPathsMatch(graph, reusedTree, dist, source);
+        }
+        for (int source : new int[]{2, 3}) {
+            BMSSP.fromSource(graph, source, reused, new Instrument());
+            var dist = reused.getDistances();
+            assertEquals(ShortestPathTree.NO_PARENT, reusedTree.parent(source));
+            for (int v = 0; v < n; v++) {
+                if (Double.isFinite(dist.get(v))) {
+                    var nodes = reusedTree.pathTo(v).toArray();
+                    assertEquals(source, nodes[0]);
+                    assertTrue(pathLength(graph, nodes) <= dist.get(v) + 1e-9);
+                } else {
+                    assertEquals(ShortestPathTree.NO_PARENT, reusedTree.parent(v));
+                }
+            }
+        }
+
+        // Walking the view by hand, and a chain with a cycle
+        var tree = new ShortestPathTree(4);
+        tree.setParent(2, 1);
+        tree.setParent(1, 0);
+        var path = tree.pathTo(2);
+        assertEquals(2, path.hops());
+        assertArrayEquals(new int[]{0, 1, 2}, path.toArray());
+        var fromTarget = path.fromTarget();
+        assertEquals(2, fromTarget.nextInt());
+        assertEquals(1, fromTarget.nextInt());
+        assertEquals(0, fromTarget.nextInt());
+        assertFalse(fromTarget.hasNext());
+        assertArrayEquals(new int[]{3}, tree.pathTo(3).toArray());
+        tree.setParent(0, 2);
+        assertThrows(IllegalStateException.class, () -> tree.pathTo(2).source());
+    }
+
+    @Test
+    @DisplayName("Target queries stop early and keep the exact target distances")
+    void testTargetQueries() {
+        int n = 5000;
+        var graph = CsrGraph.from(Graph.generate(n, 20000, 10.0, new Random(37)));
+        var full = Dijkstra.shortestPaths(graph, 0, new Instrument());
+
+        var reverse = CsrGraph.reverseOf(graph);
+        assertEquals(graph.getEdgeCount(), reverse.getEdgeCount());
+        var reverseFull = Dijkstra.shortestPaths(reverse, 7, new Instrument());
+        assertEquals(full.get(7), reverseFull.get(0));
+
+        // One nearby target needs only a small part of the graph
+        int near = graph.target(graph.edgeStart(0));
+        var fullInstr = new Instrument();
+        Dijkstra.shortestPaths(graph, 0, fullInstr);
+        var nearInstr = new Instrument();
+        var nearDist = Dijkstra.toTargets(graph, 0, NodeSet.of(n, near), nearInstr);
+        assertEquals(full.get(near), nearDist.get(near));
+        assertTrue(nearInstr.getRelaxations() < fullInstr.getRelaxations());
+
+        var targets = NodeSet.of(n, 17, 1234, 4999, 2500);
+        var early = Dijkstra.toTargets(graph, 0, targets, new Instrument());
+        var bidirectional = new BidirectionalDijkstra(graph, reverse);
+        for (int t : targets.toArray()) {
+            assertEquals(full.get(t), early.get(t));
+            assertEquals(full.get(t), bidirectional.distance(0, t, new Instrument()), 1e-9);
+        }
+
+        // Reused across sources, including source == target
+        var random = new Random(41);
+        for (int q = 0; q < 20; q++) {
+            int s = random.nextInt(n);
+            var expected = Dijkstra.shortestPaths(graph, s, new Instrument());
+            for (int i = 0; i < 5; i++) {
+                int t = i == 0 ? s : random.nextInt(n);
+                assertEquals(expected.get(t), bidirectional.distance(s, t, new Instrument()), 1e-9);
+            }
+        }
+
+        // BMSSP stops at the top level with the same target estimates as a full run
+        var fullBmssp = DistanceStore.dense(n);
+        fullBmssp.set(0, 0.0);
+        var fullBmsspInstr = new Instrument();
+        BMSSP.bmssp(graph, fullBmssp, BMSSP.topLevelDepth(n), Double.POSITIVE_INFINITY,
+                NodeSet.of(n, 0), n, new QueryWorkspace(n), fullBmsspInstr);
+        var earlyBmssp = DistanceStore.dense(n);
+        earlyBmssp.set(0, 0.0);
+        var earlyBmsspInstr = new Instrument();
+        BMSSP.toTargets(graph, earlyBmssp, NodeSet.of(n, 0), NodeSet.of(n, near), new QueryWorkspace(n),
+                earlyBmsspInstr);
+        assertEquals(fullBmssp.get(near), earlyBmssp.get(near));
+        assertTrue(earlyBmsspInstr.getRelaxations() < fullBmsspInstr.getRelaxations());
+
+        // Unreachable target
+        var adjacency = new Graph(3);
+        adjacency.addEdge(0, 1, 1.0);
+        var tiny = CsrGraph.from(adjacency);
+        assertEquals(Double.POSITIVE_INFINITY, new BidirectionalDijkstra(tiny).distance(0, 2, new Instrument()));
+        assertEquals(Double.POSITIVE_INFINITY,
+                Dijkstra.toTargets(tiny, 0, NodeSet.of(3, 1, 2), new Instrument()).get(2));
+    }
+
+    @Test
+    @DisplayName("Ball queries return the nodes within the radius")
+    void testBallQueries() {
+        int n = 5000;
+        var graph = CsrGraph.from(Graph.generate(n, 20000, 10.0, new Random(43)));
+        var full = Dijkstra.shortestPaths(graph, 0, new Instrument());
+        double radius = 12.0;
+
+        var expected = new TreeMap<Integer, Double>();
+        for (int v = 0; v < n; v++) {
+            if (full.get(v) <= radius) {
+                expected.put(v, full.get(v));
+            }
+        }
+
+        var fullInstr = new Instrument();
+        Dijkstra.shortestPaths(graph, 0, fullInstr);
+        var dijkstraInstr = new Instrument();
+        var dijkstra = Dijkstra.ball(graph, 0, radius, dijkstraInstr);
+        assertTrue(dijkstra.complete());
+        assertEquals(expected, ballMap(dijkstra));
+        assertTrue(dijkstraInstr.getRelaxations() < fullInstr.getRelaxations());
+        for (int i = 1; i < dijkstra.size(); i++) {
+            assertTrue(dijkstra.distances()[i - 1] <= dijkstra.distances()[i]);
+        }
+
+        assertBmsspBall(graph, full, radius);
+        for (long seed = 0; seed < 8; seed++) {
+            var small = CsrGraph.from(Graph.generate(517, 2068, 10.0, new Random(seed)));
+            assertBmsspBall(small, Dijkstra.shortestPaths(small, 0, new Instrument()), 13.0);
+        }
+
+        assertArrayEquals(new int[]{0}, Dijkstra.ball(graph, 0, 0.0, new Instrument()).nodes());
+        assertThrows(IllegalArgumentException.class, () -> Dijkstra.ball(graph, 0, -1.0, new Instrument()));
+    }
+
+    @Test
+    @DisplayName("Parameter profiles: heuristic, persistence and tuning")
+    void testBmsspParams(@TempDir Path dir) throws IOException {
+        var heuristic = BmsspParams.heuristic(200000);
+        assertEquals(new BmsspParams(5, 2, 32, 64, 2), heuristic);
+        assertEquals(BMSSP.topLevelDepth(30000), BmsspParams.heuristic(30000).topLevel());
+        assertThrows(IllegalArgumentException.class, () -> new BmsspParams(0, 2, 32, 64, 2));
+        assertThrows(IllegalArgumentException.class, () -> new BmsspParams(11, 2, 32, 64, 3));
+
+        var profile = dir.resolve("bmssp.properties");
+        var tuned = new BmsspParams(4, 3, 16, 128, 2);
+        tuned.save(profile, "test");
+        assertEquals(tuned, BmsspParams.load(profile));
+        Files.writeString(profile, "t=4\nk=3\n");
+        assertThrows(IOException.class, () -> BmsspParams.load(profile));
+
+        // Explicit heuristic parameters run exactly like the default config
+        int n = 3000;
+        var graph = CsrGraph.from(Graph.generate(n, 12000, 10.0, new Random(59)));
+        var expected = DistanceStore.dense(n);
+        expected.set(0, 0.0);
+        BMSSP.bmssp(graph, expected, BMSSP.topLevelDepth(n), Double.POSITIVE_INFINITY, NodeSet.of(n, 0), n,
+                new QueryWorkspace(n), new Instrument());
+        var config = BmsspConfig.defaults().withParams(BmsspParams.heuristic(n));
+        var actual = DistanceStore.dense(n);
+        actual.set(0, 0.0);
+        BMSSP.bmssp(graph, actual, config.params(n).topLevel(), Double.POSITIVE_INFINITY, NodeSet.of(n, 0), n,
+                new QueryWorkspace(n, config), new Instrument());
+        for (int v = 0; v < n; v++) {
+            assertEquals(expected.get(v), actual.get(v));
+        }
+
+        // The tuner never gives up accuracy for speed
+        var tuner = new BmsspTuner(graph, BmsspConfig.defaults(), new int[]{0, 7});
+        var baseline = tuner.measure(BmsspParams.heuristic(n));
+        var trials = new ArrayList<BmsspTuner.Trial>();
+        var best = tuner.tune(trials::add);
+        assertTrue(trials.size() > 1);
+        assertTrue(best.exactNodes() >= baseline.exactNodes());
+        assertEquals(best.exactNodes(), tuner.measure(best.params()).exactNodes());
+    }
+
+    @Test
+    @DisplayName("Per-level metrics account for every call and can be shared by concurrent queries")
+    void testMetrics() {
+        int n = 20000;
+        var graph = CsrGraph.from(Graph.generate(n, 80000, 10.0, new Random(47)));
+        int l = BMSSP.topLevelDepth(n);
+        var metrics = new Metrics();
+        var config = BmsspConfig.defaults().withMetrics(metrics);
+
+        var dist = DistanceStore.dense(n);
+        dist.set(0, 0.0);
+        var instr = new Instrument();
+        var result = BMSSP.bmssp(graph, dist, l, Double.POSITIVE_INFINITY, NodeSet.of(n, 0), n,
+                new QueryWorkspace(n, config), instr);
+
+        assertEquals(l + 1, metrics.levelCount());
+        assertEquals(1, metrics.get(l, Metrics.Counter.BMSSP_CALLS));
+        assertEquals(1, metrics.get(l, Metrics.Counter.S_NODES));
+        assertEquals(result.U().size(), metrics.get(l, Metrics.Counter.U_NODES));
+        assertEquals(metrics.get(0, Metrics.Counter.BMSSP_CALLS), metrics.get(0, Metrics.Counter.BASE_CASE_CALLS));
+        long relaxed = 0;
+        for (int level = 1; level <= l; level++) {
+            // Every pull feeds exactly one recursive call one level down
+            assertEquals(metrics.get(level, Metrics.Counter.PULLS), metrics.get(level - 1, Metrics.Counter.BMSSP_CALLS));
+            assertEquals(metrics.get(level, Metrics.Counter.BMSSP_CALLS), metrics.get(level, Metrics.Counter.FIND_PIVOTS_CALLS));
+            assertTrue(metrics.get(level, Metrics.Counter.BMSSP_NANOS) >= metrics.get(level, Metrics.Counter.RELAX_NANOS));
+            relaxed += metrics.get(level, Metrics.Counter.RELAXATIONS);
+        }
+        assertTrue(relaxed > 0 && relaxed <= instr.getRelaxations());
+
+        var csv = metrics.toCsv().split("\n");
+        assertEquals(l + 2, csv.length);
+        assertTrue(csv[0].startsWith("level,bmssp_calls,bmssp_nanos,s_nodes,u_nodes"));
+        assertTrue(metrics.toJson().contains("{\"level\": " + l + ", \"bmssp_calls\": 1,"));
+
+        // Concurrent queries add into the same registry
+        metrics.reset();
+        assertEquals(0, metrics.get(l, Metrics.Counter.BMSSP_CALLS));
+        try (var engine = new QueryEngine(graph, config, QueryEngine.Algorithm.BMSSP, QueryEngine.ExecutorKind.FIXED, 3)) {
+            engine.runBatch(new int[]{0, 1, 2, 3, 4, 5, 6, 7});
+        }
+        assertEquals(8, metrics.get(l, Metrics.Counter.BMSSP_CALLS));
+    }
+
+    @Test
+    @DisplayName("Flight recorder events match the per-level metrics")
+    void testFlightRecorderEvents(@TempDir Path dir) throws IOException {
+        int n = 20000;
+        var graph = CsrGraph.from(Graph.generate(n, 80000, 10.0, new Random(53)));
+        int l = BMSSP.topLevelDepth(n);
+        var metrics = new Metrics();
+        var dist = DistanceStore.dense(n);
+        dist.set(0, 0.0);
+
+        var file = dir.resolve("bmssp.jfr");
+        BMSSP.Result result;
+        try (var recording = new Recording()) {
+            for (var name : List.of("org.bmssp.Bmssp", "org.bmssp.FindPivots", "org.bmssp.BaseCase",
+                    "org.bmssp.Pull", "org.bmssp.BatchPrepend")) {
+                recording.enable(name);
+            }
+            recording.start();
+            result = BMSSP.bmssp(graph, dist, l, Double.POSITIVE_INFINITY, NodeSet.of(n, 0), n,
+                    new QueryWorkspace(n, BmsspConfig.defaults().withMetrics(metrics)), new Instrument());
+            recording.stop();
+            recording.dump(file);
+        }
+
+        var counts = new HashMap<String, Integer>();
+        RecordedEvent top = null;
+        for (var event : RecordingFile.readAllEvents(file)) {
+            counts.merge(event.getEventType().getName(), 1, Integer::sum);
+            if (event.getEventType().getName().equals("org.bmssp.Bmssp") && event.getInt("depth") == l) {
+                top = event;
+            }
+        }
+        assertEquals(totalOverLevels(metrics, Metrics.Counter.BMSSP_CALLS), counts.get("org.bmssp.Bmssp"));
+        assertEquals(totalOverLevels(metrics, Metrics.Counter.FIND_PIVOTS_CALLS), counts.get("org.bmssp.FindPivots"));
+        assertEquals(totalOverLevels(metrics, Metrics.Counter.BASE_CASE_CALLS), counts.get("org.bmssp.BaseCase"));
+        assertEquals(totalOverLevels(metrics, Metrics.Counter.PULLS), counts.get("org.bmssp.Pull"));
+        assertEquals(totalOverLevels(metrics, Metrics.Counter.BATCH_PREPENDS),
+                counts.getOrDefault("org.bmssp.BatchPrepend", 0));
+
+        assertNotNull(top);
+        assertEquals(1, top.getInt("sources"));
+        assertEquals(result.U().size(), top.getInt("completed"));
+        assertEquals(result.BPrime(), top.getDouble("newBound"));
+        assertEquals(Double.POSITIVE_INFINITY, top.getDouble("bound"));
+    }
+
+    @Test
+    @DisplayName("Parallel FIND_PIVOTS matches the sequential P and W")
+    void testParallelFindPivots() {
+        int n = 20000;
+        var graph = CsrGraph.from(Graph.generate(n, 160000, 10.0, new Random(11)));
+        var dist = Dijkstra.shortestPaths(graph, 0, new Instrument());
+        var S = new NodeSet(n);
+        for (int v = 0; v < n; v += 7) {
+            S.add(v);
+        }
+
+        var pool = new ForkJoinPool(4);
+        try {
+            var sequential = new QueryWorkspace(n);
+            var parallel = new QueryWorkspace(n, BmsspConfig.defaults().withParallelPivots(true).withPool(pool));
+            var seqInstr = new Instrument();
+            var parInstr = new Instrument();
+            for (double B : new double[]{20.0, 40.0, Double.POSITIVE_INFINITY}) {
+                var expected = FindPivots.findPivots(graph, dist, S, B, n, 3, 64, sequential, 1, seqInstr);
+                var actual = FindPivots.findPivots(graph, dist, S, B, n, 3, 64, parallel, 1, parInstr);
+
+                assertArrayEquals(sortedMembers(expected.P()), sortedMembers(actual.P()));
+                assertArrayEquals(sortedMembers(expected.W()), sortedMembers(actual.W()));
+            }
+            assertEquals(seqInstr.getRelaxations(), parInstr.getRelaxations());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel Ui relaxation gives the same distances and U as the sequential run")
+    void testParallelRelax() {
+        int n = 50000;
+        var graph = CsrGraph.from(Graph.generate(n, 400000, 10.0, new Random(13)));
+        int l = BMSSP.topLevelDepth(n);
+
+        var sequential = DistanceStore.dense(n);
+        sequential.set(0, 0.0);
+        var expected = BMSSP.bmssp(graph, sequential, l, Double.POSITIVE_INFINITY,
+                NodeSet.of(n, 0), n, new QueryWorkspace(n), new Instrument());
+
+        var pool = new ForkJoinPool(4);
+        try {
+            var config = BmsspConfig.defaults().withParallelRelax(true).withPool(pool);
+            var parallel = DistanceStore.atomic(n);
+            parallel.set(0, 0.0);
+            var actual = BMSSP.bmssp(graph, parallel, l, Double.POSITIVE_INFINITY,
+                    NodeSet.of(n, 0), n, new QueryWorkspace(n, config), new Instrument());
+
+            assertEquals(expected.BPrime(), actual.BPrime());
+            assertArrayEquals(sortedMembers(expected.U()), sortedMembers(actual.U()));
+            for (int v = 0; v < n; v++) {
+                assertEquals(sequential.get(v), parallel.get(v));
+            }
+
+            assertThrows(IllegalArgumentException.class, () -> BMSSP.bmssp(graph, DistanceStore.dense(n), l,
+                    Double.POSITIVE_INFINITY, NodeSet.of(n, 0), n, new QueryWorkspace(n, config), new Instrument()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Atomic distance store keeps the minimum under concurrent updates")
+    void testAtomicDistanceStore() {
+        var store = DistanceStore.atomic(1);
+        java.util.stream.IntStream.range(0, 10000).parallel()
+                .forEach(i -> store.lowerTo(0, 10000 - i));
+        assertEquals(1.0, store.get(0));
+        assertTrue(store.lowerTo(0, 1.0));
+        assertFalse(store.lowerTo(0, 2.0));
+    }
+
+    @Test
+    @DisplayName("Delta-stepping matches Dijkstra for several bucket widths")
+    void testDeltaStepping() {
+        int n = 20000;
+        var graph = CsrGraph.from(Graph.generate(n, 100000, 100.0, new Random(17)));
+        var expected = Dijkstra.shortestPaths(graph, 0, new Instrument());
+
+        var pool = new ForkJoinPool(4);
+        try {
+            for (double delta : new double[]{0.5, 7.0, DeltaStepping.defaultDelta(graph), 1000.0}) {
+                var engine = new DeltaStepping(graph, delta);
+                // Run twice to check that the buckets are reset between queries
+                for (int run = 0; run < 2; run++) {
+                    var dist = engine.shortestPaths(0, pool, new Instrument());
+                    for (int v = 0; v < n; v++) {
+                        assertEquals(expected.get(v), dist.get(v), 1e-9, "delta=" + delta + " node " + v);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class, () -> new DeltaStepping(graph, 0.0));
+    }
+
+    @Test
+    @DisplayName("Query engine batches match single queries on every executor")
+    void testQueryEngine() {
+        int n = 3000;
+        var graph = CsrGraph.from(Graph.generate(n, 12000, 10.0, new Random(19)));
+        var sources = new int[]{0, 5, 17, 0, 2999, 1234, 5, 42};
+        int l = BMSSP.topLevelDepth(n);
+
+        var expectedDijkstra = new HashMap<Integer, DistanceStore>();
+        var expectedBmssp = new HashMap<Integer, DistanceStore>();
+        for (int source : sources) {
+            expectedDijkstra.put(source, Dijkstra.shortestPaths(graph, source, new Instrument()));
+            var dist = DistanceStore.dense(n);
+            dist.set(source, 0.0);
+            BMSSP.bmssp(graph, dist, l, Double.POSITIVE_INFINITY, NodeSet.of(n, source), n, new Instrument());
+            expectedBmssp.put(source, dist);
+        }
+
+        for (var executor : QueryEngine.ExecutorKind.values()) {
+            for (var algorithm : QueryEngine.Algorithm.values()) {
+                var expected = algorithm == QueryEngine.Algorithm.DIJKSTRA ? expectedDijkstra : expectedBmssp;
+                var mismatches = new java.util.concurrent.atomic.AtomicInteger();
+                try (var engine = new QueryEngine(graph, BmsspConfig.defaults(), algorithm, executor, 3)) {
+                    // Two batches so every slot is reused
+                    for (int batch = 0; batch < 2; batch++) {
+                        var report = engine.runBatch(sources, (dist, source) -> {
+                            for (int v = 0; v < n; v++) {
+                                if (dist.get(v) != expected.get(source).get(v)) {
+                                    mismatches.incrementAndGet();
+                                }
+                            }
+                        });
+                        assertEquals(sources.length, report.queries());
+                        assertTrue(report.p50Millis() <= report.p99Millis());
+                        assertTrue(report.p99Millis() <= report.maxMillis());
+                        assertTrue(report.p50QueueMillis() <= report.p99QueueMillis());
+                        assertTrue(report.p99QueueMillis() <= report.maxMillis());
+                    }
+                }
+                assertEquals(0, mismatches.get(), executor + " " + algorithm);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("CSR snapshot round-trips through a memory-mapped file")
+    void testCsrSnapshot(@TempDir Path dir) throws IOException {
+        // Odd node and edge counts exercise the section padding
+        var adjacency = Graph.generate(1001, 5001, 10.0, new Random(23));
+        var graph = CsrGraph.from(adjacency);
+        var file = dir.resolve("graph.csr");
+        CsrSnapshot.write(adjacency.graph(), file);
+
+        var mapped = CsrSnapshot.map(file);
+        assertEquals(graph.getNodeCount(), mapped.getNodeCount());
+        assertEquals(graph.getEdgeCount(), mapped.getEdgeCount());
+        for (int u = 0; u < graph.getNodeCount(); u++) {
+            assertEquals(graph.getOutDegree(u), mapped.getOutDegree(u));
+        }
+
+        var expected = Dijkstra.shortestPaths(graph, 0, new Instrument());
+        var actual = Dijkstra.shortestPaths(mapped, 0, new Instrument());
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            assertEquals(expected.get(v), actual.get(v));
+        }
+
+        var truncated = dir.resolve("truncated.csr");
+        Files.write(truncated, Arrays.copyOf(Files.readAllBytes(file), (int) Files.size(file) - 8));
+        assertThrows(IOException.class, () -> CsrSnapshot.map(truncated));
+        var garbage = dir.resolve("garbage.csr");
+        Files.write(garbage, new byte[64]);
+        assertThrows(IOException.class, () -> CsrSnapshot.map(garbage));
+
+        assertEquals(graph.getEdgeCount(), CsrSnapshot.map(file, true).getEdgeCount());
+
+        // Right size and header, but node 1's offset points past the edges
+        var corrupt = dir.resolve("corrupt.csr");
+        var bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(36, Integer.MAX_VALUE);
+        Files.write(corrupt, bytes);
+        assertThrows(IOException.class, () -> CsrSnapshot.map(corrupt, true));
+
+        // Offsets intact, but the first edge targets a node that does not exist
+        var badTarget = dir.resolve("bad-target.csr");
+        bytes = Files.readAllBytes(file);
+        int targetsAt = 32 + (1002 * Integer.BYTES + 7) / 8 * 8;
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(targetsAt, 1001);
+        Files.write(badTarget, bytes);
+        assertEquals(graph.getEdgeCount(), CsrSnapshot.map(badTarget).getEdgeCount());
+        assertThrows(IOException.class, () -> CsrSnapshot.map(badTarget, true));
+    }
+
+    @Test
+    @DisplayName("Off-heap CSR graph gives the same distances as the heap graph")
+    void testOffHeapCsrGraph() {
+        var graph = CsrGraph.from(Graph.generate(2000, 8000, 10.0, new Random(29)));
+        var offHeap = OffHeapCsrGraph.copyOf(graph);
+        try (offHeap) {
+            assertEquals(graph.getEdgeCount(), offHeap.getEdgeCount());
+            assertTrue(offHeap.byteSize() >= 2001L * Long.BYTES + 8000L * (Integer.BYTES + Double.BYTES));
+
+            var expected = Dijkstra.shortestPaths(graph, 0, new Instrument());
+            var actual = Dijkstra.shortestPaths(offHeap, 0, new Instrument());
+            var heapBmssp = DistanceStore.dense(2000);
+            heapBmssp.set(0, 0.0);
+            BMSSP.bmssp(graph, heapBmssp, BMSSP.topLevelDepth(2000), Double.POSITIVE_INFINITY,
+                    NodeSet.of(2000, 0), 2000, new QueryWorkspace(2000), new Instrument());
+            var offHeapBmssp = DistanceStore.dense(2000);
+            offHeapBmssp.set(0, 0.0);
+            BMSSP.bmssp(offHeap, offHeapBmssp, BMSSP.topLevelDepth(2000), Double.POSITIVE_INFINITY,
+                    NodeSet.of(2000, 0), 2000, new QueryWorkspace(2000), new Instrument());
+            for (int v = 0; v < 2000; v++) {
+                assertEquals(expected.get(v), actual.get(v));
+                assertEquals(heapBmssp.get(v), offHeapBmssp.get(v));
+            }
+        }
+        assertThrows(IllegalStateException.class, () -> offHeap.edgeStart(0));
+
+        try (var builder = OffHeapCsrGraph.builder(3, 2).addEdge(1, 2, 1.0)) {
+            assertThrows(IllegalStateException.class, () -> builder.addEdge(0, 1, 1.0));
+            assertThrows(IllegalArgumentException.class, () -> builder.addEdge(1, 0, -1.0));
+            assertThrows(IllegalStateException.class, builder::build);
+            try (var tiny = builder.addEdge(1, 0, 2.0).build()) {
+                assertThrows(IllegalStateException.class, builder::build);
+                assertEquals(0, tiny.getOutDegree(0));
+                assertEquals(2, tiny.getOutDegree(1));
+                assertEquals(0, tiny.getOutDegree(2));
+                assertEquals(0, tiny.target(1));
+            }
+        }
+
+        var abandoned = OffHeapCsrGraph.builder(2, 1);
+        abandoned.close();
+        assertThrows(IllegalStateException.class, () -> abandoned.addEdge(0, 1, 1.0));
+    }
+
+    @Test
+    @DisplayName("Radix heap pops in key order and rejects keys below the last pop")
+    void testRadixHeap() {
+        var heap = new RadixHeap(200);
+        var random = new Random(31);
+        var keys = new long[200];
+        for (int v = 0; v < 200; v++) {
+            keys[v] = random.nextInt(1_000_000);
+            heap.push(v, keys[v]);
+        }
+        for (int v = 0; v < 200; v += 3) {
+            keys[v] /= 2;
+            heap.decreaseKey(v, keys[v]);
+        }
+
+        long previous = 0;
+        while (!heap.isEmpty()) {
+            long key = heap.peekKey();
+            int v = heap.pop();
+            assertEquals(keys[v], key);
+            assertTrue(key >= previous);
+            assertFalse(heap.contains(v));
+            previous = key;
+        }
+
+        heap.clear();
+        heap.push(0, 10);
+        heap.pop();
+        assertThrows(IllegalArgumentException.class, () -> heap.push(1, 9));
+        heap.clear();
+        heap.push(1, 9);
+        assertEquals(1, heap.pop());
+    }
+
+    @Test
+    @DisplayName("Integer-weight graphs give the same distances with long and double keys")
+    void testIntegerWeights() {
+        var graph = CsrGraph.from(Graph.generate(2000, 8000, 10.0, new Random(37)));
+        var intGraph = IntCsrGraph.scaled(graph, 10);
+        assertEquals(graph.getEdgeCount(), intGraph.getEdgeCount());
+        int maxWeight = 0;
+        for (long e = 0; e < graph.getEdgeCount(); e++) {
+            assertEquals(graph.target(e), intGraph.target(e));
+            assertEquals(Math.rint(graph.weight(e) * 10), intGraph.weight(e));
+            maxWeight = Math.max(maxWeight, intGraph.intWeight(e));
+        }
+        assertEquals(maxWeight, intGraph.getMaxWeight());
+
+        var expected = Dijkstra.shortestPaths(intGraph, 0, new Instrument());
+        var actual = IntDijkstra.shortestPaths(intGraph, 0, new Instrument());
+        var bmssp = DistanceStore.dense(2000);
+        bmssp.set(0, 0.0);
+        BMSSP.bmssp(intGraph, bmssp, BMSSP.topLevelDepth(2000), Double.POSITIVE_INFINITY,
+                NodeSet.of(2000, 0), 2000, new QueryWorkspace(2000), new Instrument());
+        for (int v = 0; v < 2000; v++) {
+            if (Double.isInfinite(expected.get(v))) {
+                assertEquals(IntDijkstra.UNREACHABLE, actual[v]);
+            } else {
+                assertEquals(expected.get(v), actual[v]);
+            }
+            double d = bmssp.get(v);
+            if (!Double.isInfinite(d)) {
+                assertEquals(Math.rint(d), d);
+                assertTrue(d >= expected.get(v));
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new IntCsrGraph(new int[]{0, 1, 1}, new int[]{1}, new int[]{-1}));
+        assertThrows(IllegalArgumentException.class, () -> IntCsrGraph.scaled(graph, 0));
+    }
+
+    @Test
+    @DisplayName("Single-precision weights and distances stay within float rounding of double")
+    void testFloat32() {
+        var store = DistanceStore.denseFloat(3);
+        assertTrue(Double.isInfinite(store.get(0)));
+        store.set(0, 0.1);
+        assertEquals(0.1f, store.get(0));
+        assertEquals(0.1f, store.narrow(0.1));
+        assertEquals(0.1, DistanceStore.dense(3).narrow(0.1));
+
+        var graph = CsrGraph.from(Graph.generate(2000, 8000, 10.0, new Random(41)));
+        var floatGraph = FloatCsrGraph.narrowed(graph);
+        for (long e = 0; e < graph.getEdgeCount(); e++) {
+            assertEquals((float) graph.weight(e), floatGraph.weight(e));
+        }
+
+        var expected = Dijkstra.shortestPaths(graph, 0, new Instrument());
+        var instr = new Instrument();
+        var actual = Dijkstra.shortestPaths(floatGraph, 0, DistanceStore.denseFloat(2000), instr);
+        assertEquals(expected.countReachable(), actual.countReachable());
+        assertEquals(instr.getHeapPushes(), instr.getHeapPops());
+        assertTrue(instr.getHeapPops() <= 2000);
+        for (int v = 0; v < 2000; v++) {
+            double d = expected.get(v);
+            if (Double.isFinite(d)) {
+                assertEquals(d, actual.get(v), 1e-5 * Math.max(1.0, d));
+            }
+        }
+
+        var result = TestRunner.runPrecisionTest(graph, 0, BmsspConfig.defaults());
+        assertTrue(result.dijkstraMaxDiff() < 1e-3);
+        assertTrue(result.bmsspMaxDiff() < 1e-3);
+
+        // Zero-weight cycle: a rounded candidate never undercuts the label it came from
+        var cycle = new Graph(3);
+        cycle.addEdge(0, 1, 0.1);
+        cycle.addEdge(1, 2, 0.0);
+        cycle.addEdge(2, 1, 0.0);
+        var cycleInstr = new Instrument();
+        var cycleDist = Dijkstra.shortestPaths(FloatCsrGraph.narrowed(CsrGraph.from(cycle)), 0,
+                DistanceStore.denseFloat(3), cycleInstr);
+        assertEquals(cycleDist.get(1), cycleDist.get(2));
+        assertEquals(3, cycleInstr.getHeapPops());
+    }
+
+    @Test
+    @DisplayName("Dynamic graph updates keep repaired distances equal to a fresh Dijkstra run")
+    void testDynamicGraph() {
+        var graph = new DynamicCsrGraph(3);
+        graph.addEdge(0, 1, 1.0);
+        graph.addEdge(0, 2, 4.0);
+        graph.addEdge(1, 2, 2.0);
+        assertEquals(3, graph.getEdgeCount());
+        assertEquals(2.0, graph.setWeight(1, 2, 5.0));
+        assertEquals(5.0, graph.getWeight(1, 2));
+        assertEquals(2, graph.getInDegree(2));
+        assertThrows(IllegalArgumentException.class, () -> graph.setWeight(2, 0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> graph.addEdge(2, 0, -1.0));
+        // Growing a node past its slack moves it without losing edges
+        for (int i = 0; i < 20; i++) {
+            graph.addEdge(2, 0, i);
+        }
+        assertEquals(20, graph.getOutDegree(2));
+        assertEquals(0.0, graph.getWeight(2, 0));
+        assertEquals(4.0, graph.removeEdge(0, 2));
+        assertTrue(Double.isNaN(graph.removeEdge(0, 2)));
+        assertEquals(Double.POSITIVE_INFINITY, graph.getWeight(0, 2));
+        assertEquals(22, graph.getEdgeCount());
+        assertEquals(21, graph.getInDegree(0) + graph.getInDegree(2));
+
+        var sssp = new DynamicSssp(graph, 0);
+        assertEquals(6.0, sssp.distances().get(2));
+        assertEquals(1, sssp.tree().parent(2));
+        sssp.setWeight(0, 1, 0.5, new Instrument());
+        assertEquals(5.5, sssp.distances().get(2));
+        sssp.removeEdge(1, 2, new Instrument());
+        assertEquals(Double.POSITIVE_INFINITY, sssp.distances().get(2));
+        assertEquals(ShortestPathTree.NO_PARENT, sssp.tree().parent(2));
+        sssp.addEdge(0, 2, 3.0, new Instrument());
+        assertEquals(3.0, sssp.distances().get(2));
+        assertEquals(0, sssp.tree().parent(2));
+
+        var csr = CsrGraph.from(Graph.generate(2000, 8000, 10.0, new Random(43)));
+        var dynamic = DynamicCsrGraph.copyOf(csr);
+        assertEquals(csr.getEdgeCount(), dynamic.getEdgeCount());
+        var copied = Dijkstra.shortestPaths(dynamic, 0, new Instrument());
+        var original = Dijkstra.shortestPaths(csr, 0, new Instrument());
+        for (int v = 0; v < 2000; v++) {
+            assertEquals(original.get(v), copied.get(v));
+        }
+        // Consumers that copy edges must skip the slack between nodes
+        assertEquals(csr.getEdgeCount(), CsrGraph.reverseOf(dynamic).getEdgeCount());
+        var pool = new ForkJoinPool(2);
+        try {
+            var delta = new DeltaStepping(dynamic, DeltaStepping.defaultDelta(dynamic)).shortestPaths(0, pool,
+                    new Instrument());
+            for (int v = 0; v < 2000; v++) {
+                assertEquals(original.get(v), delta.get(v), 1e-9);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        var repaired = new DynamicSssp(dynamic, 0, 7);
+        var random = new Random(44);
+        var instr = new Instrument();
+        for (int i = 0; i < 3000; i++) {
+            int from = random.nextInt(2000);
+            int to = random.nextInt(2000);
+            switch (random.nextInt(4)) {
+                case 0 -> repaired.addEdge(from, to, 10.0 * random.nextDouble(), instr);
+                case 1 -> repaired.removeEdge(from, dynamic.getOutDegree(from) > 0
+                        ? dynamic.target(dynamic.edgeStart(from)) : to, instr);
+                default -> {
+                    if (dynamic.getOutDegree(from) > 0) {
+                        long e = dynamic.edgeStart(from) + random.nextInt(dynamic.getOutDegree(from));
+                        repaired.setWeight(from, dynamic.target(e), 20.0 * random.nextDouble(), instr);
+                    }
+                }
+            }
+        }
+        var expected = Dijkstra.shortestPaths(dynamic, 0, new Instrument());
+        var fromBoth = DistanceStore.dense(2000);
+        var fromSeven = Dijkstra.shortestPaths(dynamic, 7, new Instrument());
+        for (int v = 0; v < 2000; v++) {
+            fromBoth.set(v, Math.min(expected.get(v), fromSeven.get(v)));
+        }
+        for (int v = 0; v < 2000; v++) {
+            assertEquals(fromBoth.get(v), repaired.distances().get(v), "node " + v);
+            int parent = repaired.tree().parent(v);
+            if (parent != ShortestPathTree.NO_PARENT) {
+                assertEquals(repaired.distances().get(v),
+                        repaired.distances().get(parent) + dynamic.getWeight(parent, v), 1e-9);
+            }
+        }
+
+        var result = TestRunner.runDynamicTest(csr, 0, 500, 45);
+        assertEquals(0.0, result.maxDiff());
+        assertTrue(result.repairRelaxations() < 500 * result.rerunRelaxations());
+    }
+
+    @Test
+    @DisplayName("DIMACS and SNAP readers build the expected CSR graph")
+    void testEdgeListReader(@TempDir Path dir) throws IOException {
+        var dimacs = dir.resolve("tiny.gr");
+        Files.writeString(dimacs, """
+                c tiny test graph
+                p sp 4 5
+                a 1 2 7
+                a 1 3 2\r
+                c interleaved comment
+
+                a 3 2 3
+                a 2 4 1.5
+                a 3 4 1e1
+                """);
+        var graph = EdgeListReader.read(dimacs);
+        assertEquals(4, graph.getNodeCount());
+        assertEquals(5, graph.getEdgeCount());
+        var dist = Dijkstra.shortestPaths(graph, 0, new Instrument());
+        assertArrayEquals(new double[]{0.0, 5.0, 2.0, 6.5},
+                new double[]{dist.get(0), dist.get(1), dist.get(2), dist.get(3)});
+
+        var snap = dir.resolve("tiny.txt");
+        Files.writeString(snap, "# Directed graph\n# FromNodeId\tToNodeId\n0\t1\n1\t2\n0\t5 4.0\n");
+        var snapGraph = EdgeListReader.read(snap);
+        assertEquals(6, snapGraph.getNodeCount());
+        assertEquals(3, snapGraph.getEdgeCount());
+        var snapDist = Dijkstra.shortestPaths(snapGraph, 0, new Instrument());
+        assertEquals(2.0, snapDist.get(2));
+        assertEquals(4.0, snapDist.get(5));
+
+        var bad = dir.resolve("bad.gr");
+        Files.writeString(bad, "p sp 2 1\na 1 3 4\n");
+        assertThrows(IOException.class, () -> EdgeListReader.read(bad));
+        var noHeader = dir.resolve("noheader.gr");
+        Files.writeString(noHeader, "a 1 2 4\n");
+        assertThrows(IOException.class, () -> EdgeListReader.read(noHeader));
+    }
+
+    @Test
+    @DisplayName("Parallel edge-list parsing over several chunks matches the builder")
+    void testEdgeListReaderChunks(@TempDir Path dir) throws IOException {
+        int n = 50000;
+        var generated = Graph.generate(n, 400000, 100.0, new Random(29));
+        var file = dir.resolve("large.txt");
+        try (var out = Files.newBufferedWriter(file)) {
+            out.write("# generated\n");
+            for (var edge : generated.edges()) {
+                out.write(edge.from() + " " + edge.to() + " " + edge.weight() + "\n");
+            }
+        }
+
+        var pool = new ForkJoinPool(4);
+        try {
+            var expected = CsrGraph.from(generated);
+            var graph = EdgeListReader.read(file, EdgeListReader.Format.SNAP, pool);
+            assertEquals(expected.getEdgeCount(), graph.getEdgeCount());
+            for (int u = 0; u < n; u++) {
+                assertEquals(expected.getOutDegree(u), graph.getOutDegree(u));
+            }
+            var expectedDist = Dijkstra.shortestPaths(expected, 0, new Instrument());
+            var dist = Dijkstra.shortestPaths(graph, 0, new Instrument());
+            for (int v = 0; v < n; v++) {
+                assertEquals(expectedDist.get(v), dist.get(v));
+            }
+            // Segments are sorted, so repeated loads are identical, on-heap or off
+            var again = EdgeListReader.read(file, EdgeListReader.Format.SNAP, pool);
+            try (var offHeap = EdgeListReader.readOffHeap(file, EdgeListReader.Format.SNAP, pool)) {
+                assertEquals(graph.getEdgeCount(), offHeap.getEdgeCount());
+                for (int u = 0; u <= n; u++) {
+                    assertEquals(graph.edgeStart(u), offHeap.edgeStart(u));
+                }
+                for (long e = 0; e < graph.getEdgeCount(); e++) {
+                    assertEquals(graph.target(e), again.target(e));
+                    assertEquals(graph.weight(e), again.weight(e));
+                    assertEquals(graph.target(e), offHeap.target(e));
+                    assertEquals(graph.weight(e), offHeap.weight(e));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameGraph(CsrGraph expected, CsrGraph actual) {
+        assertEquals(expected.getNodeCount(), actual.getNodeCount());
+        assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+        for (int u = 0; u < expected.getNodeCount(); u++) {
+            assertEquals(expected.edgeStart(u), actual.edgeStart(u));
+        }
+        for (long e = 0; e < expected.getEdgeCount(); e++) {
+            assertEquals(expected.target(e), actual.target(e));
+            assertEquals(expected.weight(e), actual.weight(e));
+        }
+    }
+
+    private static void assertSymmetric(CsrGraph graph) {
+        var weights = new HashMap<Long, Double>();
+        for (int u = 0; u < graph.getNodeCount(); u++) {
+            for (long e = graph.edgeStart(u); e < graph.edgeEnd(u); e++) {
+                weights.put((long) u * graph.getNodeCount() + graph.target(e), graph.weight(e));
+            }
+        }
+        for (var entry : weights.entrySet()) {
+            long reverse = entry.getKey() % graph.getNodeCount() * graph.getNodeCount() + entry.getKey() / graph.getNodeCount();
+            assertEquals(entry.getValue(), weights.get(reverse));
+        }
+    }
+
+    private static int totalOverLevels(Metrics metrics, Metrics.Counter counter) {
+        long total = 0;
+        for (int level = 0; level < metrics.levelCount(); level++) {
+            total += metrics.get(level, counter);
+        }
+        return (int) total;
+    }
+
+    /**
+     * A BMSSP ball around node 0 holds every node labeled within the radius, and leaves nothing
+     * labeled beyond it. Each estimate is no smaller than the true distance and is backed by its
+     * tree parent. The nodes the same bounded call returns as complete are in the ball, and
+     * every out-edge of theirs that stays below the bound is relaxed, so no estimate they reach
+     * is inflated past them. BMSSP does not guarantee exact distances, even for those nodes.
+     */
+    private static void assertBmsspBall(CsrGraph graph, DistanceStore exact, double radius) {
+        int n = graph.getNodeCount();
+        var dist = DistanceStore.dense(n);
+        dist.set(0, 0.0);
+        var workspace = new QueryWorkspace(n);
+        var tree = new ShortestPathTree(n);
+        workspace.setTree(tree);
+        var ball = BMSSP.ball(graph, dist, NodeSet.of(n, 0), radius, workspace, new Instrument());
+        var members = ballMap(ball);
+        assertEquals(0.0, members.get(0));
+        for (var entry : members.entrySet()) {
+            int v = entry.getKey();
+            double d = entry.getValue();
+            assertTrue(d <= radius);
+            assertTrue(d >= exact.get(v) - 1e-9);
+            if (v != 0) {
+                int parent = tree.parent(v);
+                assertTrue(members.containsKey(parent));
+                assertTrue(members.get(parent) + pathLength(graph, new int[]{parent, v}) <= d + 1e-9);
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            assertTrue(members.containsKey(v) || dist.get(v) == Double.POSITIVE_INFINITY);
+        }
+
+        double B = Math.nextUp(radius);
+        var bounded = DistanceStore.dense(n);
+        bounded.set(0, 0.0);
+        var fresh = new QueryWorkspace(n);
+        var complete = BMSSP.bmssp(graph, bounded, fresh.getParams().topLevel(), B,
+                NodeSet.of(n, 0), n, fresh, new Instrument()).U();
+        for (int i = 0; i < complete.size(); i++) {
+            int u = complete.get(i);
+            assertEquals(bounded.get(u), members.get(u));
+            for (long e = graph.edgeStart(u), end = graph.edgeEnd(u); e < end; e++) {
+                double through = bounded.get(u) + graph.weight(e);
+                if (through < B) {
+                    assertTrue(bounded.get(graph.target(e)) <= through);
+                }
+            }
+        }
+    }
+
+    /**
+     * Every reached node's tree path starts at source and is exactly as long as its distance
+     */
+    private static void assertPathsMatch(CsrGraph graph, ShortestPathTree tree, DistanceStore dist, int source) {
+        for (int v = 0; v < graph.getNodeCount(); v++) {
+            if (Double.isFinite(dist.get(v))) {
+                var path = tree.pathTo(v);
+                assertEquals(source, path.source());
+                assertEquals(dist.get(v), pathLength(graph, path.toArray()), 1e-9);
+            } else {
+                assertEquals(ShortestPathTree.NO_PARENT, tree.parent(v));
+            }
+        }
+    }
+
+    private static Map<Integer, Double> ballMap(Ball ball) {
+        var map = new TreeMap<Integer, Double>();
+        for (int i = 0; i < ball.size(); i++) {
+            assertNull(map.put(ball.nodes()[i], ball.distances()[i]));
+        }
+        return map;
+    }
+
+    /**
+     * Sum of the lightest edge weights along consecutive nodes
+     */
+    private static double pathLength(CsrGraph graph, int[] nodes) {
+        double length = 0.0;
+        for (int i = 1; i < nodes.length; i++) {
+            double lightest = Double.POSITIVE_INFINITY;
+            for (long e = graph.edgeStart(nodes[i - 1]); e < graph.edgeEnd(nodes[i - 1]); e++) {
+                if (graph.target(e) == nodes[i]) {
+                    lightest = Math.min(lightest, graph.weight(e));
+                }
+            }
+            length += lightest;
+        }
+        return length;
+    }
+
+    private static int[] sortedMembers(NodeSet set) {
+        var members = set.toArray();
+        Arrays.sort(members);
+        return members;
+    }
+
     @Test
     @DisplayName("Instrumentation test")
     void testInstrumentation() {
@@ -0,0 +1,97 @@
+package testing;
+
+import org.bmssp.algo.BlockDataStructureD;
+import org.bmssp.algo.DataStructureD;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contract tests for the DataStructure D implementations
+ */
+class DataStructureDTest {
+
+    @Test
+    @DisplayName("Block D pulls at most M nodes, separated from the rest by Bi")
+    void testBlockPullSeparatesKeys() {
+        int M = 8;
+        double BUpper = 1000.0;
+        var D = new BlockDataStructureD(M, BUpper);
+        var random = new Random(3);
+        var expected = new HashMap<Integer, Double>();
+
+        for (int i = 0; i < 500; i++) {
+            int node = random.nextInt(200);
+            double key = random.nextDouble() * 100 + 100;
+            D.insert(node, key);
+            expected.merge(node, key, Math::min);
+        }
+
+        // Prepended keys are smaller than everything inserted so far
+        var prepend = new ArrayList<DataStructureD.NodeKey>();
+        for (int node = 200; node < 260; node++) {
+            double key = random.nextDouble() * 100;
+            prepend.add(new DataStructureD.NodeKey(node, key));
+            expected.put(node, key);
+        }
+        D.batchPrepend(prepend);
+
+        double previousBi = Double.NEGATIVE_INFINITY;
+        var pulled = new HashMap<Integer, Double>();
+        while (!D.isEmpty()) {
+            var result = D.pull();
+            assertTrue(result.Si().size() <= M);
+            assertFalse(result.Si().isEmpty());
+            for (int node : result.Si().toArray()) {
+                double key = expected.get(node);
+                assertTrue(key >= previousBi, "pulled key below the previous bound");
+                assertTrue(key < result.Bi() || result.Bi() == BUpper, "pulled key not below Bi");
+                assertNull(pulled.put(node, key), "node pulled twice");
+            }
+            previousBi = result.Bi();
+        }
+
+        assertEquals(expected, pulled);
+    }
+
+    @Test
+    @DisplayName("Block D keeps only the smallest key per node")
+    void testBlockKeepsSmallestKey() {
+        var D = DataStructureD.Kind.BLOCK.create(4, 50.0, null);
+        D.insert(1, 10.0);
+        D.insert(1, 5.0);
+        D.insert(1, 7.0);
+        D.insert(2, 6.0);
+
+        var first = D.pull();
+        assertArrayEquals(new int[]{1, 2}, Arrays.stream(first.Si().toArray()).sorted().toArray());
+        assertEquals(50.0, first.Bi());
+        assertTrue(D.isEmpty());
+        assertThrows(IllegalStateException.class, D::pull);
+    }
+
+    @Test
+    @DisplayName("Reset empties every implementation and applies the new parameters")
+    void testReset() {
+        for (var kind : DataStructureD.Kind.values()) {
+            var D = kind.create(4, 50.0, 4);
+            for (int node = 0; node < 20; node++) {
+                D.insert(node, node);
+            }
+            D.pull();
+
+            D.reset(2, 10.0, 2);
+            assertTrue(D.isEmpty(), kind.name());
+            D.insert(7, 3.0);
+            D.insert(9, 1.0);
+            D.insert(11, 2.0);
+            var pulled = D.pull();
+            assertEquals(2, pulled.Si().size(), kind.name());
+            assertTrue(pulled.Si().contains(9) && pulled.Si().contains(11), kind.name());
+            assertFalse(D.isEmpty(), kind.name());
+        }
+    }
+}